@@ -0,0 +1,117 @@
+package app;
+
+import entity.Application;
+import entity.Flat;
+import entity.HdbOfficer;
+import entity.Project;
+import entity.Receipt;
+import pub_enums.ApplStatus;
+import pub_enums.FlatType;
+import service.HdbOfficerService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stress test for flat unit reservation. Many officers race to book the last units of one project's
+ * THREEROOM flats, each trying every application in a different order, so units and applications are both
+ * contended. Each round checks that no unit was oversold and no application was booked twice, in memory and
+ * again after reloading the repositories from disk.
+ * <p>
+ * Usage: {@code java app.BookingStressTest [threads] [units] [applications] [rounds]}, run in an empty working
+ * directory (see {@link SyntheticData}). Exits with status 1 if any check fails.
+ */
+public class BookingStressTest {
+    private static final FlatType FLAT_TYPE = FlatType.THREEROOM;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int units = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int applications = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        boolean passed = true;
+        for (int round = 1; round <= rounds; round++) {
+            new SyntheticData().applicants(applications).applications(applications).projects(1).officers(threads)
+                    .unitsPerFlatType(units).statuses("SUCCESS").flatTypes(FLAT_TYPE.name()).prepare(false);
+            passed &= runRound(round, threads, units);
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) System.exit(1);
+    }
+
+    private static boolean runRound(int round, int threads, int units) throws Exception {
+        Bootstrap bootstrap = new Bootstrap().load();
+        HdbOfficerService officerService = new HdbOfficerService(bootstrap.getOfficerRepo(), bootstrap.getProjectRepo(),
+                bootstrap.getApplicationRepo(), bootstrap.getEnquiryRepo(), bootstrap.getApplicantRepo());
+        Project project = bootstrap.getProjectRepo().findById(SyntheticData.projectId(0)).orElseThrow();
+        List<String> applicationIds = new ArrayList<>();
+        for (Application application : bootstrap.getApplicationRepo().findAll()) {
+            applicationIds.add(application.getId());
+        }
+
+        ConcurrentLinkedQueue<Receipt> receipts = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long began;
+        try (ExecutorService officers = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                HdbOfficer officer = bootstrap.getOfficerRepo().findById(SyntheticData.officerId(t)).orElseThrow();
+                int offset = (int) ((long) t * applicationIds.size() / threads);
+                futures.add(officers.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < applicationIds.size(); i++) {
+                        Receipt receipt = officerService.bookFlat(applicationIds.get((offset + i) % applicationIds.size()), officer);
+                        if (receipt != null) {
+                            receipts.add(receipt);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double millis = (System.nanoTime() - began) / 1e6;
+
+        List<String> failures = new ArrayList<>();
+        Flat flat = project.getFlat(FLAT_TYPE);
+        int booked = bootstrap.getApplicationRepo().findByStatus(ApplStatus.BOOKED).size();
+        Set<String> bookedApplicants = new HashSet<>();
+        for (Receipt receipt : receipts) {
+            if (!bookedApplicants.add(receipt.getApplicantId())) {
+                failures.add("applicant " + receipt.getApplicantId() + " booked twice");
+            }
+        }
+        check(failures, "receipts", receipts.size(), units);
+        check(failures, "BOOKED applications", booked, units);
+        check(failures, "remaining units", flat.getRemaining(), 0);
+        check(failures, "units still reserved", flat.getReserved(), 0);
+
+        // Everything above must already be on disk: reload without flushing write-behind, as after a crash
+        Bootstrap reloaded = new Bootstrap().load();
+        Flat persisted = reloaded.getProjectRepo().findById(SyntheticData.projectId(0)).orElseThrow().getFlat(FLAT_TYPE);
+        check(failures, "BOOKED applications after reload", reloaded.getApplicationRepo().findByStatus(ApplStatus.BOOKED).size(), units);
+        check(failures, "remaining units after reload", persisted.getRemaining(), 0);
+
+        System.out.printf("Round %d: %d officers, %d units, %d booking attempts in %.1f ms: %s%n", round, threads, units,
+                (long) threads * applicationIds.size(), millis, failures.isEmpty() ? "no overselling" : failures);
+        return failures.isEmpty();
+    }
+
+    private static void check(List<String> failures, String what, int actual, int expected) {
+        if (actual != expected) {
+            failures.add(what + ": " + actual + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package app;
+
+import repository.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads the repositories in parallel, following their dependencies:
+ * <pre>
+ * ApplicantRepo
+ * HdbManagerRepo  --+
+ *                   +--> ProjectRepo
+ * HdbOfficerRepo  --+
+ * ApplicationRepo
+ * EnquiryRepo
+ * </pre>
+ * ProjectRepo resolves manager and officer IDs through those two repositories, so it waits for them;
+ * everything else is independent. Cold start is therefore bounded by the slowest chain rather
+ * than the sum of every file. Once all have loaded, applicants are attached to their applications and
+ * enquiries, which ApplicantList.csv refers to only through those repositories' applicant IDs.
+ * Each load's time and throughput is recorded for {@link #printReport()}.
+ * <p>
+ * Each repository prefers its binary snapshot ({@code data/*.snap}) over its CSV unless the CSV has changed
+ * since the snapshot was written; {@link #checkpoint()} writes them all on clean shutdown.
+ */
+public class Bootstrap {
+
+    /**
+     * Timing of one repository load.
+     */
+    public static final class LoadStat {
+        private final String name;
+        private final int rows;
+        private final long nanos;
+
+        private LoadStat(String name, int rows, long nanos) {
+            this.name = name;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows / (nanos / 1e9);
+        }
+    }
+
+    private final List<LoadStat> stats = new ArrayList<>();
+    private long wallNanos;
+
+    private ApplicantRepo applicantRepo;
+    private HdbManagerRepo managerRepo;
+    private HdbOfficerRepo officerRepo;
+    private ProjectRepo projectRepo;
+    private ApplicationRepo applicationRepo;
+    private EnquiryRepo enquiryRepo;
+    private WriteBehind writeBehind;
+
+    /**
+     * Loads every repository, returning once all are ready.
+     *
+     * @throws RuntimeException the first load failure, unwrapped from the worker thread.
+     */
+    public Bootstrap load() {
+        long start = System.nanoTime();
+        ExecutorService loaders = Executors.newFixedThreadPool(5, runnable -> {
+            Thread thread = new Thread(runnable, "repo-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<ApplicantRepo> applicants = CompletableFuture.supplyAsync(
+                    () -> timed("ApplicantRepo", ApplicantRepo::new, ApplicantRepo::size), loaders);
+            CompletableFuture<HdbManagerRepo> managers = CompletableFuture.supplyAsync(
+                    () -> timed("HdbManagerRepo", HdbManagerRepo::new, HdbManagerRepo::size), loaders);
+            CompletableFuture<HdbOfficerRepo> officers = CompletableFuture.supplyAsync(
+                    () -> timed("HdbOfficerRepo", HdbOfficerRepo::new, HdbOfficerRepo::size), loaders);
+            CompletableFuture<ApplicationRepo> applications = CompletableFuture.supplyAsync(
+                    () -> timed("ApplicationRepo", ApplicationRepo::new, ApplicationRepo::size), loaders);
+            CompletableFuture<EnquiryRepo> enquiries = CompletableFuture.supplyAsync(
+                    () -> timed("EnquiryRepo", EnquiryRepo::new, EnquiryRepo::size), loaders);
+
+            // ProjectRepo resolves managers and officers through these repos (lazily, on first access)
+            CompletableFuture<ProjectRepo> projects = managers.thenCombineAsync(officers,
+                    (m, o) -> timed("ProjectRepo", () -> ProjectRepo.load(m, o), ProjectRepo::size), loaders);
+
+            CompletableFuture.allOf(applicants, projects, applications, enquiries).join();
+
+            applicantRepo = applicants.join();
+            managerRepo = managers.join();
+            officerRepo = officers.join();
+            projectRepo = projects.join();
+            applicationRepo = applications.join();
+            enquiryRepo = enquiries.join();
+            // Applicant rows are profile-only; attach their applications and enquiries (migrating old files)
+            applicantRepo.resolveReferences(applicationRepo, enquiryRepo);
+
+            // Coalesce CSV rewrites from here on; Main flushes on shutdown
+            writeBehind = new WriteBehind();
+            applicantRepo.setWriteBehind(writeBehind);
+            managerRepo.setWriteBehind(writeBehind);
+            officerRepo.setWriteBehind(writeBehind);
+            projectRepo.setWriteBehind(writeBehind);
+            enquiryRepo.setWriteBehind(writeBehind);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            loaders.shutdown();
+        }
+        wallNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    private <T> T timed(String name, Supplier<T> loader, ToIntFunction<T> rowCount) {
+        long start = System.nanoTime();
+        T repo = loader.get();
+        long elapsed = System.nanoTime() - start;
+        synchronized (stats) {
+            stats.add(new LoadStat(name, rowCount.applyAsInt(repo), elapsed));
+        }
+        return repo;
+    }
+
+    // ========== Snapshots ==========
+
+    /**
+     * Folds the application log into its CSV and writes every repository's binary snapshot,
+     * so the next start can skip CSV parsing. Call on clean shutdown, after {@link WriteBehind#flush()}
+     * so that each snapshot records its CSV's final state.
+     */
+    public void checkpoint() {
+        applicationRepo.checkpoint(); // Writes its own snapshot alongside the CSV
+        applicantRepo.writeSnapshot();
+        managerRepo.writeSnapshot();
+        officerRepo.writeSnapshot();
+        projectRepo.writeSnapshot();
+        enquiryRepo.writeSnapshot();
+    }
+
+    // ========== Report ==========
+    public List<LoadStat> getStats() {
+        synchronized (stats) {
+            return new ArrayList<>(stats);
+        }
+    }
+
+    public double getWallMillis() {
+        return wallNanos / 1e6;
+    }
+
+    /**
+     * Prints each repository's load time and throughput, in completion order.
+     */
+    public void printReport() {
+        double summed = 0;
+        for (LoadStat stat : getStats()) {
+            System.out.printf("Loaded %-16s %,10d rows in %8.1f ms (%,.0f rows/s)%n",
+                    stat.getName(), stat.getRows(), stat.getMillis(), stat.getRowsPerSecond());
+            summed += stat.getMillis();
+        }
+        System.out.printf("Repositories ready in %.1f ms (individual loads sum to %.1f ms)%n",
+                getWallMillis(), summed);
+    }
+
+    // ========== Accessors ==========
+    public ApplicantRepo getApplicantRepo() {
+        return applicantRepo;
+    }
+
+    public HdbManagerRepo getManagerRepo() {
+        return managerRepo;
+    }
+
+    public HdbOfficerRepo getOfficerRepo() {
+        return officerRepo;
+    }
+
+    public ProjectRepo getProjectRepo() {
+        return projectRepo;
+    }
+
+    public ApplicationRepo getApplicationRepo() {
+        return applicationRepo;
+    }
+
+    public EnquiryRepo getEnquiryRepo() {
+        return enquiryRepo;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+}
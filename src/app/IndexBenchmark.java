@@ -0,0 +1,102 @@
+package app;
+
+import entity.Application;
+import pub_enums.ApplStatus;
+import repository.ApplicationRepo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Times {@link ApplicationRepo}'s indexed lookups by applicant, project and status against the linear scan over
+ * every application they replaced, and checks that both find the same applications.
+ * <p>
+ * Usage: {@code java app.IndexBenchmark [applications] [lookups] [scans]}, run in an empty working directory
+ * (see {@link SyntheticData}). Applicant and project lookups are timed over {@code lookups} keys through their
+ * index, and over the first {@code scans} of those keys by scanning, since a scan reads every application. A status
+ * covers a quarter of all applications, so status lookups use {@code scans} keys both ways.
+ */
+public class IndexBenchmark {
+    private static final int APPLICATIONS_PER_APPLICANT = 4;
+    private static final int PROJECTS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int applications = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int scans = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        int applicants = Math.max(1, applications / APPLICATIONS_PER_APPLICANT);
+        new SyntheticData().applicants(applicants).applications(applications).projects(PROJECTS).prepare(true);
+        ApplicationRepo repo = new Bootstrap().load().getApplicationRepo();
+        // The map values the pre-index lookups streamed over
+        Collection<Application> all = repo.findAll();
+        System.out.printf("%,d applications, %,d applicants, %d projects%n", all.size(), applicants, PROJECTS);
+
+        List<String> applicantIds = new ArrayList<>(lookups);
+        List<String> projectIds = new ArrayList<>(lookups);
+        for (int i = 0; i < lookups; i++) {
+            applicantIds.add(SyntheticData.applicantId((int) ((i * 2654435761L) % applicants)));
+            projectIds.add(SyntheticData.projectId(i % PROJECTS));
+        }
+        List<ApplStatus> statuses = new ArrayList<>(scans);
+        ApplStatus[] values = ApplStatus.values();
+        for (int i = 0; i < scans; i++) {
+            statuses.add(values[i % values.length]);
+        }
+
+        boolean same = true;
+        same &= compare("findByApplicantId", applicantIds, scans, repo::findByApplicantId,
+                id -> scan(all, app -> app.getApplicantId().equals(id)));
+        same &= compare("findByProjectId", projectIds, scans, repo::findByProjectId,
+                id -> scan(all, app -> app.getProjectId().equals(id)));
+        same &= compare("findByStatus", statuses, scans, repo::findByStatus,
+                status -> scan(all, app -> app.getStatus() == status));
+        System.out.println(same ? "Indexed and scanned lookups agree" : "MISMATCH between indexed and scanned lookups");
+        if (!same) System.exit(1);
+    }
+
+    private static List<Application> scan(Collection<Application> all, Predicate<Application> filter) {
+        return all.stream().filter(filter).collect(Collectors.toList());
+    }
+
+    private static <K> boolean compare(String name, List<K> keys, int scans, Function<K, List<Application>> indexed,
+                                       Function<K, List<Application>> scanned) {
+        long found = 0;
+        long began = System.nanoTime();
+        for (K key : keys) {
+            found += indexed.apply(key).size();
+        }
+        double indexedNanos = (double) (System.nanoTime() - began) / keys.size();
+
+        List<K> scannedKeys = keys.subList(0, Math.min(scans, keys.size()));
+        List<List<Application>> results = new ArrayList<>(scannedKeys.size());
+        began = System.nanoTime();
+        for (K key : scannedKeys) {
+            results.add(scanned.apply(key));
+        }
+        double scanNanos = (double) (System.nanoTime() - began) / Math.max(1, scannedKeys.size());
+
+        boolean same = true;
+        for (int i = 0; i < scannedKeys.size(); i++) {
+            same &= ids(results.get(i)).equals(ids(indexed.apply(scannedKeys.get(i))));
+        }
+        System.out.printf("%-18s indexed %,10.0f ns (%,.1f rows)   scan %,14.0f ns   %,.0fx%s%n",
+                name, indexedNanos, (double) found / keys.size(), scanNanos, scanNanos / indexedNanos,
+                same ? "" : "   RESULTS DIFFER");
+        return same;
+    }
+
+    private static Set<String> ids(List<Application> applications) {
+        Set<String> ids = new HashSet<>();
+        for (Application application : applications) {
+            ids.add(application.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,143 @@
+package app;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates concurrent users against a {@link SessionServer}. Each simulated user connects,
+ * logs in as an applicant, views the available projects a number of times, logs out and exits,
+ * waiting for every prompt as a human would.
+ * <p>
+ * Usage: {@code java app.LoadGenerator [users] [rounds] [port] [password]}.
+ * Applicant NRICs are taken from the applicant CSV and reused round-robin.
+ */
+public class LoadGenerator {
+    private static final String APPLICANT_FILE = "data/ApplicantList.csv";
+    private static final String CHOICE_PROMPT = "Enter your choice: ";
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : SessionServer.DEFAULT_PORT;
+        String password = args.length > 3 ? args[3] : "password";
+
+        List<String> nrics = loadApplicantIds();
+        if (nrics.isEmpty()) {
+            System.err.println("No applicants found in " + APPLICANT_FILE);
+            return;
+        }
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong requests = new AtomicLong();
+        long[] latenciesNanos = new long[users];
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                final int user = i;
+                futures.add(clients.submit(() -> {
+                    long began = System.nanoTime();
+                    try {
+                        requests.addAndGet(runSession(port, nrics.get(user % nrics.size()), password, rounds));
+                        completed.incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    }
+                    latenciesNanos[user] = System.nanoTime() - began;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latenciesNanos);
+        System.out.printf("Users: %d (%d completed, %d failed), rounds per user: %d%n", users, completed.get(), failed.get(), rounds);
+        System.out.printf("Wall time: %.2f s, %.0f requests/s%n", seconds, requests.get() / seconds);
+        System.out.printf("Session time p50: %.1f ms, p99: %.1f ms, max: %.1f ms%n",
+                percentile(latenciesNanos, 0.50), percentile(latenciesNanos, 0.99), latenciesNanos[users - 1] / 1e6);
+    }
+
+    /**
+     * Runs one scripted session.
+     *
+     * @return The number of menu requests sent.
+     */
+    private static int runSession(int port, String nric, String password, int rounds) throws IOException {
+        try (Socket socket = new Socket("localhost", port);
+             Reader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            socket.setTcpNoDelay(true);
+            int sent = 0;
+            expect(in, CHOICE_PROMPT);
+            out.println("1"); // Login
+            expect(in, "Enter ID: ");
+            out.println(nric);
+            expect(in, "Enter Password: ");
+            out.println(password);
+            expect(in, CHOICE_PROMPT);
+            sent++;
+            for (int i = 0; i < rounds; i++) {
+                out.println("1"); // View available projects
+                expect(in, CHOICE_PROMPT);
+                sent++;
+            }
+            out.println("11"); // Logout, back to the main menu
+            expect(in, CHOICE_PROMPT);
+            out.println("2"); // Exit
+            return sent + 1;
+        }
+    }
+
+    /**
+     * Reads server output until it ends with the given prompt.
+     */
+    private static void expect(Reader in, String prompt) throws IOException {
+        StringBuilder tail = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            tail.append((char) c);
+            if (tail.length() > prompt.length()) {
+                tail.deleteCharAt(0);
+            }
+            if (tail.length() == prompt.length() && tail.toString().equals(prompt)) {
+                return;
+            }
+        }
+        throw new EOFException("Session closed while waiting for \"" + prompt.trim() + "\"");
+    }
+
+    private static List<String> loadApplicantIds() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(APPLICANT_FILE))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.split("\\|", 2);
+                if (!tokens[0].trim().isEmpty()) {
+                    ids.add(tokens[0].trim());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,105 @@
+package app;
+
+import entity.User;
+import repository.UserDirectory;
+import service.UserService;
+import util.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures login throughput under a login storm: many threads logging in applicants, officers and the manager
+ * through {@link UserService#login}, which reads only the repositories' in-memory credential indexes.
+ * <p>
+ * Every user first logs in twice, which migrates their plaintext password to a hash and then verifies that hash
+ * once. The storm that follows is answered from the verified password cache, as repeat logins are in production.
+ * <p>
+ * Usage: {@code java app.LoginBenchmark [users] [threads] [logins] [iterations]}, run in an empty working directory
+ * (see {@link SyntheticData}). {@code iterations} is the PBKDF2 cost factor; it only affects the two warm-up logins.
+ * Exits with status 1 if any login fails.
+ */
+public class LoginBenchmark {
+    private static final int USERS_PER_OFFICER = 10;
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int logins = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        PasswordHasher.setIterations(iterations);
+        int officers = users / USERS_PER_OFFICER;
+        new SyntheticData().applicants(users - officers - 1).officers(officers).prepare(false);
+        Bootstrap bootstrap = new Bootstrap().load();
+        UserService userService = new UserService(UserDirectory.of(
+                bootstrap.getApplicantRepo(), bootstrap.getOfficerRepo(), bootstrap.getManagerRepo()));
+        List<String> ids = userIds(users - officers - 1, officers);
+        System.out.printf("%,d users, %d threads, PBKDF2 at %,d iterations%n", ids.size(), threads, iterations);
+
+        boolean passed = storm("first login", userService, ids, threads, ids.size())
+                & storm("second login", userService, ids, threads, ids.size())
+                & storm("repeat logins", userService, ids, threads, logins);
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) System.exit(1);
+    }
+
+    /**
+     * @return Every user {@link SyntheticData} generates for these counts: applicants, then officers, then the
+     * manager.
+     */
+    static List<String> userIds(int applicants, int officers) {
+        List<String> ids = new ArrayList<>(applicants + officers + 1);
+        for (int i = 0; i < applicants; i++) {
+            ids.add(SyntheticData.applicantId(i));
+        }
+        for (int i = 0; i < officers; i++) {
+            ids.add(SyntheticData.officerId(i));
+        }
+        ids.add(SyntheticData.MANAGER_ID);
+        return ids;
+    }
+
+    /**
+     * Logs in {@code logins} times, cycling through the users, on {@code threads} threads started together, and
+     * prints the throughput.
+     *
+     * @return true if every login returned the user it was for.
+     */
+    static boolean storm(String label, UserService userService, List<String> ids, int threads, int logins)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        long began;
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = next.getAndIncrement(); i < logins; i = next.getAndIncrement()) {
+                        String id = ids.get(i % ids.size());
+                        User user = userService.login(id, SyntheticData.PASSWORD);
+                        if (user == null || !id.equals(user.getId())) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            began = System.nanoTime();
+            start.countDown();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        System.out.printf("  %-16s %,10d logins in %8.2f s  %,12.0f logins/s%s%n", label, logins, seconds,
+                logins / seconds, failed.get() == 0 ? "" : "  " + failed.get() + " FAILED");
+        return failed.get() == 0;
+    }
+}
@@ -6,44 +6,71 @@ import repository.*;
 import service.*;
 import view.CLIView;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Main application class to bootstrap and enter the BTO Management System.
  * Initializes repositories, services, controllers, and the view, then starts the application.
  */
 public class Main {
+    private static final String VERIFY_AGGREGATES = "--verify-aggregates";
+    private static final String REPORT_PARALLELISM = "--report-parallelism";
+    private static final int MAX_REPORT_PARALLELISM = 32767; // ForkJoinPool's limit
+    private static final String USAGE =
+            "Usage: java app.Main [--serve [port]] [--verify-aggregates] [--report-parallelism threads]";
+
     /**
      * The main method that launches the BTO application.
      * Creates the CLI view and the main user controller, then starts the controller.
-     * @param args Command line arguments (not utilized in this application).
+     * With {@code --serve [port]}, serves many concurrent sessions over a local socket instead
+     * (see {@link SessionServer}). With {@code --verify-aggregates}, the application summary counters
+     * are checked against a full scan at startup and on every summary. With {@code --report-parallelism n},
+     * booking reports are produced by n fork-join threads (see {@link BookingReportEngine#streamParallel}).
+     * @param args Command line arguments: optionally {@code --serve} and a port, {@code --verify-aggregates},
+     *             and {@code --report-parallelism} with a thread count.
      */
     public static void main(String[] args) {
+        boolean verifyAggregates = false;
+        int reportParallelism = 1;
+        List<String> remaining = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (VERIFY_AGGREGATES.equals(args[i])) {
+                verifyAggregates = true;
+            } else if (REPORT_PARALLELISM.equals(args[i])) {
+                reportParallelism = i + 1 < args.length ? parseParallelism(args[++i]) : -1;
+                if (reportParallelism < 1) {
+                    System.err.println(REPORT_PARALLELISM + " needs a thread count from 1 to " + MAX_REPORT_PARALLELISM);
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            } else {
+                remaining.add(args[i]);
+            }
+        }
+        args = remaining.toArray(new String[0]);
+
         System.out.println("Starting BTO Management System...");
 
         // Add debugging
         System.out.println("Debug: Initializing repositories...");
         
         try {
-            // Initialize repositories
-            ApplicantRepo applicantRepo = new ApplicantRepo();
-            System.out.println("Debug: ApplicantRepo initialized");
-            
-            HdbManagerRepo managerRepo = new HdbManagerRepo();
-            System.out.println("Debug: HdbManagerRepo initialized");
-            
-            HdbOfficerRepo officerRepo = new HdbOfficerRepo();
-            System.out.println("Debug: HdbOfficerRepo initialized");
-            
-            ProjectRepo projectRepo = new ProjectRepo(managerRepo, officerRepo);
-            System.out.println("Debug: ProjectRepo initialized");
-            
-            ApplicationRepo applicationRepo = new ApplicationRepo();
-            System.out.println("Debug: ApplicationRepo initialized");
-            
-            EnquiryRepo enquiryRepo = new EnquiryRepo();
-            System.out.println("Debug: EnquiryRepo initialized");
+            // Initialize repositories, loading independent CSVs in parallel
+            Bootstrap bootstrap = new Bootstrap().load();
+            bootstrap.printReport();
+
+            ApplicantRepo applicantRepo = bootstrap.getApplicantRepo();
+            HdbManagerRepo managerRepo = bootstrap.getManagerRepo();
+            HdbOfficerRepo officerRepo = bootstrap.getOfficerRepo();
+            ProjectRepo projectRepo = bootstrap.getProjectRepo();
+            ApplicationRepo applicationRepo = bootstrap.getApplicationRepo();
+            EnquiryRepo enquiryRepo = bootstrap.getEnquiryRepo();
+            WriteBehind writeBehind = bootstrap.getWriteBehind();
 
         // Initialize services
-        UserService userService = new UserService(applicantRepo, managerRepo, officerRepo);
+        UserDirectory userDirectory = UserDirectory.of(applicantRepo, officerRepo, managerRepo);
+        UserService userService = new UserService(userDirectory);
         
         ApplicantService applicantService = new ApplicantService(
                 applicantRepo, projectRepo, applicationRepo, enquiryRepo);
@@ -52,7 +79,14 @@ public class Main {
                 officerRepo, projectRepo, applicationRepo, enquiryRepo, applicantRepo);
         
         HdbManagerService managerService = new HdbManagerService(
-                managerRepo, projectRepo, applicationRepo, enquiryRepo, officerRepo);
+                managerRepo, projectRepo, applicationRepo, enquiryRepo, officerRepo, applicantRepo);
+        if (verifyAggregates) {
+            List<String> mismatches = applicationRepo.verifyAggregates(null);
+            System.out.println("Aggregate verification: " + (mismatches.isEmpty() ? "all counters match" : mismatches.size() + " mismatch(es)"));
+            mismatches.forEach(mismatch -> System.err.println("Aggregate mismatch: " + mismatch));
+            managerService.setVerifyAggregates(true);
+        }
+        managerService.setReportParallelism(reportParallelism);
 
         // Initialize controllers
         UserController userController = new UserController(userService);
@@ -66,6 +100,21 @@ public class Main {
         HdbManagerController managerController = new HdbManagerController(
                 managerService, userService);
 
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : SessionServer.DEFAULT_PORT;
+            SessionServer server = new SessionServer(
+                    port, userController, applicantController, officerController, managerController);
+            // Runs on Ctrl+C: disconnect the sessions, then fold outstanding mutations into the CSV and binary snapshots
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                writeBehind.flush();
+                writeBehind.printReport();
+                bootstrap.checkpoint();
+            }));
+            server.serve();
+            return;
+        }
+
         // Initialize and start CLI view
         CLIView cliView = new CLIView(
                 userController, applicantController, officerController, managerController);
@@ -74,6 +123,12 @@ public class Main {
                 
         // Start application
         cliView.run();
+
+        // Persist mutations still inside the write-behind window, then fold the application log
+        // into its CSV and write the binary snapshots for the next start
+        writeBehind.flush();
+        writeBehind.printReport();
+        bootstrap.checkpoint();
         
         System.out.println("Exiting BTO Management System. Goodbye!");
         } catch (Exception e) {
@@ -81,4 +136,16 @@ public class Main {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The thread count, or -1 if the value is not a number in range.
+     */
+    private static int parseParallelism(String value) {
+        try {
+            int parallelism = Integer.parseInt(value.trim());
+            return parallelism <= MAX_REPORT_PARALLELISM ? parallelism : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
\ No newline at end of file
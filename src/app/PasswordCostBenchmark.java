@@ -0,0 +1,67 @@
+package app;
+
+import repository.UserDirectory;
+import service.UserService;
+import util.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures login throughput against the PBKDF2 cost factor, with and without the verified password cache.
+ * <p>
+ * For each iteration count, fresh users log in once, which hashes their plaintext passwords at that count. The
+ * repositories are then reloaded, so the cache starts empty: every user's next login pays one key derivation
+ * (uncached), and logins after that are answered from the cache (cached).
+ * <p>
+ * Usage: {@code java app.PasswordCostBenchmark [users] [threads] [cachedLogins] [iterations...]}, run in an empty
+ * working directory (see {@link SyntheticData}). Exits with status 1 if any login fails.
+ */
+public class PasswordCostBenchmark {
+    private static final int[] DEFAULT_ITERATIONS = {1_000, 10_000, 120_000};
+    private static final int WARM_UP_ITERATIONS = 1_000;
+    private static final int WARM_UP_ROUNDS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int cachedLogins = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        List<Integer> costs = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            costs.add(Integer.parseInt(args[i]));
+        }
+        if (costs.isEmpty()) {
+            for (int iterations : DEFAULT_ITERATIONS) costs.add(iterations);
+        }
+
+        // Let the JIT compile key derivation before anything is timed
+        PasswordHasher.setIterations(WARM_UP_ITERATIONS);
+        String warmUp = PasswordHasher.hash(SyntheticData.PASSWORD);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            PasswordHasher.verify(warmUp, SyntheticData.PASSWORD);
+        }
+
+        List<String> ids = LoginBenchmark.userIds(users, 0);
+        boolean passed = true;
+        for (int iterations : costs) {
+            PasswordHasher.setIterations(iterations);
+            new SyntheticData().applicants(users).prepare(false);
+            System.out.printf("PBKDF2 at %,d iterations, %,d users, %d threads%n", iterations, ids.size(), threads);
+
+            Bootstrap bootstrap = new Bootstrap().load();
+            passed &= LoginBenchmark.storm("first login", userService(bootstrap), ids, threads, ids.size());
+            bootstrap.getWriteBehind().flush();
+
+            UserService reloaded = userService(new Bootstrap().load());
+            passed &= LoginBenchmark.storm("uncached", reloaded, ids, threads, ids.size());
+            passed &= LoginBenchmark.storm("cached", reloaded, ids, threads, cachedLogins);
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) System.exit(1);
+    }
+
+    private static UserService userService(Bootstrap bootstrap) {
+        return new UserService(UserDirectory.of(
+                bootstrap.getApplicantRepo(), bootstrap.getOfficerRepo(), bootstrap.getManagerRepo()));
+    }
+}
@@ -0,0 +1,130 @@
+package app;
+
+import entity.Application;
+import entity.BookingReportRow;
+import pub_enums.ApplStatus;
+import repository.ApplicationRepo;
+import service.BookingReportEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Times booking report generation, sequential against {@link BookingReportEngine#streamParallel} at increasing
+ * parallelism, and checks that every mode yields the same rows and that parallel mode yields them in the same order.
+ * <p>
+ * Usage: {@code java app.ReportBenchmark [applications] [maxParallelism] [projects]}, run in an empty working
+ * directory (see {@link SyntheticData}). That many applications spread over that many projects are generated, or
+ * reused from an earlier run with the same arguments. A few applications without a project are added for the run,
+ * so parity covers them too, and removed afterwards.
+ */
+public class ReportBenchmark {
+    private static final int APPLICATIONS_PER_APPLICANT = 4;
+    private static final int WITHOUT_PROJECT = 10;
+    private static final int RUNS = 3;
+
+    private static final Map<String, Map<String, String>> SCENARIOS = Map.of(
+            "all", Map.of(),
+            "status=BOOKED", Map.of("status", "BOOKED"),
+            "maritalStatus=MARRIED", Map.of("maritalStatus", "MARRIED"));
+
+    public static void main(String[] args) throws Exception {
+        int applications = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int maxParallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int projects = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        long began = System.nanoTime();
+        if (new SyntheticData().applicants(applications / APPLICATIONS_PER_APPLICANT).applications(applications)
+                .projects(projects).prepare(true)) {
+            System.out.printf("Generated %d applications over %d projects in %.1f s%n",
+                    applications, projects, (System.nanoTime() - began) / 1e9);
+        }
+
+        began = System.nanoTime();
+        Bootstrap bootstrap = new Bootstrap().load();
+        ApplicationRepo applicationRepo = bootstrap.getApplicationRepo();
+        System.out.printf("Loaded %d applications in %.1f s%n", applicationRepo.size(), (System.nanoTime() - began) / 1e9);
+        BookingReportEngine engine = new BookingReportEngine(
+                applicationRepo, bootstrap.getProjectRepo(), bootstrap.getApplicantRepo());
+
+        List<Application> withoutProject = new ArrayList<>();
+        for (int i = 0; i < WITHOUT_PROJECT; i++) {
+            Application application = new Application(UUID.randomUUID().toString(), ApplStatus.BOOKED,
+                    SyntheticData.applicantId(i), null, "TWOROOM");
+            applicationRepo.add(application);
+            withoutProject.add(application);
+        }
+        try {
+            run(engine, maxParallelism);
+        } finally {
+            for (Application application : withoutProject) {
+                applicationRepo.delete(application.getId());
+            }
+        }
+    }
+
+    private static void run(BookingReportEngine engine, int maxParallelism) {
+        for (String scenario : SCENARIOS.keySet().stream().sorted().toList()) {
+            Map<String, String> filters = SCENARIOS.get(scenario);
+            System.out.println("Scenario: " + scenario);
+
+            Result sequential = time(() -> engine.stream(filters));
+            System.out.printf("  sequential     %9.1f ms  %,d rows%n", sequential.millis, sequential.rows);
+
+            Result baseline = null;
+            for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    Result parallel = time(() -> engine.streamParallel(filters, pool));
+                    if (baseline == null) baseline = parallel;
+                    System.out.printf("  parallel p=%-3d %9.1f ms  speedup %.2fx over p=1, %.2fx over sequential  %s%n",
+                            parallelism, parallel.millis, baseline.millis / parallel.millis,
+                            sequential.millis / parallel.millis, parity(sequential, baseline, parallel));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+    }
+
+    private static String parity(Result sequential, Result baseline, Result parallel) {
+        if (parallel.rows != sequential.rows || parallel.unorderedHash != sequential.unorderedHash) return "ROWS DIFFER";
+        if (parallel.orderedHash != baseline.orderedHash) return "ORDER DIFFERS";
+        return "same rows, same order";
+    }
+
+    // ========== Measurement ==========
+    private static final class Result {
+        long rows;
+        long unorderedHash;
+        long orderedHash;
+        double millis;
+    }
+
+    /**
+     * Consumes the report {@value #RUNS} times and keeps the fastest run.
+     */
+    private static Result time(Supplier<Stream<BookingReportRow>> report) {
+        Result best = null;
+        for (int run = 0; run < RUNS; run++) {
+            Result result = new Result();
+            long began = System.nanoTime();
+            try (Stream<BookingReportRow> rows = report.get()) {
+                rows.forEach(row -> {
+                    long hash = row.getApplicationId().hashCode() * 31L + row.getStatus().hashCode();
+                    result.rows++;
+                    result.unorderedHash += hash;
+                    result.orderedHash = result.orderedHash * 1_000_003L + hash;
+                });
+            }
+            result.millis = (System.nanoTime() - began) / 1e6;
+            if (best == null || result.millis < best.millis) best = result;
+        }
+        return best;
+    }
+}
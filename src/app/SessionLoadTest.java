@@ -0,0 +1,189 @@
+package app;
+
+import entity.Applicant;
+import entity.Application;
+import entity.HdbManager;
+import entity.HdbOfficer;
+import entity.Project;
+import pub_enums.ApplStatus;
+import service.ApplicantService;
+import service.HdbManagerService;
+import service.HdbOfficerService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-session load test for the application workflow. Applicant sessions call
+ * {@link ApplicantService#applyForProject}, with each applicant's attempts made back to back for different
+ * projects, so several sessions race for the same applicant. Meanwhile every officer and the manager call
+ * {@code processApplication} on whatever is pending, each deciding differently. The attempts are made in
+ * {@value #ROUNDS} rounds, so rejected applicants apply again while other decisions are still being made.
+ * <p>
+ * The run is linearizable if, at the end:
+ * <ul>
+ *     <li>every applicant has at most one live application (neither rejected nor withdrawn);</li>
+ *     <li>there are as many applications as successful applies;</li>
+ *     <li>every application was decided exactly once, and its status is the decision that succeeded;</li>
+ *     <li>the repositories reloaded from disk hold the same statuses.</li>
+ * </ul>
+ * Usage: {@code java app.SessionLoadTest [applicants] [sessions] [attempts] [projects] [officers]}, run in an
+ * empty working directory (see {@link SyntheticData}). Exits with status 1 if any check fails.
+ */
+public class SessionLoadTest {
+    private static final int ROUNDS = 2;
+    private static final long IDLE_MILLIS = 1;
+
+    public static void main(String[] args) throws Exception {
+        int applicantCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int attemptsPerApplicant = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int projectCount = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int officerCount = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+
+        new SyntheticData().applicants(applicantCount).projects(projectCount).officers(officerCount).prepare(false);
+        Bootstrap bootstrap = new Bootstrap().load();
+        ApplicantService applicantService = new ApplicantService(bootstrap.getApplicantRepo(), bootstrap.getProjectRepo(),
+                bootstrap.getApplicationRepo(), bootstrap.getEnquiryRepo());
+        HdbOfficerService officerService = new HdbOfficerService(bootstrap.getOfficerRepo(), bootstrap.getProjectRepo(),
+                bootstrap.getApplicationRepo(), bootstrap.getEnquiryRepo(), bootstrap.getApplicantRepo());
+        HdbManagerService managerService = new HdbManagerService(bootstrap.getManagerRepo(), bootstrap.getProjectRepo(),
+                bootstrap.getApplicationRepo(), bootstrap.getEnquiryRepo(), bootstrap.getOfficerRepo(),
+                bootstrap.getApplicantRepo());
+
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < projectCount; i++) {
+            projects.add(bootstrap.getProjectRepo().findById(SyntheticData.projectId(i)).orElseThrow());
+        }
+        // Synthetic applicants who are too young for any flat type would only ever be refused
+        List<Applicant> applicants = new ArrayList<>();
+        for (int i = 0; i < applicantCount; i++) {
+            Applicant applicant = bootstrap.getApplicantRepo().findById(SyntheticData.applicantId(i)).orElseThrow();
+            if (applicantService.checkEligibility(applicant, projects.get(0))) {
+                applicants.add(applicant);
+            }
+        }
+        List<HdbOfficer> officers = new ArrayList<>();
+        for (int i = 0; i < officerCount; i++) {
+            officers.add(bootstrap.getOfficerRepo().findById(SyntheticData.officerId(i)).orElseThrow());
+        }
+        HdbManager manager = bootstrap.getManagerRepo().findById(SyntheticData.MANAGER_ID).orElseThrow();
+
+        int attemptsPerRound = applicants.size() * attemptsPerApplicant;
+        int attempts = attemptsPerRound * ROUNDS;
+        AtomicInteger nextAttempt = new AtomicInteger();
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger applying = new AtomicInteger(sessions);
+        AtomicInteger decisions = new AtomicInteger();
+        Map<String, Boolean> decided = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long began;
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(sessions + officerCount + 1)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        for (int i = nextAttempt.getAndIncrement(); i < attempts; i = nextAttempt.getAndIncrement()) {
+                            Applicant applicant = applicants.get(i % attemptsPerRound / attemptsPerApplicant);
+                            Project project = projects.get(i % projects.size());
+                            if (applicantService.applyForProject(applicant, project)) {
+                                applied.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        applying.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            // Deciders: every officer, then the manager, each approving a different two thirds of what it sees
+            for (int d = 0; d <= officerCount; d++) {
+                HdbOfficer officer = d < officerCount ? officers.get(d) : null;
+                int decider = d;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    while (true) {
+                        boolean idle = applying.get() == 0;
+                        List<Application> pending = bootstrap.getApplicationRepo().findByStatus(ApplStatus.PENDING);
+                        if (pending.isEmpty()) {
+                            if (idle) return null;
+                            TimeUnit.MILLISECONDS.sleep(IDLE_MILLIS);
+                            continue;
+                        }
+                        for (Application application : pending) {
+                            boolean approve = Math.floorMod(application.getId().hashCode() + decider, 3) != 0;
+                            boolean won = officer != null
+                                    ? officerService.processApplication(application.getId(), officer, approve)
+                                    : managerService.processApplication(application.getId(), manager, approve);
+                            if (won) {
+                                decisions.incrementAndGet();
+                                if (decided.putIfAbsent(application.getId(), approve) != null) {
+                                    failures.add("application " + application.getId() + " decided twice");
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double millis = (System.nanoTime() - began) / 1e6;
+
+        List<Application> all = bootstrap.getApplicationRepo().findAll();
+        Map<String, Integer> live = new HashMap<>();
+        for (Application application : all) {
+            if (application.getStatus() != ApplStatus.REJECT && application.getStatus() != ApplStatus.WITHDRAW_APPROVED
+                    && live.merge(application.getApplicantId(), 1, Integer::sum) > 1) {
+                failures.add("applicant " + application.getApplicantId() + " has more than one live application");
+            }
+            Boolean decision = decided.get(application.getId());
+            ApplStatus expected = decision == null ? null : decision ? ApplStatus.SUCCESS : ApplStatus.REJECT;
+            if (application.getStatus() != expected) {
+                failures.add("application " + application.getId() + " is " + application.getStatus() + ", expected " + expected);
+            }
+        }
+        if (all.size() != applied.get()) {
+            failures.add(all.size() + " applications after " + applied.get() + " successful applies");
+        }
+
+        // The decisions must already be durable: reload without flushing write-behind
+        Map<String, ApplStatus> persisted = new HashMap<>();
+        for (Application application : new Bootstrap().load().getApplicationRepo().findAll()) {
+            persisted.put(application.getId(), application.getStatus());
+        }
+        for (Application application : all) {
+            if (persisted.get(application.getId()) != application.getStatus()) {
+                failures.add("application " + application.getId() + " reloaded as " + persisted.get(application.getId())
+                        + ", was " + application.getStatus());
+            }
+        }
+        if (persisted.size() != all.size()) {
+            failures.add(persisted.size() + " applications after reload, expected " + all.size());
+        }
+
+        System.out.printf("%d applicant sessions, %d officers and a manager, %,d eligible applicants, %d projects%n",
+                sessions, officerCount, applicants.size(), projects.size());
+        System.out.printf("%,d apply attempts, %,d applied, %,d decisions in %.1f ms (%,.0f operations/s)%n",
+                attempts, applied.get(), decisions.get(), millis, (attempts + decisions.get()) / (millis / 1000));
+        failures.stream().limit(20).forEach(failure -> System.out.println("  " + failure));
+        System.out.println(failures.isEmpty() ? "PASSED" : "FAILED (" + failures.size() + " violations)");
+        if (!failures.isEmpty()) System.exit(1);
+    }
+}
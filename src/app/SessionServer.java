@@ -0,0 +1,123 @@
+package app;
+
+import controller.*;
+import view.CLIView;
+import view.SessionClosedException;
+import view.SessionConsole;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves many line-oriented CLI sessions from one JVM, one virtual thread per connection.
+ * Each session gets its own {@link CLIView} (menu state and logged-in user), while the
+ * controllers, services and repositories are shared. Listens on the loopback interface only.
+ * <p>
+ * Try it with {@code nc localhost 5050}, or drive it with {@link LoadGenerator}.
+ */
+public class SessionServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 5050;
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger totalSessions = new AtomicInteger();
+
+    private final UserController userController;
+    private final ApplicantController applicantController;
+    private final HdbOfficerController officerController;
+    private final HdbManagerController managerController;
+
+    public SessionServer(int port, UserController uc, ApplicantController ac,
+                         HdbOfficerController hoc, HdbManagerController hmc) throws IOException {
+        this.serverSocket = new ServerSocket(port, ACCEPT_BACKLOG, InetAddress.getLoopbackAddress());
+        this.userController = uc;
+        this.applicantController = ac;
+        this.officerController = hoc;
+        this.managerController = hmc;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public int getTotalSessions() {
+        return totalSessions.get();
+    }
+
+    /**
+     * Accepts connections until {@link #close()} is called.
+     */
+    public void serve() {
+        SessionConsole.install();
+        System.out.println("Session server listening on " + serverSocket.getLocalSocketAddress());
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true); // Menus are many small writes; don't let Nagle hold back the prompt
+                openSockets.add(socket);
+                sessions.submit(() -> runSession(socket));
+            } catch (SocketException e) {
+                break; // Server socket closed
+            } catch (IOException e) {
+                System.err.println("Failed to accept session: " + e.getMessage());
+            }
+        }
+    }
+
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        totalSessions.incrementAndGet();
+        try (socket;
+             Scanner in = new Scanner(socket.getInputStream(), StandardCharsets.UTF_8);
+             // Unbuffered: PrintStream already encodes each print in one write, and prompts must not wait for a newline
+             PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            SessionConsole.bind(out);
+            new CLIView(in, userController, applicantController, officerController, managerController).run();
+        } catch (SessionClosedException e) {
+            // Client disconnected mid-session
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Session " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+        } finally {
+            SessionConsole.unbind();
+            openSockets.remove(socket);
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting connections and disconnects every open session.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing session server: " + e.getMessage());
+        }
+        for (Socket socket : openSockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed by the client
+            }
+        }
+        sessions.close(); // Waits for the sessions to unwind
+    }
+}
@@ -0,0 +1,126 @@
+package app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times cold start: {@link Bootstrap#load()} from the CSVs through the memory-mapped reader, then from the binary
+ * snapshots {@link Bootstrap#checkpoint()} writes. For reference it also times what the loaders used to do before
+ * converting any field, reading every CSV line by line and splitting each line into Strings. Both loads must
+ * produce the same number of rows per repository.
+ * <p>
+ * Usage: {@code java app.StartupBenchmark [applications] [runs]}, run in an empty working directory
+ * (see {@link SyntheticData}). Each measurement keeps the fastest of {@code runs}. Exits with status 1 if the two
+ * loads disagree.
+ */
+public class StartupBenchmark {
+    private static final int APPLICATIONS_PER_APPLICANT = 4;
+    private static final int PROJECTS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int applications = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        new SyntheticData().applicants(applications / APPLICATIONS_PER_APPLICANT).applications(applications)
+                .projects(PROJECTS).prepare(true);
+        deleteSnapshots(); // Left by an earlier run; the CSV load must not use them
+
+        double split = Double.MAX_VALUE;
+        long fields = 0;
+        for (int run = 0; run < runs; run++) {
+            long began = System.nanoTime();
+            fields = splitAll();
+            split = Math.min(split, (System.nanoTime() - began) / 1e6);
+        }
+        System.out.printf("readLine + split of every CSV: %,d fields in %.1f ms%n%n", fields, split);
+
+        Load fromCsv = fastest(runs);
+        System.out.println("From CSV:");
+        fromCsv.print();
+
+        Bootstrap bootstrap = new Bootstrap().load();
+        bootstrap.getWriteBehind().flush();
+        bootstrap.checkpoint();
+        bootstrap = null; // Not retained while the snapshot loads are timed
+        Load fromSnapshots = fastest(runs);
+        System.out.println();
+        System.out.println("From snapshots:");
+        fromSnapshots.print();
+
+        boolean same = fromCsv.rows().equals(fromSnapshots.rows());
+        System.out.println();
+        System.out.printf("Cold start: %.1f ms from CSV, %.1f ms from snapshots; %s%n", fromCsv.wallMillis,
+                fromSnapshots.wallMillis, same ? "same rows" : "ROWS DIFFER: " + fromCsv.rows() + " vs " + fromSnapshots.rows());
+        if (!same) System.exit(1);
+    }
+
+    // ========== Measurement ==========
+    private static final class Load {
+        private final List<Bootstrap.LoadStat> stats;
+        private final double wallMillis;
+
+        private Load(Bootstrap bootstrap) {
+            this.stats = bootstrap.getStats();
+            this.wallMillis = bootstrap.getWallMillis();
+        }
+
+        private Map<String, Integer> rows() {
+            Map<String, Integer> rows = new HashMap<>();
+            for (Bootstrap.LoadStat stat : stats) {
+                rows.put(stat.getName(), stat.getRows());
+            }
+            return rows;
+        }
+
+        private void print() {
+            for (Bootstrap.LoadStat stat : stats) {
+                System.out.printf("  %-16s %,10d rows in %8.1f ms%n", stat.getName(), stat.getRows(), stat.getMillis());
+            }
+            System.out.printf("  Repositories ready in %.1f ms%n", wallMillis);
+        }
+    }
+
+    /**
+     * Loads the repositories {@code runs} times and keeps the fastest timing. Only timings are kept between runs,
+     * and garbage is collected before each, so no load pays for collecting an earlier one.
+     */
+    private static Load fastest(int runs) {
+        Load best = null;
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            Load load = new Load(new Bootstrap().load());
+            if (best == null || load.wallMillis < best.wallMillis) best = load;
+        }
+        return best;
+    }
+
+    private static long splitAll() throws IOException {
+        long fields = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(SyntheticData.DATA_DIR, "*.csv")) {
+            for (Path file : files) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        fields += line.split("\\|").length;
+                    }
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static void deleteSnapshots() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(SyntheticData.DATA_DIR, "*.snap")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package app;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+/**
+ * Synthetic repository CSVs for the benchmarks and stress tests in this package.
+ * <p>
+ * The repositories read and write {@code data/} under the working directory, so a harness runs in a scratch
+ * directory. {@link #prepare} generates the dataset into a {@code data/} that does not exist yet and marks it as
+ * synthetic. It only ever replaces a directory it marked itself, and refuses to run anywhere else, so real data is
+ * never overwritten.
+ * <p>
+ * Every user's password is {@value #PASSWORD}, stored in plain text so it is hashed on first login. Applicant
+ * {@code i} is {@link #applicantId}, project {@code i} is {@link #projectId}. Application {@code i} belongs to
+ * applicant {@code i % applicants}, its project is spread by a multiplicative hash, and its status and flat type
+ * cycle through {@link #statuses} and {@link #flatTypes}. The single manager runs every project and every
+ * officer is assigned to every project.
+ */
+final class SyntheticData {
+    static final Path DATA_DIR = Paths.get("data");
+    static final String PASSWORD = "password";
+    static final String MANAGER_ID = "T8765432F";
+
+    private static final Path MARKER = DATA_DIR.resolve(".synthetic");
+    private static final String[] MARITAL_STATUSES = {"SINGLE", "MARRIED"};
+
+    private int applicants = 1000;
+    private int applications;
+    private int projects = 1;
+    private int officers;
+    private int unitsPerFlatType = 3;
+    private String[] statuses = {"PENDING", "SUCCESS", "REJECT", "BOOKED"};
+    private String[] flatTypes = {"THREEROOM", "TWOROOM", "TWOROOM"};
+
+    // ========== Shape ==========
+    SyntheticData applicants(int count) {
+        this.applicants = Math.max(1, count);
+        return this;
+    }
+
+    SyntheticData applications(int count) {
+        this.applications = count;
+        return this;
+    }
+
+    SyntheticData projects(int count) {
+        this.projects = Math.max(1, count);
+        return this;
+    }
+
+    SyntheticData officers(int count) {
+        this.officers = count;
+        return this;
+    }
+
+    SyntheticData unitsPerFlatType(int units) {
+        this.unitsPerFlatType = units;
+        return this;
+    }
+
+    SyntheticData statuses(String... statuses) {
+        this.statuses = statuses;
+        return this;
+    }
+
+    SyntheticData flatTypes(String... flatTypes) {
+        this.flatTypes = flatTypes;
+        return this;
+    }
+
+    static String applicantId(int i) {
+        return String.format("T%07dA", i);
+    }
+
+    static String officerId(int i) {
+        return String.format("S%07dO", i);
+    }
+
+    static String projectId(int i) {
+        return String.format("P%06d", i);
+    }
+
+    // ========== Generation ==========
+
+    /**
+     * Makes {@code data/} hold this dataset.
+     *
+     * @param reuse Whether a synthetic {@code data/} generated earlier with the same shape may be kept as it is.
+     *              Pass false when the harness changes data, or needs data no earlier run has changed.
+     * @return true if the files were generated, false if an earlier dataset was reused.
+     * @throws IllegalStateException if {@code data/} exists and was not generated here.
+     */
+    boolean prepare(boolean reuse) throws IOException {
+        if (Files.exists(DATA_DIR)) {
+            if (!Files.exists(MARKER)) {
+                throw new IllegalStateException(DATA_DIR.toAbsolutePath()
+                        + " exists and was not generated by a harness; run in an empty working directory");
+            }
+            if (reuse && describe().equals(Files.readString(MARKER, StandardCharsets.UTF_8))) {
+                return false;
+            }
+            clear();
+        }
+        Files.createDirectories(DATA_DIR);
+        generate();
+        Files.writeString(MARKER, describe(), StandardCharsets.UTF_8); // Last, so a partial dataset is never reused
+        return true;
+    }
+
+    private String describe() {
+        return String.format("applicants=%d applications=%d projects=%d officers=%d units=%d statuses=%s flatTypes=%s",
+                applicants, applications, projects, officers, unitsPerFlatType,
+                String.join(",", statuses), String.join(",", flatTypes));
+    }
+
+    private static void clear() throws IOException {
+        Files.delete(MARKER); // First, so an interrupted clear is regenerated rather than reused
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DATA_DIR)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private void generate() throws IOException {
+        try (BufferedWriter out = writer("ManagerList.csv", "ID|Name|DOB|MaritalStatus|Role|Password")) {
+            line(out, MANAGER_ID + "|Michael|15 07 1989|SINGLE|HDBMANAGER|" + PASSWORD);
+        }
+
+        StringBuilder officerIds = new StringBuilder();
+        try (BufferedWriter out = writer("OfficerList.csv", "ID|Name|DOB|MaritalStatus|Role|Password|Status")) {
+            for (int i = 0; i < officers; i++) {
+                line(out, officerId(i) + "|Officer " + i + "|10 02 1997|SINGLE|HDBOFFICER|" + PASSWORD + "|AVAILABLE");
+                officerIds.append(i == 0 ? "" : ",").append(officerId(i));
+            }
+        }
+
+        String flats = String.format("TWOROOM,%d,%d,200000.0;THREEROOM,%d,%d,320000.0",
+                unitsPerFlatType, unitsPerFlatType, unitsPerFlatType, unitsPerFlatType);
+        try (BufferedWriter out = writer("ProjectList.csv",
+                "ProjectId|ProjectName|Visible|Neighbourhood|OpenDate|CloseDate|ManagerId|OfficerSlots|OfficerIds|Flat Details (Type, Total, Remaining, Price)")) {
+            for (int i = 0; i < projects; i++) {
+                line(out, String.format("%s|Project %d|true|Town %d|01 01 2025|31 12 2099|%s|%d|%s|%s",
+                        projectId(i), i, i % 25, MANAGER_ID, Math.max(officers, 1),
+                        officers == 0 ? "NULL" : officerIds, flats));
+            }
+        }
+
+        try (BufferedWriter out = writer("ApplicantList.csv", "ID|Name|DOB|MaritalStatus|Role|Password")) {
+            for (int i = 0; i < applicants; i++) {
+                line(out, String.format("%s|Applicant %d|%02d %02d %d|%s|APPLICANT|%s", applicantId(i), i,
+                        1 + i % 28, 1 + i % 12, 1950 + i % 55, MARITAL_STATUSES[i % 2], PASSWORD));
+            }
+        }
+
+        try (BufferedWriter out = writer("ApplicationList.csv", "ID|Status|ApplicantID|ProjectID|FlatType")) {
+            for (int i = 0; i < applications; i++) {
+                line(out, UUID.randomUUID() + "|" + statuses[i % statuses.length] + "|" + applicantId(i % applicants)
+                        + "|" + projectId((int) ((i * 2654435761L) % projects)) + "|" + flatTypes[i % flatTypes.length]);
+            }
+        }
+
+        writer("EnquiryList.csv", "ID|ApplicantID|ProjectID|Message|Reply").close();
+    }
+
+    private static BufferedWriter writer(String file, String header) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(DATA_DIR.resolve(file), StandardCharsets.UTF_8);
+        line(out, header);
+        return out;
+    }
+
+    private static void line(BufferedWriter out, String line) throws IOException {
+        out.write(line);
+        out.newLine();
+    }
+}
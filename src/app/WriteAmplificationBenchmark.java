@@ -0,0 +1,226 @@
+package app;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.Project;
+import pub_enums.ApplStatus;
+import repository.ApplicantRepo;
+import service.ApplicantService;
+import util.DateFormats;
+import util.DurableFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the bytes written to disk per new enquiry and per new application, for two layouts of
+ * ApplicantList.csv:
+ * <ul>
+ *     <li>profile-only: the current six-column file, which neither operation touches. Only the EnquiryRepo and
+ *     ApplicationRepo files are written.</li>
+ *     <li>inline: the legacy eight-column file, which embedded each applicant's application and enquiries, so
+ *     every new enquiry or application also rewrote the whole applicant file.</li>
+ * </ul>
+ * Each operation runs through {@link ApplicantService}, and the files it changes in {@code data/} are counted:
+ * a replaced file counts in full, an appended one by its growth. Then the applicant file is rewritten in the
+ * inline layout from the same in-memory applicants, as the legacy repository did. The inline figures are the
+ * operation's own writes plus that rewrite. Both layouts share everything else, so the difference is the cost
+ * of the layout alone.
+ * <p>
+ * Writes are synchronous rather than through write-behind, so each operation's writes are its own. Keep
+ * {@code operations} under the application log's compaction threshold, or a background checkpoint is counted
+ * against whichever operation it overlaps.
+ * <p>
+ * Usage: {@code java app.WriteAmplificationBenchmark [applicants] [operations]}, run in an empty working
+ * directory (see {@link SyntheticData}). Half the applicants start with an application. Exits with status 1 if
+ * any operation fails.
+ */
+public class WriteAmplificationBenchmark {
+    private static final String INLINE_FILE = "ApplicantList.inline.csv";
+    private static final String INLINE_HEADER = "ID|Name|DOB|MaritalStatus|Role|Password|Application|Enquiries";
+
+    public static void main(String[] args) throws Exception {
+        int applicantCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        new SyntheticData().applicants(applicantCount).applications(applicantCount / 2).prepare(false);
+        Bootstrap bootstrap = new Bootstrap().load();
+        bootstrap.getApplicantRepo().setWriteBehind(null);
+        bootstrap.getManagerRepo().setWriteBehind(null);
+        bootstrap.getOfficerRepo().setWriteBehind(null);
+        bootstrap.getProjectRepo().setWriteBehind(null);
+        bootstrap.getEnquiryRepo().setWriteBehind(null);
+        ApplicantRepo applicantRepo = bootstrap.getApplicantRepo();
+        ApplicantService applicantService = new ApplicantService(applicantRepo, bootstrap.getProjectRepo(),
+                bootstrap.getApplicationRepo(), bootstrap.getEnquiryRepo());
+        Project project = bootstrap.getProjectRepo().findById(SyntheticData.projectId(0)).orElseThrow();
+
+        // Applicants who may apply: eligible, and without a live application
+        List<Applicant> applying = new ArrayList<>();
+        for (int i = 0; i < applicantCount && applying.size() < operations; i++) {
+            Applicant applicant = applicantRepo.findById(SyntheticData.applicantId(i)).orElseThrow();
+            Application existing = bootstrap.getApplicationRepo().findActiveByApplicantId(applicant.getId());
+            boolean live = existing != null && existing.getStatus() != ApplStatus.REJECT
+                    && existing.getStatus() != ApplStatus.WITHDRAW_APPROVED;
+            if (!live && applicantService.checkEligibility(applicant, project)) {
+                applying.add(applicant);
+            }
+        }
+
+        Path inline = SyntheticData.DATA_DIR.resolve(INLINE_FILE);
+        DurableFile.replaceText(inline, out -> writeInline(out, applicantRepo.findAll()));
+        System.out.printf("%,d applicants, ApplicantList.csv %,.1f KB profile-only, %,.1f KB inline%n", applicantCount,
+                Files.size(SyntheticData.DATA_DIR.resolve("ApplicantList.csv")) / 1024.0, Files.size(inline) / 1024.0);
+
+        Totals enquiries = new Totals("new enquiry");
+        for (int i = 0; i < operations; i++) {
+            Applicant applicant = applicantRepo.findById(SyntheticData.applicantId(i % applicantCount)).orElseThrow();
+            String message = "Enquiry " + i + " about " + project.getProjectId();
+            enquiries.measure(() -> applicantService.submitEnquiry(applicant, project, message) != null, applicantRepo);
+        }
+        Totals applications = new Totals("new application");
+        for (Applicant applicant : applying) {
+            applications.measure(() -> applicantService.applyForProject(applicant, project), applicantRepo);
+        }
+
+        System.out.printf("  %-16s %-13s %14s %10s%n", "", "layout", "written/op", "ms/op");
+        enquiries.print();
+        applications.print();
+        boolean passed = enquiries.failed == 0 && applications.failed == 0 && applications.count == operations;
+        if (applications.count < operations) {
+            System.out.println("  Only " + applications.count + " applicants could apply; use more applicants");
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) System.exit(1);
+    }
+
+    // ========== Measurement ==========
+    private static final class Totals {
+        private final String name;
+        private int count;
+        private int failed;
+        private long profileBytes;
+        private long profileNanos;
+        private long inlineBytes;
+        private long inlineNanos;
+
+        private Totals(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Runs one operation, counts what it wrote, then rewrites the inline applicant file as the legacy
+         * repository would have.
+         */
+        private void measure(BooleanSupplier operation, ApplicantRepo applicantRepo) throws IOException {
+            Map<Path, FileState> before = sample();
+            long began = System.nanoTime();
+            boolean succeeded = operation.getAsBoolean();
+            long operationNanos = System.nanoTime() - began;
+            long written = written(before, sample());
+
+            Path inline = SyntheticData.DATA_DIR.resolve(INLINE_FILE);
+            began = System.nanoTime();
+            DurableFile.replaceText(inline, out -> writeInline(out, applicantRepo.findAll()));
+            long rewriteNanos = System.nanoTime() - began;
+
+            count++;
+            if (!succeeded) failed++;
+            profileBytes += written;
+            profileNanos += operationNanos;
+            inlineBytes += written + Files.size(inline);
+            inlineNanos += operationNanos + rewriteNanos;
+        }
+
+        private void print() {
+            int n = Math.max(1, count);
+            System.out.printf("  %-16s %-13s %,11.1f KB %10.2f%n", name, "inline", inlineBytes / 1024.0 / n,
+                    inlineNanos / 1e6 / n);
+            System.out.printf("  %-16s %-13s %,11.1f KB %10.2f   %.0fx fewer bytes%s%n", "", "profile-only",
+                    profileBytes / 1024.0 / n, profileNanos / 1e6 / n, (double) inlineBytes / Math.max(1, profileBytes),
+                    failed == 0 ? "" : "   " + failed + " FAILED");
+        }
+    }
+
+    private static final class FileState {
+        private final Object key;
+        private final long size;
+
+        private FileState(Object key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Identity and size of every repository file; a file replaced by rename gets a new identity.
+     */
+    private static Map<Path, FileState> sample() throws IOException {
+        Map<Path, FileState> files = new HashMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(SyntheticData.DATA_DIR)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                if (name.equals(INLINE_FILE) || name.endsWith(".tmp") || name.startsWith(".")) continue;
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) continue;
+                Object key = attributes.fileKey() != null ? attributes.fileKey() : attributes.lastModifiedTime();
+                files.put(file, new FileState(key, attributes.size()));
+            }
+        }
+        return files;
+    }
+
+    private static long written(Map<Path, FileState> before, Map<Path, FileState> after) {
+        long bytes = 0;
+        for (Map.Entry<Path, FileState> entry : after.entrySet()) {
+            FileState now = entry.getValue();
+            FileState then = before.get(entry.getKey());
+            if (then == null || !then.key.equals(now.key)) {
+                bytes += now.size; // New or replaced
+            } else if (now.size > then.size) {
+                bytes += now.size - then.size; // Appended
+            }
+        }
+        return bytes;
+    }
+
+    // ========== Legacy Layout ==========
+
+    /**
+     * Writes applicants as the eight-column ApplicantList.csv did: the application as its comma-joined fields,
+     * and the enquiries as comma-joined fields separated by ';'.
+     */
+    private static void writeInline(BufferedWriter out, List<Applicant> applicants) throws IOException {
+        out.write(INLINE_HEADER);
+        out.newLine();
+        for (Applicant applicant : applicants) {
+            Application application = applicant.getApplication();
+            String applicationText = application == null ? "NULL" : String.join(",", application.getId(),
+                    application.getStatus().name(), application.getApplicantId(), application.getProjectId(),
+                    application.getFlatType());
+            String enquiriesText = applicant.getEnquiries() == null ? "" : applicant.getEnquiries().stream()
+                    .map(WriteAmplificationBenchmark::inlineEnquiry)
+                    .collect(Collectors.joining(";"));
+            out.write(String.join("|", applicant.getId(), applicant.getName(),
+                    DateFormats.formatCsvDate(applicant.getDob()), applicant.getMaritalStatus().name(),
+                    applicant.getRole().name(), applicant.getPassword(), applicationText, enquiriesText));
+            out.newLine();
+        }
+    }
+
+    private static String inlineEnquiry(Enquiry enquiry) {
+        return String.join(",", enquiry.getEnquiryId(), enquiry.getApplicantId(), enquiry.getProjectId(),
+                enquiry.getMessage(), String.valueOf(enquiry.getReply()));
+    }
+}
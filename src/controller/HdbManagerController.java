@@ -5,9 +5,12 @@ import pub_enums.*;
 import service.HdbManagerService;
 import service.UserService;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Date;
+import java.util.stream.Stream;
 
 /**
  * Controller for HDB Manager-specific operations
@@ -266,31 +269,67 @@ public class HdbManagerController extends UserController {
     }
 
     /**
-     * Generate a booking report
+     * Stream a booking report
      * 
      * @param filters Map of filter criteria for the report
      * @param manager The manager generating the report
-     * @return List of report data
+     * @return Lazy stream of report rows; the caller should close it
      */
-    public List<Object> generateBookingReport(Map<String, String> filters, HdbManager manager) {
+    public Stream<BookingReportRow> streamBookingReport(Map<String, String> filters, HdbManager manager) {
         if (filters == null || manager == null) {
             System.out.println("Error: Filter criteria or manager information missing.");
-            return List.of();
+            return Stream.empty();
         }
         
         try {
-            List<Object> reportData = managerService.generateBookingReport(filters);
-            
-            if (reportData.isEmpty()) {
-                System.out.println("No data found for the report.");
-            } else {
-                System.out.println("Report generated successfully with " + reportData.size() + " entries.");
-            }
-            
-            return reportData;
+            return managerService.streamBookingReport(filters);
         } catch (Exception e) {
             System.out.println("Error generating report: " + e.getMessage());
-            return List.of();
+            return Stream.empty();
+        }
+    }
+    
+    /**
+     * Export a booking report to a file
+     * 
+     * @param filters Map of filter criteria for the report
+     * @param manager The manager exporting the report
+     * @param target The file to write
+     * @param format The file format
+     * @return The number of rows exported, or -1 on error
+     */
+    public long exportBookingReport(Map<String, String> filters, HdbManager manager, Path target, ReportFormat format) {
+        if (filters == null || manager == null || target == null || format == null) {
+            System.out.println("Error: Filter criteria, manager, file or format missing.");
+            return -1;
+        }
+        
+        try {
+            return managerService.exportBookingReport(filters, target, format);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error exporting report: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * View application counts by flat type and status for a project
+     * 
+     * @param projectId The ID of the project to summarise
+     * @param manager The manager viewing the summary
+     * @return Counts per flat type and status, or an empty map on error
+     */
+    public Map<FlatType, Map<ApplStatus, Integer>> viewApplicationSummary(String projectId, HdbManager manager) {
+        if (projectId == null || manager == null) {
+            System.out.println("Error: Project ID or manager information missing.");
+            return Map.of();
+        }
+        
+        try {
+            return managerService.getApplicationSummary(projectId);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return Map.of();
         }
     }
     
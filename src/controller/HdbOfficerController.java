@@ -4,6 +4,7 @@ import entity.*;
 import pub_enums.*;
 import service.HdbOfficerService;
 import service.UserService;
+import util.Page;
 
 import java.util.List;
 import java.util.Map;
@@ -83,6 +84,24 @@ public class HdbOfficerController extends UserController {
         return enquiries;
     }
 
+    /**
+     * View one page of the enquiries for projects assigned to the officer
+     * 
+     * @param officer The officer viewing enquiries
+     * @param cursor Null for the first page, otherwise the previous page's next cursor
+     * @param pageSize The maximum number of enquiries per page
+     * @param unansweredOnly Whether to list only enquiries awaiting a reply
+     * @return The page of enquiries
+     */
+    public Page<Enquiry> viewEnquiryPage(HdbOfficer officer, String cursor, int pageSize, boolean unansweredOnly) {
+        if (officer == null) {
+            System.out.println("Error: Officer information missing.");
+            return new Page<>(List.of(), null);
+        }
+        
+        return officerService.viewEnquiryPage(officer, cursor, pageSize, unansweredOnly);
+    }
+
     /**
      * View a specific enquiry
      * 
@@ -193,6 +212,30 @@ public class HdbOfficerController extends UserController {
         return result;
     }
 
+    /**
+     * Book a flat for a successful application
+     * 
+     * @param applicationId The ID of the successful application
+     * @param officer The officer handling the booking
+     * @return The booking receipt, or null if the booking failed
+     */
+    public Receipt bookFlat(String applicationId, HdbOfficer officer) {
+        if (applicationId == null || officer == null) {
+            System.out.println("Error: Application ID or officer information missing.");
+            return null;
+        }
+        
+        Receipt receipt = officerService.bookFlat(applicationId, officer);
+        
+        if (receipt != null) {
+            System.out.println("Flat booked successfully. Receipt ID: " + receipt.getReceiptId());
+        } else {
+            System.out.println("Failed to book flat. The application may not be successful or the flat type is sold out.");
+        }
+        
+        return receipt;
+    }
+
     /**
      * Register for a project
      * 
@@ -1,9 +1,7 @@
 package controller;
 
 import entity.User;
-import repository.ApplicantRepo;
-import repository.HdbManagerRepo;
-import repository.HdbOfficerRepo;
+import pub_enums.Role;
 import service.UserService;
 
 import java.util.Map;
@@ -27,33 +25,21 @@ public class UserController {
      */
     public User login(String userId, String password) {
         try {
-            // Try applicant first
-            ApplicantRepo applicantRepo = new ApplicantRepo();
-            User user = applicantRepo.authenticate(userId, password);
-            if (user != null) {
-                System.out.println("Login successful. Welcome Applicant " + user.getName() + "!");
-                return user;
+            // Authenticate against the shared, already-loaded repositories
+            User user = userService.login(userId, password);
+            if (user == null) {
+                System.out.println("Login failed. NRIC and password do not match any records.");
+                return null;
             }
 
-            // Try officer next
-            HdbOfficerRepo officerRepo = new HdbOfficerRepo();
-            user = officerRepo.authenticate(userId, password);
-            if (user != null) {
+            if (user.getRole() == Role.HDBOFFICER) {
                 System.out.println("Login successful. Welcome Officer " + user.getName() + "!");
-                return user;
-            }
-
-            // Try manager last
-            HdbManagerRepo managerRepo = new HdbManagerRepo();
-            user = managerRepo.authenticate(userId, password);
-            if (user != null) {
+            } else if (user.getRole() == Role.HDBMANAGER) {
                 System.out.println("Login successful. Welcome Manager " + user.getName() + "!");
-                return user;
+            } else {
+                System.out.println("Login successful. Welcome Applicant " + user.getName() + "!");
             }
-
-            // If no match
-            System.out.println("Login failed. NRIC and password do not match any records.");
-            return null;
+            return user;
 
         } catch (Exception e) {
             System.err.println("Unexpected error during login: " + e.getMessage());
@@ -76,7 +62,7 @@ public class UserController {
         }
         
         // Verify old password
-        if (!user.getPassword().equals(oldPassword)) {
+        if (!userService.verifyPassword(user, oldPassword)) {
             System.out.println("Error: Current password is incorrect.");
             return false;
         }
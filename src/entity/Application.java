@@ -4,7 +4,7 @@ import pub_enums.ApplStatus;
 
 public class Application {
     private String id;
-    private ApplStatus status;
+    private volatile ApplStatus status;
     private String applicantId;
     private String projectId;
     private String flatType;
@@ -0,0 +1,62 @@
+package entity;
+
+import pub_enums.ApplStatus;
+
+/**
+ * One row of the booking report: an application joined with its project's name and neighbourhood.
+ * Immutable, so rows can be handed to any consumer while the report is still being produced.
+ */
+public final class BookingReportRow {
+    private final String applicationId;
+    private final String applicantId;
+    private final String projectId;
+    private final String projectName;
+    private final String neighbourhood;
+    private final ApplStatus status;
+    private final String flatType;
+
+    public BookingReportRow(String applicationId, String applicantId, String projectId, String projectName,
+                            String neighbourhood, ApplStatus status, String flatType) {
+        this.applicationId = applicationId;
+        this.applicantId = applicantId;
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.neighbourhood = neighbourhood;
+        this.status = status;
+        this.flatType = flatType;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public String getApplicantId() {
+        return applicantId;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * @return The project's name, or null if the project no longer exists.
+     */
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /**
+     * @return The project's neighbourhood, or null if the project no longer exists.
+     */
+    public String getNeighbourhood() {
+        return neighbourhood;
+    }
+
+    public ApplStatus getStatus() {
+        return status;
+    }
+
+    public String getFlatType() {
+        return flatType;
+    }
+}
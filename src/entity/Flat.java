@@ -2,16 +2,21 @@ package entity;
 
 import pub_enums.FlatType;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Flat {
     private FlatType flatType;
     private int total;
-    private int remaining;
+    // Units neither booked nor held; only ever changed by CAS so concurrent bookings cannot oversell
+    private final AtomicInteger remaining;
+    // Units taken out of remaining by reserveUnit() but not yet confirmed or released
+    private final AtomicInteger reserved = new AtomicInteger();
     private double price;
 
     public Flat(FlatType flatType, int total, int remaining, double price) {
         this.flatType = flatType;
         this.total = total;
-        this.remaining = remaining;
+        this.remaining = new AtomicInteger(remaining);
         this.price = price;
     }
 
@@ -41,10 +46,55 @@ public class Flat {
     }
 
     public int getRemaining() {
-        return remaining;
+        return remaining.get();
     }
 
     public void setRemaining(int remaining) {
-        this.remaining = remaining;
+        this.remaining.set(remaining);
+    }
+
+    public int getReserved() {
+        return reserved.get();
+    }
+
+    /**
+     * @return Units not yet booked, counting in-flight reservations as still available.
+     * This is what gets persisted, so holds lost in a crash return to the pool.
+     */
+    public int getUnbooked() {
+        return remaining.get() + reserved.get();
+    }
+
+    /**
+     * Atomically takes one unit out of the available pool.
+     *
+     * @return true if a unit was held, false if none remain.
+     */
+    public boolean reserveUnit() {
+        while (true) {
+            int current = remaining.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - 1)) {
+                reserved.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Turns a held unit into a booking. Call once per successful {@link #reserveUnit()}.
+     */
+    public void confirmReservation() {
+        reserved.decrementAndGet();
+    }
+
+    /**
+     * Returns a held unit to the available pool. Call once per successful {@link #reserveUnit()}.
+     */
+    public void releaseReservation() {
+        reserved.decrementAndGet();
+        remaining.incrementAndGet();
     }
 }
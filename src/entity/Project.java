@@ -1,7 +1,12 @@
 package entity;
 
+import pub_enums.FlatType;
+
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class Project {
     private String projName;
@@ -134,7 +139,78 @@ public class Project {
     }
 
     public void removeOfficer(HdbOfficer officer) {
-        this.officers.remove(officer);
+        getOfficers().remove(officer);
+    }
+
+    /**
+     * @return The manager's ID, or null if none. Lazily loaded projects answer without resolving the manager.
+     */
+    public String getManagerId() {
+        HdbManager manager = getManager();
+        return manager != null ? manager.getId() : null;
+    }
+
+    /**
+     * @return The assigned officers' IDs. Lazily loaded projects answer without resolving the officers.
+     */
+    public List<String> getOfficerIds() {
+        List<String> ids = new ArrayList<>();
+        List<HdbOfficer> officers = getOfficers();
+        if (officers != null) {
+            for (HdbOfficer officer : officers) {
+                ids.add(officer.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return The flat types offered. Lazily loaded projects answer without building their flats.
+     */
+    public Set<FlatType> getFlatTypes() {
+        Set<FlatType> types = EnumSet.noneOf(FlatType.class);
+        List<Flat> flats = getFlats();
+        if (flats != null) {
+            for (Flat flat : flats) {
+                if (flat.getFlatType() != null) types.add(flat.getFlatType());
+            }
+        }
+        return types;
+    }
+
+    /**
+     * @param flatType The flat type.
+     * @return This project's allocation for the flat type, or null if not offered.
+     */
+    public Flat getFlat(FlatType flatType) {
+        List<Flat> flats = getFlats();
+        if (flats == null) return null;
+        for (Flat flat : flats) {
+            if (flat.getFlatType() == flatType) {
+                return flat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Atomically holds one unit of the given flat type.
+     *
+     * @return true if a unit was held; false if the type is not offered or sold out.
+     */
+    public boolean reserveUnit(FlatType flatType) {
+        Flat flat = getFlat(flatType);
+        return flat != null && flat.reserveUnit();
+    }
+
+    public void confirmUnit(FlatType flatType) {
+        Flat flat = getFlat(flatType);
+        if (flat != null) flat.confirmReservation();
+    }
+
+    public void releaseUnit(FlatType flatType) {
+        Flat flat = getFlat(flatType);
+        if (flat != null) flat.releaseReservation();
     }
 
     public Boolean getVisible() {
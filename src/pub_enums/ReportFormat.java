@@ -0,0 +1,9 @@
+package pub_enums;
+
+/**
+ * File formats a booking report can be exported to.
+ */
+public enum ReportFormat {
+    CSV,
+    COLUMNAR
+}
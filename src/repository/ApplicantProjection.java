@@ -0,0 +1,374 @@
+package repository;
+
+import entity.Applicant;
+import pub_enums.MaritalStatus;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar projection of the applicant fields that reports filter on, kept current by {@link ApplicantRepo}.
+ * Each applicant gets a slot; date of birth (as an epoch day) and marital status live in parallel arrays,
+ * so a report join probes two array elements by NRIC instead of resolving {@link Applicant} objects.
+ * <p>
+ * Age filters are turned into a date-of-birth window once per report ({@link Criteria#of}), so no row
+ * computes an age. A date-of-birth ordered index (one slot array per birth date, so the sorted part is only
+ * as large as the number of distinct dates) and per-birth-year counts let a report start from the matching
+ * applicants instead of every application when the demographic filters are the selective ones.
+ * <p>
+ * Built from the repository on first query, then kept current by its writes. Probes and streams take no
+ * lock and are weakly consistent.
+ */
+public class ApplicantProjection {
+    private static final int NO_DOB = Integer.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Demographic filters resolved against a reference date.
+     */
+    public static final class Criteria {
+        private static final Criteria ANY = new Criteria(null, NO_DOB, Integer.MAX_VALUE, false);
+
+        private final MaritalStatus maritalStatus;
+        private final int fromDobDay; // Inclusive
+        private final int toDobDay;   // Inclusive
+        private final boolean ageBounded;
+
+        private Criteria(MaritalStatus maritalStatus, int fromDobDay, int toDobDay, boolean ageBounded) {
+            this.maritalStatus = maritalStatus;
+            this.fromDobDay = fromDobDay;
+            this.toDobDay = toDobDay;
+            this.ageBounded = ageBounded;
+        }
+
+        /**
+         * @param maritalStatus Required marital status, or null for any.
+         * @param minAge        Minimum age in whole years (inclusive), or null for no minimum.
+         * @param maxAge        Maximum age in whole years (inclusive), or null for no maximum.
+         * @param today         The date ages are computed at.
+         */
+        public static Criteria of(MaritalStatus maritalStatus, Integer minAge, Integer maxAge, LocalDate today) {
+            if (minAge == null && maxAge == null) {
+                return maritalStatus == null ? ANY : new Criteria(maritalStatus, NO_DOB, Integer.MAX_VALUE, false);
+            }
+            // Aged at least n <=> born on or before today minus n years; at most n <=> born after today minus n+1 years
+            int from = maxAge == null ? NO_DOB + 1 : clampDay(today.minusYears(maxAge + 1L).plusDays(1).toEpochDay());
+            int to = minAge == null ? Integer.MAX_VALUE : clampDay(today.minusYears(minAge).toEpochDay());
+            return new Criteria(maritalStatus, from, to, true);
+        }
+
+        /**
+         * @return true if these criteria accept every applicant, so probing is unnecessary.
+         */
+        public boolean isUnconstrained() {
+            return maritalStatus == null && !ageBounded;
+        }
+
+        /**
+         * @return true if an age filter applies. Without one, {@link #streamMatchingIds} reads every applicant.
+         */
+        public boolean isAgeBounded() {
+            return ageBounded;
+        }
+
+        private boolean accepts(int dobDay, byte status) {
+            if (maritalStatus != null && status != maritalStatus.ordinal()) return false;
+            return !ageBounded || (dobDay != NO_DOB && dobDay >= fromDobDay && dobDay <= toDobDay);
+        }
+
+        private static int clampDay(long epochDay) {
+            return (int) Math.max(NO_DOB + 1, Math.min(Integer.MAX_VALUE, epochDay));
+        }
+    }
+
+    /**
+     * The slots born on one day. Immutable to readers: appends write past {@code size} of a shared array and
+     * publish a longer bucket, removals publish a copy, so a bucket never changes once a reader has it.
+     */
+    private static final class DayBucket {
+        private static final DayBucket EMPTY = new DayBucket(new int[0], 0);
+
+        private final int[] slots;
+        private final int size;
+
+        private DayBucket(int[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        private DayBucket with(int slot) {
+            int[] target = size < slots.length ? slots : Arrays.copyOf(slots, Math.max(4, size * 2));
+            target[size] = slot;
+            return new DayBucket(target, size + 1);
+        }
+
+        private DayBucket without(int slot) {
+            int[] remaining = new int[Math.max(4, size)];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (slots[i] != slot) remaining[count++] = slots[i];
+            }
+            return count == 0 ? null : new DayBucket(remaining, count);
+        }
+
+        private IntStream stream() {
+            return Arrays.stream(slots, 0, size);
+        }
+    }
+
+    private static final class Columns {
+        private final String[] ids;
+        private final int[] dobDays;
+        private final byte[] statuses;
+
+        private Columns(int capacity) {
+            ids = new String[capacity];
+            dobDays = new int[capacity];
+            statuses = new byte[capacity];
+        }
+
+        private Columns grow(int capacity) {
+            Columns grown = new Columns(capacity);
+            System.arraycopy(ids, 0, grown.ids, 0, ids.length);
+            System.arraycopy(dobDays, 0, grown.dobDays, 0, dobDays.length);
+            System.arraycopy(statuses, 0, grown.statuses, 0, statuses.length);
+            return grown;
+        }
+    }
+
+    private final Supplier<Collection<Applicant>> source;
+    private volatile boolean built;
+    private volatile Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+    private int nextSlot; // Slots of removed applicants are not reused, so an in-flight probe never reads another applicant
+    private final ConcurrentSkipListMap<Integer, DayBucket> byDob = new ConcurrentSkipListMap<>();
+    // Applicants per birth year and marital status (last element: none), for estimating a filter's selectivity
+    private final TreeMap<Integer, int[]> birthYearCounts = new TreeMap<>();
+
+    /**
+     * @param source Every applicant, read once when the projection is first queried. Until then changes are
+     *               not tracked, so loading the repository does not pay for a projection no report has used.
+     */
+    public ApplicantProjection(Supplier<Collection<Applicant>> source) {
+        this.source = source;
+    }
+
+    // ========== Maintenance ==========
+    public synchronized void put(Applicant applicant) {
+        if (!built || applicant == null || applicant.getId() == null) return;
+        int dobDay = toEpochDay(applicant.getDob());
+        byte status = statusOf(applicant);
+
+        Integer existing = slots.get(applicant.getId());
+        if (existing == null) {
+            int slot = nextSlot++;
+            if (slot >= columns.ids.length) {
+                columns = columns.grow(columns.ids.length * 2);
+            }
+            Columns c = columns;
+            c.ids[slot] = applicant.getId();
+            c.dobDays[slot] = dobDay;
+            c.statuses[slot] = status;
+            addToDay(dobDay, slot);
+            count(dobDay, status, 1);
+            slots.put(applicant.getId(), slot); // Published last, so probes never see a half-written slot
+            return;
+        }
+
+        int slot = existing;
+        Columns c = columns;
+        int oldDobDay = c.dobDays[slot];
+        byte oldStatus = c.statuses[slot];
+        if (oldDobDay == dobDay && oldStatus == status) return;
+        c.dobDays[slot] = dobDay;
+        c.statuses[slot] = status;
+        count(dobDay, status, 1);
+        count(oldDobDay, oldStatus, -1);
+        if (oldDobDay != dobDay) {
+            addToDay(dobDay, slot); // Before leaving the old day, so streams do not miss the applicant
+            removeFromDay(oldDobDay, slot);
+        }
+    }
+
+    public synchronized void remove(String applicantId) {
+        if (!built || applicantId == null) return;
+        Integer slot = slots.remove(applicantId);
+        if (slot == null) return;
+        Columns c = columns;
+        removeFromDay(c.dobDays[slot], slot);
+        count(c.dobDays[slot], c.statuses[slot], -1);
+        c.ids[slot] = null;
+        c.statuses[slot] = NO_STATUS;
+    }
+
+    /**
+     * Drops everything; the projection is rebuilt from the source when next queried.
+     */
+    public synchronized void clear() {
+        built = false;
+        slots = new ConcurrentHashMap<>();
+        columns = new Columns(INITIAL_CAPACITY);
+        nextSlot = 0;
+        byDob.clear();
+        birthYearCounts.clear();
+    }
+
+    private void ensureBuilt() {
+        if (!built) build();
+    }
+
+    /**
+     * Projects every applicant in one pass. The date-of-birth index is built by sorting packed
+     * (dobDay, slot) keys, so each birth date's bucket is created once instead of grown per applicant.
+     */
+    private synchronized void build() {
+        if (built) return;
+        Collection<Applicant> applicants = source.get();
+        int expected = applicants.size();
+        Map<String, Integer> newSlots = new ConcurrentHashMap<>(Math.max(16, expected * 4 / 3 + 1));
+        Columns c = new Columns(Math.max(INITIAL_CAPACITY, expected));
+        long[] keys = new long[Math.max(16, expected)];
+        int count = 0;
+
+        for (Applicant applicant : applicants) {
+            if (applicant == null || applicant.getId() == null || newSlots.containsKey(applicant.getId())) continue;
+            if (count == c.ids.length) c = c.grow(count * 2);
+            if (count == keys.length) keys = Arrays.copyOf(keys, count * 2);
+            int dobDay = toEpochDay(applicant.getDob());
+            byte status = statusOf(applicant);
+            c.ids[count] = applicant.getId();
+            c.dobDays[count] = dobDay;
+            c.statuses[count] = status;
+            keys[count] = ((long) dobDay << 32) | count;
+            count(dobDay, status, 1);
+            newSlots.put(applicant.getId(), count);
+            count++;
+        }
+
+        Arrays.sort(keys, 0, count);
+        for (int start = 0; start < count; ) {
+            int dobDay = (int) (keys[start] >> 32);
+            int end = start;
+            while (end < count && (int) (keys[end] >> 32) == dobDay) end++;
+            int[] bucket = new int[end - start];
+            for (int i = 0; i < bucket.length; i++) bucket[i] = (int) keys[start + i];
+            byDob.put(dobDay, new DayBucket(bucket, bucket.length));
+            start = end;
+        }
+
+        columns = c;
+        nextSlot = count;
+        slots = newSlots;
+        built = true;
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * @return true if the applicant exists and satisfies the criteria.
+     */
+    public boolean matches(String applicantId, Criteria criteria) {
+        if (applicantId == null) return false;
+        ensureBuilt();
+        Integer slot = slots.get(applicantId);
+        if (slot == null) return false;
+        Columns c = columns;
+        return slot < c.ids.length && criteria.accepts(c.dobDays[slot], c.statuses[slot]);
+    }
+
+    /**
+     * Streams the NRICs of applicants satisfying the criteria, reading only the date-of-birth window they allow.
+     */
+    public Stream<String> streamMatchingIds(Criteria criteria) {
+        if (criteria.fromDobDay > criteria.toDobDay) return Stream.empty();
+        ensureBuilt();
+        Map<Integer, DayBucket> window = criteria.ageBounded
+                ? byDob.subMap(criteria.fromDobDay, true, criteria.toDobDay, true)
+                : byDob;
+        return window.values().stream()
+                .flatMapToInt(DayBucket::stream)
+                .mapToObj(slot -> {
+                    Columns c = columns; // Bounds-checked in case clear() swapped in smaller columns meanwhile
+                    return slot < c.ids.length && criteria.accepts(c.dobDays[slot], c.statuses[slot]) ? c.ids[slot] : null;
+                })
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * @return An estimate, from whole birth years, of how many applicants satisfy the criteria. Never an undercount.
+     */
+    public synchronized int estimateMatching(Criteria criteria) {
+        if (criteria.fromDobDay > criteria.toDobDay) return 0;
+        ensureBuilt();
+        Map<Integer, int[]> years = criteria.ageBounded
+                ? birthYearCounts.subMap(yearOf(criteria.fromDobDay), true, yearOf(criteria.toDobDay), true)
+                : birthYearCounts;
+        int total = 0;
+        for (int[] counts : years.values()) {
+            if (criteria.maritalStatus != null) {
+                total += counts[criteria.maritalStatus.ordinal()];
+            } else {
+                for (int count : counts) total += count;
+            }
+        }
+        return total;
+    }
+
+    public int size() {
+        ensureBuilt();
+        return slots.size();
+    }
+
+    // ========== Helper Methods ==========
+    private void addToDay(int dobDay, int slot) {
+        byDob.put(dobDay, byDob.getOrDefault(dobDay, DayBucket.EMPTY).with(slot));
+    }
+
+    private void removeFromDay(int dobDay, int slot) {
+        DayBucket bucket = byDob.get(dobDay);
+        if (bucket == null) return;
+        DayBucket remaining = bucket.without(slot);
+        if (remaining == null) {
+            byDob.remove(dobDay);
+        } else {
+            byDob.put(dobDay, remaining);
+        }
+    }
+
+    private void count(int dobDay, byte status, int delta) {
+        int year = yearOf(dobDay);
+        int[] counts = birthYearCounts.computeIfAbsent(year, y -> new int[MaritalStatus.values().length + 1]);
+        counts[status == NO_STATUS ? counts.length - 1 : status] += delta;
+        if (delta < 0 && Arrays.stream(counts).allMatch(count -> count == 0)) {
+            birthYearCounts.remove(year);
+        }
+    }
+
+    private static int yearOf(int dobDay) {
+        if (dobDay == NO_DOB) return Integer.MIN_VALUE;
+        if (dobDay <= NO_DOB + 1) return Integer.MIN_VALUE + 1; // Open lower bound
+        if (dobDay == Integer.MAX_VALUE) return Integer.MAX_VALUE; // Open upper bound
+        return LocalDate.ofEpochDay(dobDay).getYear();
+    }
+
+    private static byte statusOf(Applicant applicant) {
+        return applicant.getMaritalStatus() == null ? NO_STATUS : (byte) applicant.getMaritalStatus().ordinal();
+    }
+
+    private static int toEpochDay(Date dob) {
+        if (dob == null) return NO_DOB;
+        try {
+            // Same conversion as User.getAge, so filters agree with the age shown elsewhere
+            return (int) dob.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        } catch (RuntimeException e) {
+            return NO_DOB;
+        }
+    }
+}
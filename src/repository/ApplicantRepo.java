@@ -7,101 +7,110 @@ import pub_enums.ApplStatus;
 import pub_enums.MaritalStatus;
 import pub_enums.Role;
 
+import util.DateFormats;
+import util.MappedCsvReader;
+import util.PasswordHasher;
+import util.SnapshotReader;
+import util.SnapshotWriter;
+
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Repository class to handle loading, authenticating, and managing applicants from a CSV file.
+ * <p>
+ * The CSV holds profile rows only. Each applicant's application and enquiries live in
+ * {@link ApplicationRepo} and {@link EnquiryRepo} and are attached by {@link #resolveReferences}.
  */
 public class ApplicantRepo {
 
     private static final String FILE_PATH = "data/ApplicantList.csv";
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("dd MM yyyy");
-    private final Map<String, Applicant> applicantsMap = new HashMap<>();
+    private static final String SNAPSHOT_PATH = "data/ApplicantList.snap";
+    private static final String SNAPSHOT_KIND = "applicant-profiles"; // Older "applicants" snapshots embed references
+    private final Map<String, Applicant> applicantsMap = new ConcurrentHashMap<>();
+    private final CredentialIndex credentialIndex = new CredentialIndex();
+    private final ApplicantProjection projection = new ApplicantProjection(() -> applicantsMap.values());
+    private final CsvFile csvFile = new CsvFile(Paths.get(FILE_PATH), this::writeCsv);
+    private final EntityLocks locks = new EntityLocks();
+    private UserDirectory directory;
+
+    // Application and enquiries embedded in an old-format CSV, imported by resolveReferences
+    private boolean legacyFormat;
+    private final List<Application> embeddedApplications = new ArrayList<>();
+    private final List<Enquiry> embeddedEnquiries = new ArrayList<>();
 
     public ApplicantRepo() {
-        loadFromCsv(); // Load applicants on initialization
+        // Load applicants on initialization, from the binary snapshot if the CSV has not changed since
+        if (!loadFromSnapshot()) {
+            loadFromCsv();
+        }
+    }
+
+    /**
+     * Registers the shared user directory and seeds it with every loaded applicant.
+     */
+    void attachDirectory(UserDirectory directory) {
+        this.directory = directory;
+        applicantsMap.values().forEach(directory::put);
+    }
+
+    /**
+     * Per-applicant lock for check-then-act sequences in the services, e.g. applying for a project.
+     */
+    public Lock lockFor(String applicantId) {
+        return locks.lockFor(applicantId);
     }
 
     // ========== Authentication ==========
     public Applicant authenticate(String nric, String password) {
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            String line;
-            reader.readLine(); // Skip header
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|");
-                if (tokens.length >= 6) {
-                    try {
-                        String fileNric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        String dobStr = tokens[2].trim();
-                        String maritalStatusStr = tokens[3].trim();
-                        String roleStr = tokens[4].trim(); // Not used in logic but required in CSV
-                        String filePassword = tokens[5].trim();
-
-                        Date dob = sdf.parse(dobStr);
-
-                        if (fileNric.equalsIgnoreCase(nric) && filePassword.equals(password)) {
-                            MaritalStatus maritalStatus = MaritalStatus.valueOf(maritalStatusStr.toUpperCase());
-
-                            Application application = parseApplication(tokens.length > 6 ? tokens[6].trim() : "NULL");
-
-                            // Parse enquiries if exist (column 7)
-                            List<Enquiry> enquiries = tokens.length > 7 ?
-                                    parseEnquiries(tokens[7].trim()) : new ArrayList<>();
-
-                            return new Applicant(
-                                    name,
-                                    fileNric,
-                                    dob,
-                                    maritalStatus,
-                                    filePassword,
-                                    Role.APPLICANT,
-                                    application, // Now includes parsed application
-                                    enquiries   // Now includes parsed enquiries
-                            );
-                        }
-                    } catch (ParseException | IllegalArgumentException e) {
-                        System.out.println("Login error: Invalid CSV entry: " + e.getMessage());
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Login error: " + e.getMessage());
+        String id = credentialIndex.verify(nric, password);
+        if (id == null) return null;
+
+        Applicant applicant = applicantsMap.get(id);
+        if (applicant != null && PasswordHasher.needsRehash(applicant.getPassword())) {
+            // Upgrade a plaintext or outdated hash now that the password is known
+            applicant.setPassword(PasswordHasher.hash(password));
+            update(applicant);
         }
-
-        return null;
+        return applicant;
     }
 
     // ========== CSV Sync ==========
     private void loadFromCsv() {
         applicantsMap.clear();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            String line;
-            reader.readLine(); // Skip header
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|", -1); // -1 keeps empty fields
-                if (tokens.length >= 6) { // Updated for new fields
+        credentialIndex.clear();
+        projection.clear();
+        try (MappedCsvReader csv = MappedCsvReader.open(Paths.get(FILE_PATH), false)) {
+            csv.nextRow(); // Skip header
+            // Files written before normalisation carry Application and Enquiries columns
+            legacyFormat = csv.fieldCount() > 6;
+
+            while (csv.nextRow()) {
+                if (csv.fieldCount() >= 6) { // Updated for new fields
                     try {
-                        String nric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        Date dob = sdf.parse(tokens[2].trim());
-                        MaritalStatus maritalStatus = MaritalStatus.valueOf(tokens[3].trim().toUpperCase());
-                        String password = tokens[5].trim();
-
-                        // Parse single application (column 6)
-                        Application application = parseApplication(tokens.length > 6 ? tokens[6].trim() : "NULL");
-
-                        // Parse enquiries (column 7)
-                        List<Enquiry> enquiries = tokens.length > 7 ?
-                                parseEnquiries(tokens[7].trim()) : new ArrayList<>();
+                        String nric = csv.getString(0);
+                        String name = csv.getString(1);
+                        Date dob = csv.getDate(2);
+                        MaritalStatus maritalStatus = csv.getEnum(3, MaritalStatus.class);
+                        String password = csv.getString(5);
+
+                        if (legacyFormat) {
+                            // Embedded application (column 6) and enquiries (column 7), kept for migration
+                            Application application = csv.fieldCount() > 6 && !csv.isNull(6) ?
+                                    parseApplication(csv.getString(6)) : null;
+                            if (application != null) {
+                                embeddedApplications.add(application);
+                            }
+                            if (csv.fieldCount() > 7 && !csv.isNull(7)) {
+                                embeddedEnquiries.addAll(parseEnquiries(csv.getString(7)));
+                            }
+                        }
 
                         Applicant applicant = new Applicant(
                                 name,
@@ -110,12 +119,14 @@ public class ApplicantRepo {
                                 maritalStatus,
                                 password,
                                 Role.APPLICANT,
-                                application, // Single application
-                                enquiries
+                                null, // Resolved from ApplicationRepo
+                                new ArrayList<>() // Resolved from EnquiryRepo
                         );
                         applicantsMap.put(nric, applicant);
-                    } catch (ParseException | IllegalArgumentException e) {
-                        System.err.println("Skipping invalid row: " + line + " - " + e.getMessage());
+                        credentialIndex.put(applicant);
+                        projection.put(applicant);
+                    } catch (DateTimeParseException | IllegalArgumentException e) {
+                        System.err.println("Skipping invalid row: " + csv.rowText() + " - " + e.getMessage());
                     }
                 }
             }
@@ -124,38 +135,104 @@ public class ApplicantRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(FILE_PATH))) {
-            writer.write("ID|Name|DOB|MaritalStatus|Role|Password|Application|Enquiries");
+    public void setWriteBehind(WriteBehind writeBehind) {
+        csvFile.setWriteBehind(writeBehind);
+    }
+
+    private void writeCsv(BufferedWriter writer) throws IOException {
+        writer.write("ID|Name|DOB|MaritalStatus|Role|Password");
+        writer.newLine();
+
+        for (Applicant applicant : applicantsMap.values()) {
+            String dobStr = DateFormats.formatCsvDate(applicant.getDob());
+
+            writer.write(String.join("|",
+                    applicant.getId(),
+                    applicant.getName(),
+                    dobStr,
+                    applicant.getMaritalStatus().name(),
+                    applicant.getRole().name(),
+                    applicant.getPassword()
+            ));
             writer.newLine();
+        }
+    }
 
-            for (Applicant applicant : applicantsMap.values()) {
-                String dobStr = sdf.format(applicant.getDob());
-                String applicationStr = formatApplication(applicant.getApplication());
-                String enquiriesStr = formatEnquiries(applicant.getEnquiries());
-
-                writer.write(String.join("|",
-                        applicant.getId(),
-                        applicant.getName(),
-                        dobStr,
-                        applicant.getMaritalStatus().name(),
-                        applicant.getRole().name(),
-                        applicant.getPassword(),
-                        applicationStr,
-                        enquiriesStr
-                ));
-                writer.newLine();
-            }
+    /**
+     * Durably rewrites the CSV now, bypassing write-behind.
+     *
+     * @return false if the write failed.
+     */
+    private boolean saveNow() {
+        try {
+            csvFile.commit();
+            return true;
         } catch (IOException e) {
             System.out.println("Failed to save applicants: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ========== Snapshot ==========
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(SNAPSHOT_PATH);
+        if (!SnapshotReader.isFresh(path, Paths.get(FILE_PATH))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, SNAPSHOT_KIND);
+            while (snapshot.nextRecord()) {
+                String nric = snapshot.readString();
+                String name = snapshot.readString();
+                Date dob = snapshot.readDate();
+                MaritalStatus maritalStatus = snapshot.readEnum(MaritalStatus.class);
+                String password = snapshot.readString();
+
+                Applicant applicant = new Applicant(name, nric, dob, maritalStatus, password, Role.APPLICANT,
+                        null, new ArrayList<>());
+                applicantsMap.put(nric, applicant);
+                credentialIndex.put(applicant);
+                projection.put(applicant);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ignoring applicant snapshot: " + e.getMessage());
+            applicantsMap.clear();
+            credentialIndex.clear();
+            projection.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the binary snapshot used for fast startup. The CSV stays the interchange format.
+     */
+    public synchronized void writeSnapshot() {
+        SnapshotWriter snapshot = new SnapshotWriter(SNAPSHOT_KIND, Paths.get(FILE_PATH));
+        for (Applicant applicant : applicantsMap.values()) {
+            snapshot.beginRecord();
+            snapshot.writeString(applicant.getId());
+            snapshot.writeString(applicant.getName());
+            snapshot.writeDate(applicant.getDob());
+            snapshot.writeEnum(applicant.getMaritalStatus());
+            snapshot.writeString(applicant.getPassword());
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(SNAPSHOT_PATH));
+        } catch (IOException e) {
+            System.err.println("Failed to write applicant snapshot: " + e.getMessage());
         }
     }
 
     // ========== Business Operations ==========
 
     public void add(Applicant applicant) {
-        applicantsMap.put(applicant.getId(), applicant);
-        saveToCsv();
+        synchronized (this) {
+            applicantsMap.put(applicant.getId(), applicant);
+            credentialIndex.put(applicant);
+            projection.put(applicant);
+            if (directory != null) directory.put(applicant);
+        }
+        csvFile.save();
     }
 
     public Optional<Applicant> findById(String id) {
@@ -166,27 +243,94 @@ public class ApplicantRepo {
         return new ArrayList<>(applicantsMap.values());
     }
 
+    public int size() {
+        return applicantsMap.size();
+    }
+
+    /**
+     * Columnar view of applicant demographics for report joins; see {@link ApplicantProjection}.
+     */
+    public ApplicantProjection getProjection() {
+        return projection;
+    }
+
     public void update(Applicant applicant) {
-        if (applicantsMap.containsKey(applicant.getId())) {
+        synchronized (this) {
+            if (!applicantsMap.containsKey(applicant.getId())) return;
             applicantsMap.put(applicant.getId(), applicant);
-            saveToCsv();
+            credentialIndex.put(applicant);
+            projection.put(applicant);
+            if (directory != null) directory.put(applicant);
         }
+        csvFile.save();
     }
 
     public void delete(String id) {
-        applicantsMap.remove(id);
-        saveToCsv();
+        synchronized (this) {
+            applicantsMap.remove(id);
+            credentialIndex.remove(id);
+            projection.remove(id);
+            if (directory != null) directory.remove(id);
+        }
+        csvFile.save();
     }
 
-    // Helper Functions
-    private String formatEnquiries(List<Enquiry> enquiries) {
-        if (enquiries == null || enquiries.isEmpty()) return "";
+    // ========== References ==========
+
+    /**
+     * Attaches each applicant's live application and enquiries from their repositories. Called once at
+     * startup, after all three repositories have loaded.
+     * <p>
+     * A CSV in the old format, with the application and enquiries embedded in every row, is migrated
+     * here once: embedded records missing from their own repositories are imported, those are made
+     * durable, and only then is the CSV rewritten as profile rows.
+     */
+    public void resolveReferences(ApplicationRepo applicationRepo, EnquiryRepo enquiryRepo) {
+        if (legacyFormat) {
+            importEmbedded(applicationRepo, enquiryRepo);
+        }
+
+        for (Applicant applicant : applicantsMap.values()) {
+            applicant.setApplication(applicationRepo.findActiveByApplicantId(applicant.getId()));
+            applicant.setEnquiries(enquiryRepo.findByApplicantId(applicant.getId()));
+        }
 
-        return enquiries.stream()
-                .map(e ->  e.getEnquiryId() + "," + e.getApplicantId() + ","  + e.getProjectId() + ","  + e.getMessage() + "," + e.getReply())
-                .collect(Collectors.joining(";"));
+        if (legacyFormat && saveNow()) {
+            legacyFormat = false;
+            System.out.println("Migrated " + FILE_PATH + " to profile-only rows");
+        }
+    }
+
+    private void importEmbedded(ApplicationRepo applicationRepo, EnquiryRepo enquiryRepo) {
+        int importedApplications = 0;
+        for (Application application : embeddedApplications) {
+            // The repository's copy is authoritative; the embedded one may be stale
+            if (applicationRepo.findById(application.getId()).isEmpty()) {
+                try {
+                    applicationRepo.add(application);
+                    importedApplications++;
+                } catch (IOException e) {
+                    System.err.println("Error importing application " + application.getId() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (importedApplications > 0) {
+            applicationRepo.checkpoint();
+        }
+
+        List<Enquiry> missing = new ArrayList<>();
+        for (Enquiry enquiry : embeddedEnquiries) {
+            if (enquiryRepo.findById(enquiry.getEnquiryId()).isEmpty()) {
+                missing.add(enquiry);
+            }
+        }
+        enquiryRepo.addAll(missing);
+
+        embeddedApplications.clear();
+        embeddedEnquiries.clear();
     }
 
+    // Helper Functions
     private List<Enquiry> parseEnquiries(String enquiriesStr) {
         if (enquiriesStr == null || enquiriesStr.trim().isEmpty() || "NULL".equals(enquiriesStr)) {
             return new ArrayList<>();
@@ -209,20 +353,6 @@ public class ApplicantRepo {
         return enquiries;
     }
 
-    private String formatApplication(Application application) {
-        if (application == null) {
-            return "NULL";
-        }
-
-        return String.join(",",
-                application.getId(),
-                application.getStatus().name(),
-                application.getApplicantId(),
-                application.getProjectId(),
-                application.getFlatType()
-        );
-    }
-
     private Application parseApplication(String applicationStr) {
         if (applicationStr == null || applicationStr.trim().isEmpty() || "NULL".equals(applicationStr)) {
             return null;
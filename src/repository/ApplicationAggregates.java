@@ -0,0 +1,127 @@
+package repository;
+
+import entity.Application;
+import pub_enums.ApplStatus;
+import pub_enums.FlatType;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Application counts per project, {@link FlatType} and {@link ApplStatus}, kept current by {@link ApplicationRepo}
+ * applying a delta for every add, update and delete. Dashboard queries read counters instead of scanning applications.
+ * <p>
+ * Each project has one counter matrix, flat type by status. Applications with no project or status, or a flat type
+ * that is not a {@link FlatType} name, are not counted. Writes are serialised by the repository; reads take no lock.
+ */
+public class ApplicationAggregates {
+    private static final FlatType[] FLAT_TYPES = FlatType.values();
+    private static final ApplStatus[] STATUSES = ApplStatus.values();
+
+    private final Map<String, AtomicIntegerArray> byProject = new ConcurrentHashMap<>();
+
+    // ========== Maintenance ==========
+    void add(String projectId, String flatType, ApplStatus status) {
+        int cell = cellOf(projectId, flatType, status);
+        if (cell < 0) return;
+        byProject.computeIfAbsent(projectId, k -> new AtomicIntegerArray(FLAT_TYPES.length * STATUSES.length))
+                .incrementAndGet(cell);
+    }
+
+    void remove(String projectId, String flatType, ApplStatus status) {
+        int cell = cellOf(projectId, flatType, status);
+        if (cell < 0) return;
+        AtomicIntegerArray counts = byProject.get(projectId);
+        if (counts != null) {
+            counts.decrementAndGet(cell); // Emptied matrices are kept; a project's applications come and go
+        }
+    }
+
+    void clear() {
+        byProject.clear();
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * @return The number of applications for the project with this flat type and status.
+     */
+    public int count(String projectId, FlatType flatType, ApplStatus status) {
+        if (projectId == null || flatType == null || status == null) return 0;
+        AtomicIntegerArray counts = byProject.get(projectId);
+        return counts == null ? 0 : counts.get(flatType.ordinal() * STATUSES.length + status.ordinal());
+    }
+
+    /**
+     * @return The project's full matrix, flat type by status, with every cell present (zero if empty).
+     */
+    public Map<FlatType, Map<ApplStatus, Integer>> countsFor(String projectId) {
+        AtomicIntegerArray counts = projectId == null ? null : byProject.get(projectId);
+        Map<FlatType, Map<ApplStatus, Integer>> matrix = new EnumMap<>(FlatType.class);
+        for (FlatType flatType : FLAT_TYPES) {
+            Map<ApplStatus, Integer> row = new EnumMap<>(ApplStatus.class);
+            for (ApplStatus status : STATUSES) {
+                row.put(status, counts == null ? 0 : counts.get(flatType.ordinal() * STATUSES.length + status.ordinal()));
+            }
+            matrix.put(flatType, row);
+        }
+        return matrix;
+    }
+
+    // ========== Verification ==========
+
+    /**
+     * Recounts the applications and compares every counter with the recount. The caller must hold off
+     * writers for the duration, so counters and applications describe the same state.
+     *
+     * @param applications Every application.
+     * @param projectId    The only project to check, or null for all projects.
+     * @return One line per cell whose counter disagrees with the recount; empty if all agree.
+     */
+    List<String> verify(Collection<Application> applications, String projectId) {
+        Map<String, int[]> recount = new HashMap<>();
+        for (Application application : applications) {
+            if (projectId != null && !projectId.equals(application.getProjectId())) continue;
+            int cell = cellOf(application.getProjectId(), application.getFlatType(), application.getStatus());
+            if (cell < 0) continue;
+            recount.computeIfAbsent(application.getProjectId(), k -> new int[FLAT_TYPES.length * STATUSES.length])[cell]++;
+        }
+
+        Set<String> projects = new TreeSet<>(recount.keySet());
+        if (projectId != null) {
+            projects.add(projectId);
+        } else {
+            projects.addAll(byProject.keySet());
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (String project : projects) {
+            int[] expected = recount.get(project);
+            AtomicIntegerArray actual = byProject.get(project);
+            for (int cell = 0; cell < FLAT_TYPES.length * STATUSES.length; cell++) {
+                int want = expected == null ? 0 : expected[cell];
+                int have = actual == null ? 0 : actual.get(cell);
+                if (want != have) {
+                    mismatches.add(String.format("%s %s %s: counter %d, scan %d", project,
+                            FLAT_TYPES[cell / STATUSES.length], STATUSES[cell % STATUSES.length], have, want));
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    // ========== Helper Methods ==========
+    private static int cellOf(String projectId, String flatType, ApplStatus status) {
+        if (projectId == null || flatType == null || status == null) return -1;
+        FlatType type = parseFlatType(flatType);
+        return type == null ? -1 : type.ordinal() * STATUSES.length + status.ordinal();
+    }
+
+    private static FlatType parseFlatType(String flatType) {
+        for (FlatType type : FLAT_TYPES) {
+            if (type.name().equals(flatType)) return type;
+        }
+        return null;
+    }
+}
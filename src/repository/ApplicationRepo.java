@@ -1,16 +1,52 @@
 package repository;
 
+import entity.Applicant;
 import entity.Application;
 import pub_enums.ApplStatus;
+import util.DurableFile;
+import util.MappedCsvReader;
+import util.SnapshotReader;
+import util.SnapshotWriter;
 
 import java.io.*;
+import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
 
 public class ApplicationRepo {
-    private final Map<String, Application> applicationsMap = new HashMap<>();
+    private final Map<String, Application> applicationsMap = new ConcurrentHashMap<>();
+    private final EntityLocks locks = new EntityLocks();
     private static final String APPLICATION_FILE = "data/ApplicationList.csv";
+    private static final String APPLICATION_LOG = "data/ApplicationList.log";
+    private static final String APPLICATION_SNAPSHOT = "data/ApplicationList.snap";
     private static final String DELIMITER = "|";
+    private static final int COMPACT_THRESHOLD = 1000; // Log records before folding into the CSV
+
+    // Secondary indexes, kept in step with applicationsMap by putIndexed/removeIndexed. The project, status
+    // and flat type indexes, like applicationsMap, are concurrent so streamMatching can read them without the lock
+    private final Map<String, Map<String, Application>> byApplicant = new HashMap<>();
+    private final Map<String, Map<String, Application>> byProject = new ConcurrentHashMap<>();
+    private final Map<ApplStatus, Map<String, Application>> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Application>> byFlatType = new ConcurrentHashMap<>();
+    // Keys each application was last indexed under, since callers mutate entities in place before update()
+    private final Map<String, IndexKey> indexedKeys = new HashMap<>();
+    // Per-project flat type x status counters, updated from the same index keys
+    private final ApplicationAggregates aggregates = new ApplicationAggregates();
+
+    private final MutationLog mutationLog = new MutationLog(APPLICATION_LOG);
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    // Serialises whole checkpoints (seal, write, discard); taken before the repository lock, never inside it
+    private final Object checkpointLock = new Object();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "application-log-compactor");
+        t.setDaemon(true);
+        return t;
+    });
 
     public ApplicationRepo() {
         loadFromCsv();
@@ -18,6 +54,31 @@ public class ApplicationRepo {
 
     // ========== CSV File Operations ==========
     private void loadFromCsv() {
+        // The binary snapshot is written alongside the CSV at each checkpoint, so either is a valid base
+        if (!loadFromSnapshot()) {
+            loadCsvRows();
+        }
+
+        // Apply mutations recorded since the last snapshot
+        mutationLog.replay(new MutationLog.Replayer() {
+            @Override
+            public void put(String payload) {
+                Application application = parseCsvLine(payload);
+                if (application != null) {
+                    putIndexed(application);
+                }
+            }
+
+            @Override
+            public void delete(String id) {
+                removeIndexed(unescapeCsv(id));
+            }
+
+            // Link records from older logs are ignored: applicants now resolve their application by ID
+        });
+    }
+
+    private void loadCsvRows() {
         File file = new File(APPLICATION_FILE);
         if (!file.exists()) {
             // Create file if it doesn't exist
@@ -32,15 +93,14 @@ public class ApplicationRepo {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(APPLICATION_FILE))) {
+        try (MappedCsvReader csv = MappedCsvReader.open(Paths.get(APPLICATION_FILE), true)) {
             // Skip header
-            br.readLine();
+            csv.nextRow();
 
-            String line;
-            while ((line = br.readLine()) != null) {
-                Application application = parseCsvLine(line);
+            while (csv.nextRow()) {
+                Application application = parseCsvRow(csv);
                 if (application != null) {
-                    applicationsMap.put(application.getId(), application);
+                    putIndexed(application);
                 }
             }
         } catch (Exception e) {
@@ -48,17 +108,161 @@ public class ApplicationRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(APPLICATION_FILE))) {
-            // Write header
-            pw.println(String.join(DELIMITER, "ID", "Status", "ApplicantID", "ProjectID", "FlatType"));
+    /**
+     * @return false if the CSV could not be written, in which case the previous file is left intact.
+     */
+    private boolean saveToCsv(Collection<Application> applications) {
+        try {
+            DurableFile.replaceText(Paths.get(APPLICATION_FILE), writer -> {
+                // Write header
+                writer.write(String.join(DELIMITER, "ID", "Status", "ApplicantID", "ProjectID", "FlatType"));
+                writer.newLine();
 
-            // Write data
-            for (Application application : applicationsMap.values()) {
-                pw.println(toCsvLine(application));
-            }
+                // Write data
+                for (Application application : applications) {
+                    writer.write(toCsvLine(application));
+                    writer.newLine();
+                }
+            });
+            return true;
         } catch (IOException e) {
             System.err.println("Error saving CSV: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ========== Binary Snapshot ==========
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(APPLICATION_SNAPSHOT);
+        if (!SnapshotReader.isFresh(path, Paths.get(APPLICATION_FILE))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, "applications");
+            while (snapshot.nextRecord()) {
+                putIndexed(new Application(snapshot.readString(), snapshot.readEnum(ApplStatus.class),
+                        snapshot.readString(), snapshot.readString(), snapshot.readString()));
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ignoring application snapshot: " + e.getMessage());
+            applicationsMap.clear();
+            indexedKeys.clear();
+            byApplicant.clear();
+            byProject.clear();
+            byStatus.clear();
+            byFlatType.clear();
+            aggregates.clear();
+            return false;
+        }
+    }
+
+    private void writeSnapshot(Collection<Application> applications) {
+        SnapshotWriter snapshot = new SnapshotWriter("applications", Paths.get(APPLICATION_FILE));
+        for (Application application : applications) {
+            snapshot.beginRecord();
+            snapshot.writeString(application.getId());
+            snapshot.writeEnum(application.getStatus());
+            snapshot.writeString(application.getApplicantId());
+            snapshot.writeString(application.getProjectId());
+            snapshot.writeString(application.getFlatType());
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(APPLICATION_SNAPSHOT));
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+    // ========== Transactions ==========
+
+    /**
+     * Starts a unit of work spanning applications and their applicants.
+     */
+    public UnitOfWork beginWork() {
+        return new UnitOfWork(this);
+    }
+
+    /**
+     * Logs the staged application changes as one durable transaction, then applies them and repoints the
+     * linked applicants. Links are not logged; on load, {@link ApplicantRepo#resolveReferences} derives them
+     * from each application's applicant ID. Called by {@link UnitOfWork#commit()}.
+     *
+     * @throws IOException if the log write failed, in which case nothing is applied.
+     */
+    synchronized void commit(List<Application> added, Map<Application, ApplStatus> statusChanges,
+                             Map<Applicant, Application> links) throws IOException {
+        List<MutationLog.Record> records = new ArrayList<>();
+        for (Application application : added) {
+            records.add(MutationLog.Record.put(toCsvLine(application)));
+        }
+        for (Map.Entry<Application, ApplStatus> change : statusChanges.entrySet()) {
+            Application application = change.getKey();
+            records.add(MutationLog.Record.put(toCsvLine(new Application(application.getId(), change.getValue(),
+                    application.getApplicantId(), application.getProjectId(), application.getFlatType()))));
+        }
+        mutationLog.appendTransaction(records);
+
+        // Durable from here; apply in memory
+        for (Application application : added) {
+            putIndexed(application);
+        }
+        for (Map.Entry<Application, ApplStatus> change : statusChanges.entrySet()) {
+            change.getKey().setStatus(change.getValue());
+            putIndexed(change.getKey());
+        }
+        for (Map.Entry<Applicant, Application> link : links.entrySet()) {
+            link.getKey().setApplication(link.getValue());
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    // ========== Mutation Log ==========
+    private void logPut(Application application) throws IOException {
+        mutationLog.appendPut(toCsvLine(application));
+        scheduleCompactionIfNeeded();
+    }
+
+    private void logDelete(String id) throws IOException {
+        mutationLog.appendDelete(escapeCsv(id));
+        scheduleCompactionIfNeeded();
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (mutationLog.getPendingRecords() >= COMPACT_THRESHOLD && compactionScheduled.compareAndSet(false, true)) {
+            compactor.submit(() -> {
+                try {
+                    checkpoint();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Folds the mutation log into the CSV and the binary snapshot. Runs in the background once
+     * the log grows past its threshold, and should be called on shutdown so the next start
+     * has nothing to replay.
+     * <p>
+     * Checkpoints run one at a time, so an older snapshot can never be written over a newer one, nor discard
+     * a sealed segment that a later checkpoint extended. Writers are only held off while the log is sealed.
+     */
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            List<Application> snapshot;
+            synchronized (this) {
+                mutationLog.seal();
+                snapshot = new ArrayList<>(applicationsMap.size());
+                for (Application application : applicationsMap.values()) {
+                    snapshot.add(new Application(application.getId(), application.getStatus(),
+                            application.getApplicantId(), application.getProjectId(), application.getFlatType()));
+                }
+            }
+            if (!saveToCsv(snapshot)) {
+                return; // Keep the sealed log; it is replayed on the next load or folded by the next checkpoint
+            }
+            writeSnapshot(snapshot); // After the CSV, so it records the CSV it mirrors
+            mutationLog.discardSealed();
         }
     }
 
@@ -80,6 +284,21 @@ public class ApplicationRepo {
         }
     }
 
+    private Application parseCsvRow(MappedCsvReader csv) {
+        try {
+            String id = unescapeCsv(csv.getString(0));
+            ApplStatus status = csv.getEnum(1, ApplStatus.class);
+            String applicantId = unescapeCsv(csv.getString(2));
+            String projectId = unescapeCsv(csv.getString(3));
+            String flatType = unescapeCsv(csv.getString(4));
+
+            return new Application(id, status, applicantId, projectId, flatType);
+        } catch (Exception e) {
+            System.out.println("Error parsing application data: " + e.getMessage());
+            return null;
+        }
+    }
+
     private String toCsvLine(Application application) {
         return String.join(DELIMITER,
                 escapeCsv(application.getId()),
@@ -90,6 +309,105 @@ public class ApplicationRepo {
         );
     }
 
+    // ========== Index Maintenance ==========
+    private static final class IndexKey {
+        private final String applicantId;
+        private final String projectId;
+        private final ApplStatus status;
+        private final String flatType;
+
+        private IndexKey(Application application) {
+            this.applicantId = application.getApplicantId();
+            this.projectId = application.getProjectId();
+            this.status = application.getStatus();
+            this.flatType = application.getFlatType();
+        }
+    }
+
+    private void putIndexed(Application application) {
+        String id = application.getId();
+        IndexKey key = new IndexKey(application);
+        IndexKey previous = indexedKeys.put(id, key);
+        applicationsMap.put(id, application);
+
+        // Re-added at the end, so an applicant's bucket is ordered by last update (see findActiveByApplicantId)
+        if (previous != null) {
+            removeFromBucket(byApplicant, previous.applicantId, id);
+        }
+        byApplicant.computeIfAbsent(key.applicantId, k -> new LinkedHashMap<>()).put(id, application);
+
+        // Added under the new keys before the stale ones are dropped, so lock-free streams never miss it
+        if (key.projectId != null) {
+            byProject.computeIfAbsent(key.projectId, k -> new ConcurrentHashMap<>()).put(id, application);
+        }
+        if (key.status != null) {
+            byStatus.computeIfAbsent(key.status, k -> new ConcurrentHashMap<>()).put(id, application);
+        }
+        if (key.flatType != null) {
+            byFlatType.computeIfAbsent(key.flatType, k -> new ConcurrentHashMap<>()).put(id, application);
+        }
+        if (previous != null) {
+            if (previous.projectId != null && !previous.projectId.equals(key.projectId)) {
+                removeFromBucket(byProject, previous.projectId, id);
+            }
+            if (previous.status != null && previous.status != key.status) {
+                removeFromBucket(byStatus, previous.status, id);
+            }
+            if (previous.flatType != null && !previous.flatType.equals(key.flatType)) {
+                removeFromBucket(byFlatType, previous.flatType, id);
+            }
+        }
+
+        // The transition's delta: one into the new cell, then one out of the old (a no-op if the cell is unchanged)
+        aggregates.add(key.projectId, key.flatType, key.status);
+        if (previous != null) {
+            aggregates.remove(previous.projectId, previous.flatType, previous.status);
+        }
+    }
+
+    private void removeIndexed(String id) {
+        applicationsMap.remove(id);
+        IndexKey key = indexedKeys.remove(id);
+        if (key == null) return;
+        removeFromBucket(byApplicant, key.applicantId, id);
+        if (key.projectId != null) {
+            removeFromBucket(byProject, key.projectId, id);
+        }
+        if (key.status != null) {
+            removeFromBucket(byStatus, key.status, id);
+        }
+        if (key.flatType != null) {
+            removeFromBucket(byFlatType, key.flatType, id);
+        }
+        aggregates.remove(key.projectId, key.flatType, key.status);
+    }
+
+    private static <K> void removeFromBucket(Map<K, Map<String, Application>> index, K key, String id) {
+        Map<String, Application> bucket = index.get(key);
+        if (bucket == null) return;
+        bucket.remove(id);
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private Map<String, Application> smallestBucket(String projectId, ApplStatus status, String flatType) {
+        Map<String, Application> smallest = applicationsMap;
+        if (projectId != null) smallest = smaller(smallest, byProject.get(projectId));
+        if (status != null) smallest = smaller(smallest, byStatus.get(status));
+        if (flatType != null) smallest = smaller(smallest, byFlatType.get(flatType));
+        return smallest;
+    }
+
+    private static Map<String, Application> smaller(Map<String, Application> current, Map<String, Application> bucket) {
+        if (bucket == null) return Map.of(); // No application has this key
+        return bucket.size() < current.size() ? bucket : current;
+    }
+
+    private static List<Application> bucketOf(Map<String, Application> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+
     // ========== Helper Methods ==========
     private String escapeCsv(String value) {
         if (value == null) return "";
@@ -106,47 +424,138 @@ public class ApplicationRepo {
     }
 
     // ========== Business Operations ==========
-    public void add(Application application) {
-        applicationsMap.put(application.getId(), application);
-        saveToCsv();
+    /**
+     * Logs the new application, then adds it.
+     *
+     * @throws IOException if the log write failed, in which case nothing is added.
+     */
+    public synchronized void add(Application application) throws IOException {
+        logPut(application);
+        putIndexed(application);
+    }
+
+    /**
+     * Per-application lock for status transitions in the services.
+     */
+    public Lock lockFor(String applicationId) {
+        return locks.lockFor(applicationId);
     }
 
-    public Optional<Application> findById(String id) {
+    public synchronized Optional<Application> findById(String id) {
         return Optional.ofNullable(applicationsMap.get(id));
     }
 
-    public List<Application> findAll() {
+    public synchronized int size() {
+        return applicationsMap.size();
+    }
+
+    public synchronized List<Application> findAll() {
         return new ArrayList<>(applicationsMap.values());
     }
 
-    public List<Application> findByApplicantId(String applicantId) {
-        return applicationsMap.values().stream()
-                .filter(app -> app.getApplicantId().equals(applicantId))
-                .collect(Collectors.toList());
+    public synchronized List<Application> findByApplicantId(String applicantId) {
+        return bucketOf(byApplicant.get(applicantId));
+    }
+
+    public synchronized List<Application> findByProjectId(String projectId) {
+        return bucketOf(byProject.get(projectId));
     }
 
-    public List<Application> findByProjectId(String projectId) {
-        return applicationsMap.values().stream()
-                .filter(app -> app.getProjectId().equals(projectId))
-                .collect(Collectors.toList());
+    public synchronized List<Application> findByStatus(ApplStatus status) {
+        return status == null ? new ArrayList<>() : bucketOf(byStatus.get(status));
     }
 
-    public Application findActiveByApplicantId(String applicantId) {
-        return applicationsMap.values().stream()
-                .filter(app -> app.getApplicantId().equals(applicantId))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Streams the applications matching the given filters, reading the smallest applicable index in place
+     * rather than copying it, so memory use does not grow with the number of applications.
+     * <p>
+     * The stream does not lock the repository: it tolerates concurrent updates, and every element matched the
+     * filters when it was read, but updates made while it runs may or may not be seen.
+     *
+     * @param projectId Only applications for this project, or null for any project.
+     * @param status    Only applications with this status, or null for any status.
+     * @param flatType  Only applications for this flat type, or null for any flat type.
+     */
+    public Stream<Application> streamMatching(String projectId, ApplStatus status, String flatType) {
+        // Re-checked per element, since an application can change while the stream runs
+        return smallestBucket(projectId, status, flatType).values().stream()
+                .filter(application -> (projectId == null || projectId.equals(application.getProjectId()))
+                        && (status == null || application.getStatus() == status)
+                        && (flatType == null || flatType.equals(application.getFlatType())));
     }
 
-    public void update(Application application) {
+    /**
+     * @return An upper bound on how many applications {@link #streamMatching} would return for the same filters,
+     * without reading any of them.
+     */
+    public int estimateMatching(String projectId, ApplStatus status, String flatType) {
+        return smallestBucket(projectId, status, flatType).size();
+    }
+
+    /**
+     * The splittable source {@link #streamMatching} reads, for readers that partition the work themselves.
+     * Splits cover disjoint hash ranges of the chosen index. Elements are candidates only: they have not been
+     * re-checked against the filters, so each reader must apply them.
+     */
+    public Spliterator<Application> candidatesMatching(String projectId, ApplStatus status, String flatType) {
+        return smallestBucket(projectId, status, flatType).values().spliterator();
+    }
+
+    /**
+     * Per-project flat type by status counts, answered without scanning; see {@link ApplicationAggregates}.
+     */
+    public ApplicationAggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Cross-checks the aggregate counters against a full scan of the applications, not the project index,
+     * holding the repository lock so no write lands in between.
+     *
+     * @param projectId The only project to check, or null to check every project.
+     * @return One line per disagreeing counter; empty if the counters are correct.
+     */
+    public synchronized List<String> verifyAggregates(String projectId) {
+        return aggregates.verify(applicationsMap.values(), projectId);
+    }
+
+    /**
+     * Returns the applicant's live application, i.e. the latest one that has not been
+     * rejected or withdrawn. Falls back to their latest application otherwise.
+     */
+    public synchronized Application findActiveByApplicantId(String applicantId) {
+        Map<String, Application> bucket = byApplicant.get(applicantId);
+        if (bucket == null) return null;
+
+        Application latest = null;
+        Application active = null;
+        for (Application app : bucket.values()) {
+            latest = app;
+            if (app.getStatus() != ApplStatus.REJECT && app.getStatus() != ApplStatus.WITHDRAW_APPROVED) {
+                active = app;
+            }
+        }
+        return active != null ? active : latest;
+    }
+
+    /**
+     * Logs the application's current state, then re-indexes it. Status changes should go through
+     * {@link #beginWork()}, which leaves the application untouched if the log write fails.
+     *
+     * @throws IOException if the log write failed, in which case the indexes still describe the previous state.
+     */
+    public synchronized void update(Application application) throws IOException {
         if (applicationsMap.containsKey(application.getId())) {
-            applicationsMap.put(application.getId(), application);
-            saveToCsv();
+            logPut(application);
+            putIndexed(application);
         }
     }
 
-    public void delete(String id) {
-        applicationsMap.remove(id);
-        saveToCsv();
+    /**
+     * @throws IOException if the log write failed, in which case nothing is deleted.
+     */
+    public synchronized void delete(String id) throws IOException {
+        logDelete(id);
+        removeIndexed(id);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
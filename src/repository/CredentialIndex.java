@@ -0,0 +1,70 @@
+package repository;
+
+import entity.User;
+import util.VerifiedPasswordCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory NRIC to credential index used by the user repositories to authenticate
+ * without touching their CSV files. NRICs are matched case-insensitively, and passwords
+ * are checked through a {@link VerifiedPasswordCache}.
+ */
+public class CredentialIndex {
+
+    /**
+     * The login-relevant slice of a user record.
+     */
+    public static final class Credential {
+        private final String nric;
+        private final String storedPassword;
+
+        private Credential(String nric, String storedPassword) {
+            this.nric = nric;
+            this.storedPassword = storedPassword;
+        }
+
+        public String getNric() {
+            return nric;
+        }
+    }
+
+    private final Map<String, Credential> credentials = new ConcurrentHashMap<>();
+    private final VerifiedPasswordCache verifier = new VerifiedPasswordCache();
+
+    public void put(User user) {
+        if (user == null || user.getId() == null) return;
+        credentials.put(key(user.getId()), new Credential(user.getId(), user.getPassword()));
+    }
+
+    public void remove(String nric) {
+        if (nric == null) return;
+        credentials.remove(key(nric));
+        verifier.invalidate(key(nric));
+    }
+
+    public void clear() {
+        credentials.clear();
+        verifier.clear();
+    }
+
+    /**
+     * Looks up and verifies a credential.
+     *
+     * @param nric     The NRIC entered at login.
+     * @param password The password entered at login.
+     * @return The stored NRIC (in its original casing) if the password matches, otherwise null.
+     */
+    public String verify(String nric, String password) {
+        if (nric == null || password == null) return null;
+        String key = key(nric);
+        Credential credential = credentials.get(key);
+        if (credential == null) return null;
+        return verifier.verify(key, credential.storedPassword, password) ? credential.getNric() : null;
+    }
+
+    private static String key(String nric) {
+        return nric.trim().toUpperCase();
+    }
+}
@@ -0,0 +1,65 @@
+package repository;
+
+import util.DurableFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A repository's CSV file and the way its mutations reach disk: each save durably rewrites the file, or once
+ * write-behind is attached, marks it dirty for the shared flusher. Mutators save after releasing the repository
+ * lock, so concurrent mutations share one write (see {@link DurableFile}).
+ */
+final class CsvFile {
+    private final DurableFile file;
+    private volatile WriteBehind writeBehind;
+
+    /**
+     * @param path     The CSV to keep up to date.
+     * @param renderer Writes the repository's current content.
+     */
+    CsvFile(Path path, DurableFile.TextContent renderer) {
+        this.file = new DurableFile(path, renderer);
+    }
+
+    /**
+     * Routes saves through the shared write-behind flusher instead of writing on every mutation.
+     */
+    void setWriteBehind(WriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    /**
+     * Durably rewrites the file, or with write-behind attached, marks it dirty for the next flush. A failed
+     * write is reported and leaves the previous file intact.
+     */
+    void save() {
+        WriteBehind pending = writeBehind;
+        if (pending != null) {
+            pending.markDirty(file);
+            return;
+        }
+        try {
+            file.commit();
+        } catch (IOException e) {
+            System.err.println("Error saving " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Durably rewrites the file now, bypassing write-behind.
+     *
+     * @throws IOException if the write failed; with write-behind attached, the file is retried with the next flush.
+     */
+    void commit() throws IOException {
+        try {
+            file.commit();
+        } catch (IOException e) {
+            WriteBehind pending = writeBehind;
+            if (pending != null) {
+                pending.markDirty(file);
+            }
+            throw e;
+        }
+    }
+}
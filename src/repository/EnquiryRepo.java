@@ -1,18 +1,48 @@
 package repository;
 
 import entity.Enquiry;
+import util.MappedCsvReader;
+import util.Page;
+import util.SnapshotReader;
+import util.SnapshotWriter;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Repository for enquiries, indexed by project and by applicant in submission order.
+ * <p>
+ * Each enquiry is numbered when first added and the CSV is written in that order, so the order
+ * survives restarts. The indexes are skip lists keyed by that number: list queries and
+ * cursor pages ({@link #findPageByProjectIds}, {@link #findPageByApplicantId}) read them without
+ * locking and cost O(log n + page size), however many enquiries a project has. Mutations update
+ * every index under the repository lock.
+ */
 public class EnquiryRepo {
-    private final Map<String, Enquiry> enquiriesMap = new HashMap<>();
+    private final Map<String, Enquiry> enquiriesMap = new ConcurrentHashMap<>();
     private static final String ENQUIRY_FILE = "data/EnquiryList.csv";
+    private static final String ENQUIRY_SNAPSHOT = "data/EnquiryList.snap";
     private static final String DELIMITER = "|";
+    private final CsvFile csvFile = new CsvFile(Paths.get(ENQUIRY_FILE), this::writeCsv);
+
+    // Submission-order indexes, kept in step with enquiriesMap by putIndexed/removeIndexed
+    private final ConcurrentSkipListMap<Long, Enquiry> bySequence = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, Enquiry>> byProject = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, Enquiry>> unansweredByProject = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, Enquiry>> byApplicant = new ConcurrentHashMap<>();
+    // Keys each enquiry was last indexed under, since callers mutate entities in place before update(); guarded by this
+    private final Map<String, IndexKey> indexedKeys = new HashMap<>();
+    private long nextSequence;
 
     public EnquiryRepo() {
-        loadFromCsv();
+        if (!loadFromSnapshot()) {
+            loadFromCsv();
+        }
     }
 
     // ========== CSV File Operations ==========
@@ -31,15 +61,14 @@ public class EnquiryRepo {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(ENQUIRY_FILE))) {
+        try (MappedCsvReader csv = MappedCsvReader.open(Paths.get(ENQUIRY_FILE), true)) {
             // Skip header
-            br.readLine();
+            csv.nextRow();
 
-            String line;
-            while ((line = br.readLine()) != null) {
-                Enquiry enquiry = parseCsvLine(line);
+            while (csv.nextRow()) {
+                Enquiry enquiry = parseCsvRow(csv);
                 if (enquiry != null) {
-                    enquiriesMap.put(enquiry.getEnquiryId(), enquiry);
+                    putIndexed(enquiry);
                 }
             }
         } catch (Exception e) {
@@ -47,30 +76,76 @@ public class EnquiryRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ENQUIRY_FILE))) {
-            // Write header
-            pw.println(String.join(DELIMITER, "ID", "ApplicantID", "ProjectID", "Message", "Reply"));
+    public void setWriteBehind(WriteBehind writeBehind) {
+        csvFile.setWriteBehind(writeBehind);
+    }
+
+    private void writeCsv(BufferedWriter writer) throws IOException {
+        // Write header
+        writer.write(String.join(DELIMITER, "ID", "ApplicantID", "ProjectID", "Message", "Reply"));
+        writer.newLine();
+
+        // Write data, in submission order
+        for (Enquiry enquiry : bySequence.values()) {
+            writer.write(toCsvLine(enquiry));
+            writer.newLine();
+        }
+    }
 
-            // Write data
-            for (Enquiry enquiry : enquiriesMap.values()) {
-                pw.println(toCsvLine(enquiry));
+    // ========== Binary Snapshot ==========
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(ENQUIRY_SNAPSHOT);
+        if (!SnapshotReader.isFresh(path, Paths.get(ENQUIRY_FILE))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, "enquiries");
+            while (snapshot.nextRecord()) {
+                Enquiry enquiry = new Enquiry(snapshot.readString(), snapshot.readString(), snapshot.readString(),
+                        snapshot.readString(), snapshot.readString());
+                putIndexed(enquiry);
             }
+            return true;
         } catch (IOException e) {
-            System.err.println("Error saving CSV: " + e.getMessage());
+            System.err.println("Ignoring enquiry snapshot: " + e.getMessage());
+            enquiriesMap.clear();
+            bySequence.clear();
+            byProject.clear();
+            unansweredByProject.clear();
+            byApplicant.clear();
+            indexedKeys.clear();
+            nextSequence = 0;
+            return false;
         }
     }
 
-    // ========== CSV Parsing/Formatting ==========
-    private Enquiry parseCsvLine(String line) {
-        String[] parts = line.split("\\" + DELIMITER, -1);
+    /**
+     * Writes the binary snapshot used for fast startup. The CSV stays the interchange format.
+     */
+    public synchronized void writeSnapshot() {
+        SnapshotWriter snapshot = new SnapshotWriter("enquiries", Paths.get(ENQUIRY_FILE));
+        for (Enquiry enquiry : bySequence.values()) {
+            snapshot.beginRecord();
+            snapshot.writeString(enquiry.getEnquiryId());
+            snapshot.writeString(enquiry.getApplicantId());
+            snapshot.writeString(enquiry.getProjectId());
+            snapshot.writeString(enquiry.getMessage());
+            snapshot.writeString(enquiry.getReply());
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(ENQUIRY_SNAPSHOT));
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
 
+    // ========== CSV Parsing/Formatting ==========
+    private Enquiry parseCsvRow(MappedCsvReader csv) {
         try {
-            String id = unescapeCsv(parts[0]);
-            String applicantId = unescapeCsv(parts[1]);
-            String projectId = unescapeCsv(parts[2]);
-            String message = unescapeCsv(parts[3]);
-            String reply = "NULL".equals(parts[4]) ? null : unescapeCsv(parts[4]);
+            String id = unescapeCsv(csv.getString(0));
+            String applicantId = unescapeCsv(csv.getString(1));
+            String projectId = unescapeCsv(csv.getString(2));
+            String message = unescapeCsv(csv.getString(3));
+            String reply = csv.isNull(4) ? null : unescapeCsv(csv.getString(4));
             
             return new Enquiry(id, applicantId, projectId, message, reply);
         } catch (Exception e) {
@@ -89,6 +164,135 @@ public class EnquiryRepo {
         );
     }
 
+    // ========== Index Maintenance ==========
+    private static final class IndexKey {
+        private final long sequence;
+        private final String applicantId;
+        private final String projectId;
+        private final boolean unanswered;
+
+        private IndexKey(long sequence, Enquiry enquiry) {
+            this.sequence = sequence;
+            this.applicantId = Objects.toString(enquiry.getApplicantId(), "");
+            this.projectId = Objects.toString(enquiry.getProjectId(), "");
+            this.unanswered = enquiry.getReply() == null || enquiry.getReply().isEmpty();
+        }
+    }
+
+    private void putIndexed(Enquiry enquiry) {
+        String id = enquiry.getEnquiryId();
+        IndexKey previous = indexedKeys.get(id);
+        IndexKey key = new IndexKey(previous != null ? previous.sequence : nextSequence++, enquiry);
+
+        // Add under the new keys before dropping stale ones, so lock-free readers never miss the enquiry
+        enquiriesMap.put(id, enquiry);
+        bySequence.put(key.sequence, enquiry);
+        bucketOf(byApplicant, key.applicantId).put(key.sequence, enquiry);
+        bucketOf(byProject, key.projectId).put(key.sequence, enquiry);
+        if (key.unanswered) {
+            bucketOf(unansweredByProject, key.projectId).put(key.sequence, enquiry);
+        }
+        indexedKeys.put(id, key);
+
+        if (previous == null) return;
+        if (!previous.applicantId.equals(key.applicantId)) {
+            removeFromBucket(byApplicant, previous.applicantId, previous.sequence);
+        }
+        if (!previous.projectId.equals(key.projectId)) {
+            removeFromBucket(byProject, previous.projectId, previous.sequence);
+        }
+        if (previous.unanswered && (!key.unanswered || !previous.projectId.equals(key.projectId))) {
+            removeFromBucket(unansweredByProject, previous.projectId, previous.sequence);
+        }
+    }
+
+    private void removeIndexed(String id) {
+        enquiriesMap.remove(id);
+        IndexKey key = indexedKeys.remove(id);
+        if (key == null) return;
+        bySequence.remove(key.sequence);
+        removeFromBucket(byApplicant, key.applicantId, key.sequence);
+        removeFromBucket(byProject, key.projectId, key.sequence);
+        if (key.unanswered) {
+            removeFromBucket(unansweredByProject, key.projectId, key.sequence);
+        }
+    }
+
+    private static ConcurrentSkipListMap<Long, Enquiry> bucketOf(Map<String, ConcurrentSkipListMap<Long, Enquiry>> index,
+                                                                 String key) {
+        return index.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>());
+    }
+
+    private static void removeFromBucket(Map<String, ConcurrentSkipListMap<Long, Enquiry>> index, String key,
+                                         long sequence) {
+        ConcurrentSkipListMap<Long, Enquiry> bucket = index.get(key);
+        if (bucket == null) return;
+        bucket.remove(sequence);
+        if (bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    // ========== Pagination ==========
+
+    /**
+     * Merges the given submission-ordered indexes and returns the first {@code limit} enquiries after the cursor.
+     * Each index holds distinct enquiries, so this is a k-way merge of their tails.
+     */
+    private static Page<Enquiry> pageOf(List<ConcurrentSkipListMap<Long, Enquiry>> sources, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        long after = parseCursor(cursor);
+
+        PriorityQueue<MergeHead> heads = new PriorityQueue<>(Comparator.comparingLong((MergeHead h) -> h.sequence));
+        for (ConcurrentSkipListMap<Long, Enquiry> source : sources) {
+            MergeHead head = new MergeHead(source.tailMap(after, false));
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+
+        List<Enquiry> items = new ArrayList<>(Math.min(limit, 64));
+        long last = after;
+        while (!heads.isEmpty() && items.size() < limit) {
+            MergeHead head = heads.poll();
+            items.add(head.enquiry);
+            last = head.sequence;
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return new Page<>(items, heads.isEmpty() ? null : Long.toString(last));
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return -1; // Sequences start at 0
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid enquiry cursor: " + cursor);
+        }
+    }
+
+    private static final class MergeHead {
+        private final Iterator<Map.Entry<Long, Enquiry>> entries;
+        private long sequence;
+        private Enquiry enquiry;
+
+        private MergeHead(ConcurrentNavigableMap<Long, Enquiry> tail) {
+            this.entries = tail.entrySet().iterator();
+        }
+
+        private boolean advance() {
+            if (!entries.hasNext()) return false;
+            Map.Entry<Long, Enquiry> entry = entries.next();
+            sequence = entry.getKey();
+            enquiry = entry.getValue();
+            return true;
+        }
+    }
+
     // ========== Helper Methods ==========
     private String escapeCsv(String value) {
         if (value == null) return "";
@@ -106,39 +310,94 @@ public class EnquiryRepo {
 
     // ========== Business Operations ==========
     public void add(Enquiry enquiry) {
-        enquiriesMap.put(enquiry.getEnquiryId(), enquiry);
-        saveToCsv();
+        synchronized (this) {
+            putIndexed(enquiry);
+        }
+        csvFile.save();
+    }
+
+    /**
+     * Adds several enquiries with a single CSV write.
+     */
+    public void addAll(Collection<Enquiry> enquiries) {
+        if (enquiries.isEmpty()) return;
+        synchronized (this) {
+            for (Enquiry enquiry : enquiries) {
+                putIndexed(enquiry);
+            }
+        }
+        csvFile.save();
     }
 
     public Optional<Enquiry> findById(String id) {
         return Optional.ofNullable(enquiriesMap.get(id));
     }
 
+    /**
+     * @return Every enquiry, in submission order.
+     */
     public List<Enquiry> findAll() {
-        return new ArrayList<>(enquiriesMap.values());
+        return new ArrayList<>(bySequence.values());
+    }
+
+    public int size() {
+        return enquiriesMap.size();
     }
 
     public List<Enquiry> findByApplicantId(String applicantId) {
-        return enquiriesMap.values().stream()
-                .filter(enquiry -> enquiry.getApplicantId().equals(applicantId))
-                .collect(Collectors.toList());
+        return listOf(byApplicant.get(applicantId));
     }
 
     public List<Enquiry> findByProjectId(String projectId) {
-        return enquiriesMap.values().stream()
-                .filter(enquiry -> enquiry.getProjectId().equals(projectId))
-                .collect(Collectors.toList());
+        return listOf(byProject.get(projectId));
+    }
+
+    /**
+     * Returns one page of the enquiries about any of the given projects, oldest first.
+     *
+     * @param cursor         Null for the first page, otherwise the previous page's {@link Page#getNextCursor()}.
+     * @param limit          The maximum number of enquiries on the page.
+     * @param unansweredOnly Whether to skip enquiries that already have a reply.
+     */
+    public Page<Enquiry> findPageByProjectIds(Collection<String> projectIds, String cursor, int limit,
+                                              boolean unansweredOnly) {
+        Map<String, ConcurrentSkipListMap<Long, Enquiry>> index = unansweredOnly ? unansweredByProject : byProject;
+        List<ConcurrentSkipListMap<Long, Enquiry>> sources = new ArrayList<>(projectIds.size());
+        for (String projectId : new LinkedHashSet<>(projectIds)) {
+            ConcurrentSkipListMap<Long, Enquiry> bucket = index.get(projectId);
+            if (bucket != null) {
+                sources.add(bucket);
+            }
+        }
+        return pageOf(sources, cursor, limit);
+    }
+
+    /**
+     * Returns one page of an applicant's enquiries, oldest first.
+     *
+     * @param cursor Null for the first page, otherwise the previous page's {@link Page#getNextCursor()}.
+     */
+    public Page<Enquiry> findPageByApplicantId(String applicantId, String cursor, int limit) {
+        ConcurrentSkipListMap<Long, Enquiry> bucket = byApplicant.get(applicantId);
+        return pageOf(bucket == null ? List.of() : List.of(bucket), cursor, limit);
+    }
+
+    private static List<Enquiry> listOf(ConcurrentSkipListMap<Long, Enquiry> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
     }
 
     public void update(Enquiry enquiry) {
-        if (enquiriesMap.containsKey(enquiry.getEnquiryId())) {
-            enquiriesMap.put(enquiry.getEnquiryId(), enquiry);
-            saveToCsv();
+        synchronized (this) {
+            if (!enquiriesMap.containsKey(enquiry.getEnquiryId())) return;
+            putIndexed(enquiry);
         }
+        csvFile.save();
     }
 
     public void delete(String id) {
-        enquiriesMap.remove(id);
-        saveToCsv();
+        synchronized (this) {
+            removeIndexed(id);
+        }
+        csvFile.save();
     }
 }
\ No newline at end of file
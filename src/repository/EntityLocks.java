@@ -0,0 +1,32 @@
+package repository;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-entity locks. Services take the lock for an entity ID around
+ * check-then-act sequences (e.g. "no active application, so create one") so that
+ * concurrent sessions see them as atomic, without a global lock.
+ */
+public class EntityLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    public EntityLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public EntityLocks(int stripeCount) {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock lockFor(String id) {
+        int hash = id == null ? 0 : id.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+}
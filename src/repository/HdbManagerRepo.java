@@ -4,79 +4,78 @@ import entity.HdbManager;
 import pub_enums.MaritalStatus;
 import pub_enums.Role;
 
+import util.DateFormats;
+import util.MappedCsvReader;
+import util.PasswordHasher;
+import util.SnapshotReader;
+import util.SnapshotWriter;
+
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HdbManagerRepo {
 
     private static final String FILE_PATH = "data/ManagerList.csv";
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("dd MM yyyy");
-    private final Map<String, HdbManager> managersMap = new HashMap<>();
+    private static final String SNAPSHOT_PATH = "data/ManagerList.snap";
+    private final Map<String, HdbManager> managersMap = new ConcurrentHashMap<>();
+    private final CredentialIndex credentialIndex = new CredentialIndex();
+    private final CsvFile csvFile = new CsvFile(Paths.get(FILE_PATH), this::writeCsv);
+    private UserDirectory directory;
 
     public HdbManagerRepo() {
-        loadFromCsv();
+        if (!loadFromSnapshot()) {
+            loadFromCsv();
+        }
+    }
+
+    /**
+     * Registers the shared user directory and seeds it with every loaded manager.
+     */
+    void attachDirectory(UserDirectory directory) {
+        this.directory = directory;
+        managersMap.values().forEach(directory::put);
     }
 
     // ==================== Authentication ====================
     public HdbManager authenticate(String nric, String password) {
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            String line;
-            reader.readLine(); // skip header
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|");
-                if (tokens.length >= 6) {
-                    try {
-                        String fileNric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        String dobStr = tokens[2].trim();
-                        String maritalStatusStr = tokens[3].trim();
-                        // tokens[4] is Role (ignored)
-                        String filePassword = tokens[5].trim();
-
-                        Date dob = sdf.parse(dobStr);
-
-                        if (fileNric.equalsIgnoreCase(nric) && filePassword.equals(password)) {
-                            MaritalStatus maritalStatus = MaritalStatus.valueOf(maritalStatusStr.toUpperCase());
-                            return new HdbManager(name, fileNric, dob, maritalStatus, filePassword, Role.HDBMANAGER, new ArrayList<>());
-                        }
-
-                    } catch (ParseException | IllegalArgumentException e) {
-                        System.out.println("Login error (Manager): " + e.getMessage());
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Login error (Manager): " + e.getMessage());
+        String id = credentialIndex.verify(nric, password);
+        if (id == null) return null;
+
+        HdbManager manager = managersMap.get(id);
+        if (manager != null && PasswordHasher.needsRehash(manager.getPassword())) {
+            // Upgrade a plaintext or outdated hash now that the password is known
+            manager.setPassword(PasswordHasher.hash(password));
+            update(manager);
         }
-        return null;
+        return manager;
     }
 
     // ==================== CSV Sync ====================
     private void loadFromCsv() {
         managersMap.clear();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            reader.readLine(); // skip header
-            String line;
+        credentialIndex.clear();
+        try (MappedCsvReader csv = MappedCsvReader.open(Paths.get(FILE_PATH), false)) {
+            csv.nextRow(); // skip header
 
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|");
-                if (tokens.length >= 6) {
+            while (csv.nextRow()) {
+                if (csv.fieldCount() >= 6) {
                     try {
-                        String nric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        Date dob = sdf.parse(tokens[2].trim());
-                        MaritalStatus maritalStatus = MaritalStatus.valueOf(tokens[3].trim().toUpperCase());
-                        // tokens[4] is Role (ignored)
-                        String password = tokens[5].trim();
+                        String nric = csv.getString(0);
+                        String name = csv.getString(1);
+                        Date dob = csv.getDate(2);
+                        MaritalStatus maritalStatus = csv.getEnum(3, MaritalStatus.class);
+                        // field 4 is Role (ignored)
+                        String password = csv.getString(5);
 
                         HdbManager manager = new HdbManager(name, nric, dob, maritalStatus, password, Role.HDBMANAGER, new ArrayList<>());
                         managersMap.put(nric, manager);
-                    } catch (ParseException | IllegalArgumentException e) {
+                        credentialIndex.put(manager);
+                    } catch (DateTimeParseException | IllegalArgumentException e) {
                         System.out.println("Skipping invalid Manager CSV row: " + e.getMessage());
                     }
                 }
@@ -86,29 +85,80 @@ public class HdbManagerRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(FILE_PATH))) {
-            writer.write("NRIC|Name|DOB|MaritalStatus|Role|Password");
+    public void setWriteBehind(WriteBehind writeBehind) {
+        csvFile.setWriteBehind(writeBehind);
+    }
+
+    private void writeCsv(BufferedWriter writer) throws IOException {
+        writer.write("NRIC|Name|DOB|MaritalStatus|Role|Password");
+        writer.newLine();
+        for (HdbManager m : managersMap.values()) {
+            writer.write(String.join("|",
+                    m.getId(),
+                    m.getName(),
+                    DateFormats.formatCsvDate(m.getDob()),
+                    m.getMaritalStatus().name(),
+                    m.getRole().name(),
+                    m.getPassword()));
             writer.newLine();
-            for (HdbManager m : managersMap.values()) {
-                writer.write(String.join("|",
-                        m.getId(),
-                        m.getName(),
-                        sdf.format(m.getDob()),
-                        m.getMaritalStatus().name(),
-                        m.getRole().name(),
-                        m.getPassword()));
-                writer.newLine();
+        }
+    }
+
+    // ==================== Snapshot ====================
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(SNAPSHOT_PATH);
+        if (!SnapshotReader.isFresh(path, Paths.get(FILE_PATH))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, "managers");
+            while (snapshot.nextRecord()) {
+                String nric = snapshot.readString();
+                String name = snapshot.readString();
+                Date dob = snapshot.readDate();
+                MaritalStatus maritalStatus = snapshot.readEnum(MaritalStatus.class);
+                String password = snapshot.readString();
+
+                HdbManager manager = new HdbManager(name, nric, dob, maritalStatus, password, Role.HDBMANAGER, new ArrayList<>());
+                managersMap.put(nric, manager);
+                credentialIndex.put(manager);
             }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Ignoring manager snapshot: " + e.getMessage());
+            managersMap.clear();
+            credentialIndex.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the binary snapshot used for fast startup. The CSV stays the interchange format.
+     */
+    public synchronized void writeSnapshot() {
+        SnapshotWriter snapshot = new SnapshotWriter("managers", Paths.get(FILE_PATH));
+        for (HdbManager manager : managersMap.values()) {
+            snapshot.beginRecord();
+            snapshot.writeString(manager.getId());
+            snapshot.writeString(manager.getName());
+            snapshot.writeDate(manager.getDob());
+            snapshot.writeEnum(manager.getMaritalStatus());
+            snapshot.writeString(manager.getPassword());
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(SNAPSHOT_PATH));
         } catch (IOException e) {
-            System.out.println("Failed to save managers: " + e.getMessage());
+            System.out.println("Failed to write manager snapshot: " + e.getMessage());
         }
     }
 
     // ==================== Business Operations ====================
     public void add(HdbManager manager) {
-        managersMap.put(manager.getId(), manager);
-        saveToCsv();
+        synchronized (this) {
+            managersMap.put(manager.getId(), manager);
+            credentialIndex.put(manager);
+            if (directory != null) directory.put(manager);
+        }
+        csvFile.save();
     }
 
     public Optional<HdbManager> findById(String id) {
@@ -119,15 +169,26 @@ public class HdbManagerRepo {
         return new ArrayList<>(managersMap.values());
     }
 
+    public int size() {
+        return managersMap.size();
+    }
+
     public void update(HdbManager manager) {
-        if (managersMap.containsKey(manager.getId())) {
+        synchronized (this) {
+            if (!managersMap.containsKey(manager.getId())) return;
             managersMap.put(manager.getId(), manager);
-            saveToCsv();
+            credentialIndex.put(manager);
+            if (directory != null) directory.put(manager);
         }
+        csvFile.save();
     }
 
     public void delete(String id) {
-        managersMap.remove(id);
-        saveToCsv();
+        synchronized (this) {
+            managersMap.remove(id);
+            credentialIndex.remove(id);
+            if (directory != null) directory.remove(id);
+        }
+        csvFile.save();
     }
 }
\ No newline at end of file
@@ -5,82 +5,80 @@ import pub_enums.MaritalStatus;
 import pub_enums.OfficerStatus;
 import pub_enums.Role;
 
+import util.DateFormats;
+import util.MappedCsvReader;
+import util.PasswordHasher;
+import util.SnapshotReader;
+import util.SnapshotWriter;
+
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HdbOfficerRepo {
 
     private static final String FILE_PATH = "data/OfficerList.csv";
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("dd MM yyyy");
-    private final Map<String, HdbOfficer> officersMap = new HashMap<>();
+    private static final String SNAPSHOT_PATH = "data/OfficerList.snap";
+    private final Map<String, HdbOfficer> officersMap = new ConcurrentHashMap<>();
+    private final CredentialIndex credentialIndex = new CredentialIndex();
+    private final CsvFile csvFile = new CsvFile(Paths.get(FILE_PATH), this::writeCsv);
+    private UserDirectory directory;
 
     public HdbOfficerRepo() {
-        loadFromCsv();
+        if (!loadFromSnapshot()) {
+            loadFromCsv();
+        }
+    }
+
+    /**
+     * Registers the shared user directory and seeds it with every loaded officer.
+     */
+    void attachDirectory(UserDirectory directory) {
+        this.directory = directory;
+        officersMap.values().forEach(directory::put);
     }
 
     // ==================== Authentication ====================
     public HdbOfficer authenticate(String nric, String password) {
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            String line;
-            reader.readLine(); // skip header
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|");
-                if (tokens.length >= 7) {
-                    try {
-                        String fileNric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        String dobStr = tokens[2].trim();
-                        String maritalStatusStr = tokens[3].trim();
-                        // tokens[4] is Role (ignored)
-                        String filePassword = tokens[5].trim();
-                        // tokens[6] is Status (ignored unless needed)
-
-                        Date dob = sdf.parse(dobStr);
-
-                        if (fileNric.equalsIgnoreCase(nric) && filePassword.equals(password)) {
-                            MaritalStatus maritalStatus = MaritalStatus.valueOf(maritalStatusStr.toUpperCase());
-                            return new HdbOfficer(name, fileNric, dob, maritalStatus, filePassword, Role.HDBOFFICER, null, new ArrayList<>(), new ArrayList<>());
-                        }
-
-                    } catch (ParseException | IllegalArgumentException e) {
-                        System.out.println("Login error (Officer): " + e.getMessage());
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.out.println("Login error (Officer): " + e.getMessage());
+        String id = credentialIndex.verify(nric, password);
+        if (id == null) return null;
+
+        HdbOfficer officer = officersMap.get(id);
+        if (officer != null && PasswordHasher.needsRehash(officer.getPassword())) {
+            // Upgrade a plaintext or outdated hash now that the password is known
+            officer.setPassword(PasswordHasher.hash(password));
+            update(officer);
         }
-        return null;
+        return officer;
     }
 
     // ==================== CSV Sync ====================
     private void loadFromCsv() {
         officersMap.clear();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(FILE_PATH))) {
-            reader.readLine(); // skip header
-            String line;
+        credentialIndex.clear();
+        try (MappedCsvReader csv = MappedCsvReader.open(Paths.get(FILE_PATH), false)) {
+            csv.nextRow(); // skip header
 
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\|");
-                if (tokens.length >= 7) {
+            while (csv.nextRow()) {
+                if (csv.fieldCount() >= 7) {
                     try {
-                        String nric = tokens[0].trim();
-                        String name = tokens[1].trim();
-                        Date dob = sdf.parse(tokens[2].trim());
-                        MaritalStatus maritalStatus = MaritalStatus.valueOf(tokens[3].trim().toUpperCase());
-                        // tokens[4] is Role (ignored)
-                        String password = tokens[5].trim();
-                        OfficerStatus status = OfficerStatus.valueOf(tokens[6].trim().toUpperCase());
+                        String nric = csv.getString(0);
+                        String name = csv.getString(1);
+                        Date dob = csv.getDate(2);
+                        MaritalStatus maritalStatus = csv.getEnum(3, MaritalStatus.class);
+                        // field 4 is Role (ignored)
+                        String password = csv.getString(5);
+                        OfficerStatus status = csv.getEnum(6, OfficerStatus.class);
 
                         HdbOfficer officer = new HdbOfficer(name, nric, dob, maritalStatus, password, Role.HDBOFFICER, null, new ArrayList<>(), new ArrayList<>());
                         officer.setStatus(status);
                         officersMap.put(nric, officer);
-                    } catch (ParseException | IllegalArgumentException e) {
+                        credentialIndex.put(officer);
+                    } catch (DateTimeParseException | IllegalArgumentException e) {
                         System.out.println("Skipping invalid Officer CSV row: " + e.getMessage());
                     }
                 }
@@ -90,30 +88,84 @@ public class HdbOfficerRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(FILE_PATH))) {
-            writer.write("ID|Name|DOB|MaritalStatus|Role|Password|Status");
+    public void setWriteBehind(WriteBehind writeBehind) {
+        csvFile.setWriteBehind(writeBehind);
+    }
+
+    private void writeCsv(BufferedWriter writer) throws IOException {
+        writer.write("ID|Name|DOB|MaritalStatus|Role|Password|Status");
+        writer.newLine();
+        for (HdbOfficer o : officersMap.values()) {
+            writer.write(String.join("|",
+                    o.getId(),
+                    o.getName(),
+                    DateFormats.formatCsvDate(o.getDob()),
+                    o.getMaritalStatus().name(),
+                    o.getRole().name(),
+                    o.getPassword(),
+                    String.valueOf(o.getStatus())));
             writer.newLine();
-            for (HdbOfficer o : officersMap.values()) {
-                writer.write(String.join("|",
-                        o.getId(),
-                        o.getName(),
-                        sdf.format(o.getDob()),
-                        o.getMaritalStatus().name(),
-                        o.getRole().name(),
-                        o.getPassword(),
-                        String.valueOf(o.getStatus())));
-                writer.newLine();
+        }
+    }
+
+    // ==================== Snapshot ====================
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(SNAPSHOT_PATH);
+        if (!SnapshotReader.isFresh(path, Paths.get(FILE_PATH))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, "officers");
+            while (snapshot.nextRecord()) {
+                String nric = snapshot.readString();
+                String name = snapshot.readString();
+                Date dob = snapshot.readDate();
+                MaritalStatus maritalStatus = snapshot.readEnum(MaritalStatus.class);
+                String password = snapshot.readString();
+                OfficerStatus status = snapshot.readEnum(OfficerStatus.class);
+
+                HdbOfficer officer = new HdbOfficer(name, nric, dob, maritalStatus, password, Role.HDBOFFICER, null, new ArrayList<>(), new ArrayList<>());
+                officer.setStatus(status);
+                officersMap.put(nric, officer);
+                credentialIndex.put(officer);
             }
+            return true;
+        } catch (IOException e) {
+            System.out.println("Ignoring officer snapshot: " + e.getMessage());
+            officersMap.clear();
+            credentialIndex.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the binary snapshot used for fast startup. The CSV stays the interchange format.
+     */
+    public synchronized void writeSnapshot() {
+        SnapshotWriter snapshot = new SnapshotWriter("officers", Paths.get(FILE_PATH));
+        for (HdbOfficer officer : officersMap.values()) {
+            snapshot.beginRecord();
+            snapshot.writeString(officer.getId());
+            snapshot.writeString(officer.getName());
+            snapshot.writeDate(officer.getDob());
+            snapshot.writeEnum(officer.getMaritalStatus());
+            snapshot.writeString(officer.getPassword());
+            snapshot.writeEnum(officer.getStatus());
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(SNAPSHOT_PATH));
         } catch (IOException e) {
-            System.out.println("Failed to save officers: " + e.getMessage());
+            System.out.println("Failed to write officer snapshot: " + e.getMessage());
         }
     }
 
     // ==================== Business Operations ====================
     public void add(HdbOfficer officer) {
-        officersMap.put(officer.getId(), officer);
-        saveToCsv();
+        synchronized (this) {
+            officersMap.put(officer.getId(), officer);
+            credentialIndex.put(officer);
+            if (directory != null) directory.put(officer);
+        }
+        csvFile.save();
     }
 
     public Optional<HdbOfficer> findById(String id) {
@@ -124,15 +176,26 @@ public class HdbOfficerRepo {
         return new ArrayList<>(officersMap.values());
     }
 
+    public int size() {
+        return officersMap.size();
+    }
+
     public void update(HdbOfficer officer) {
-        if (officersMap.containsKey(officer.getId())) {
+        synchronized (this) {
+            if (!officersMap.containsKey(officer.getId())) return;
             officersMap.put(officer.getId(), officer);
-            saveToCsv();
+            credentialIndex.put(officer);
+            if (directory != null) directory.put(officer);
         }
+        csvFile.save();
     }
 
     public void delete(String id) {
-        officersMap.remove(id);
-        saveToCsv();
+        synchronized (this) {
+            officersMap.remove(id);
+            credentialIndex.remove(id);
+            if (directory != null) directory.remove(id);
+        }
+        csvFile.save();
     }
 }
\ No newline at end of file
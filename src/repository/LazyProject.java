@@ -0,0 +1,139 @@
+package repository;
+
+import entity.Flat;
+import entity.HdbManager;
+import entity.HdbOfficer;
+import entity.Project;
+import pub_enums.FlatType;
+
+import java.util.*;
+
+/**
+ * A project loaded from CSV as a header only (ID, name, neighbourhood, dates, visibility, slots).
+ * Its manager, officers and flats are kept as the raw CSV fields and resolved through
+ * {@link ProjectRepo} the first time they are read, then memoised. Setting any of them
+ * replaces the raw field. The ID-level accessors used for indexing never force resolution.
+ */
+class LazyProject extends Project {
+    private final ProjectRepo repo;
+
+    // Raw CSV fields, dropped once resolved
+    private String managerIdField;
+    private String officerIdsField;
+    private String flatsField;
+    private final EnumSet<FlatType> headerFlatTypes;
+
+    private volatile boolean managerResolved;
+    private volatile boolean officersResolved;
+    private volatile boolean flatsResolved;
+
+    LazyProject(ProjectRepo repo, String projName, String projId, Boolean visible, String neighbourhood,
+                Date appOpen, Date appClose, Integer officerSlots,
+                String managerIdField, String officerIdsField, String flatsField, EnumSet<FlatType> flatTypes) {
+        super(projName, projId, visible, neighbourhood, null, appOpen, appClose, null, null, officerSlots);
+        this.repo = repo;
+        this.managerIdField = managerIdField;
+        this.officerIdsField = officerIdsField;
+        this.flatsField = flatsField;
+        this.headerFlatTypes = flatTypes;
+    }
+
+    // ========== Lazy Resolution ==========
+    @Override
+    public HdbManager getManager() {
+        if (!managerResolved) {
+            synchronized (this) {
+                if (!managerResolved) {
+                    super.setManager(repo.resolveManager(managerIdField));
+                    managerIdField = null;
+                    managerResolved = true;
+                }
+            }
+        }
+        return super.getManager();
+    }
+
+    @Override
+    public synchronized void setManager(HdbManager manager) {
+        super.setManager(manager);
+        managerIdField = null;
+        managerResolved = true;
+    }
+
+    @Override
+    public List<HdbOfficer> getOfficers() {
+        if (!officersResolved) {
+            synchronized (this) {
+                if (!officersResolved) {
+                    super.setOfficers(repo.resolveOfficers(officerIdsField));
+                    officerIdsField = null;
+                    officersResolved = true;
+                }
+            }
+        }
+        return super.getOfficers();
+    }
+
+    @Override
+    public synchronized void setOfficers(List<HdbOfficer> officers) {
+        super.setOfficers(officers);
+        officerIdsField = null;
+        officersResolved = true;
+    }
+
+    @Override
+    public List<Flat> getFlats() {
+        if (!flatsResolved) {
+            synchronized (this) {
+                if (!flatsResolved) {
+                    super.setFlats(repo.resolveFlats(getProjectId(), flatsField));
+                    flatsField = null;
+                    flatsResolved = true;
+                }
+            }
+        }
+        return super.getFlats();
+    }
+
+    @Override
+    public synchronized void setFlats(List<Flat> flats) {
+        super.setFlats(flats);
+        flatsField = null;
+        flatsResolved = true;
+    }
+
+    // ========== Header Accessors ==========
+    @Override
+    public String getManagerId() {
+        synchronized (this) {
+            if (!managerResolved) return managerIdField;
+        }
+        return super.getManagerId();
+    }
+
+    @Override
+    public List<String> getOfficerIds() {
+        synchronized (this) {
+            if (!officersResolved) {
+                return officerIdsField == null ? new ArrayList<>()
+                        : new ArrayList<>(Arrays.asList(officerIdsField.split(ProjectRepo.OFFICERS_SEPARATOR)));
+            }
+        }
+        return super.getOfficerIds();
+    }
+
+    @Override
+    public Set<FlatType> getFlatTypes() {
+        synchronized (this) {
+            if (!flatsResolved) return EnumSet.copyOf(headerFlatTypes);
+        }
+        return super.getFlatTypes();
+    }
+
+    /**
+     * @return The raw flats field if the flats have not been resolved yet, so saving can write it back untouched.
+     */
+    synchronized String unresolvedFlatsField() {
+        return flatsResolved ? null : flatsField;
+    }
+}
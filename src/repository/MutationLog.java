@@ -0,0 +1,246 @@
+package repository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only mutation log kept next to a repository's CSV snapshot.
+ * Each record is a single line of the form {@code seq|P|payload} (put) or {@code seq|D|id} (delete),
+ * so a write costs one append regardless of how many rows the snapshot holds. Every append is fsynced before
+ * it returns, so a write that returns normally survives a power failure.
+ * The owning repository periodically compacts the log into its CSV and replays it on load.
+ * <p>
+ * A transaction is a block {@code seq|B|n}, n put/delete records, {@code seq|C|n}, appended in one
+ * write and fsynced. Replay applies a block only if its commit line is present, so a torn block is dropped whole.
+ */
+public class MutationLog {
+    private static final String DELIMITER = "|";
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+    private static final String BEGIN = "B";
+    private static final String COMMIT = "C";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    /**
+     * Callback used while replaying records on top of a loaded snapshot.
+     */
+    public interface Replayer {
+        void put(String payload);
+
+        void delete(String id);
+    }
+
+    /**
+     * One record of a transaction block.
+     */
+    public static final class Record {
+        private final String type;
+        private final String payload;
+
+        private Record(String type, String payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public static Record put(String payload) {
+            return new Record(PUT, payload);
+        }
+
+        public static Record delete(String id) {
+            return new Record(DELETE, id);
+        }
+    }
+
+    private final Path logPath;
+    private final Path compactingPath;
+    private FileOutputStream stream;
+    private BufferedWriter writer;
+    private long sequence;
+    private int pendingRecords;
+
+    public MutationLog(String logFile) {
+        this.logPath = Paths.get(logFile);
+        this.compactingPath = Paths.get(logFile + COMPACTING_SUFFIX);
+    }
+
+    // ========== Replay ==========
+
+    /**
+     * Replays every record left over from a previous run, oldest segment first.
+     * Records are full-state puts/deletes, so replaying a segment that was already
+     * compacted into the snapshot is harmless.
+     *
+     * @param replayer Receives each record in sequence order.
+     */
+    public synchronized void replay(Replayer replayer) {
+        for (Path segment : List.of(compactingPath, logPath)) {
+            if (!Files.exists(segment)) continue;
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                List<String[]> block = null; // Records of an open transaction, applied at its commit line
+                String blockSeq = null;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\\" + DELIMITER, 3);
+                    if (parts.length < 3) continue; // Torn trailing write
+                    try {
+                        sequence = Math.max(sequence, Long.parseLong(parts[0]));
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    if (block != null && !parts[0].equals(blockSeq)) {
+                        block = null; // Torn transaction: its commit line never made it to disk
+                    }
+                    if (BEGIN.equals(parts[1])) {
+                        block = new ArrayList<>();
+                        blockSeq = parts[0];
+                    } else if (COMMIT.equals(parts[1])) {
+                        if (block != null && String.valueOf(block.size()).equals(parts[2])) {
+                            for (String[] record : block) {
+                                apply(record, replayer);
+                            }
+                            if (segment.equals(logPath)) pendingRecords += block.size();
+                        }
+                        block = null;
+                    } else if (block != null) {
+                        block.add(parts);
+                    } else {
+                        apply(parts, replayer);
+                        if (segment.equals(logPath)) pendingRecords++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error replaying mutation log " + segment + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void apply(String[] record, Replayer replayer) {
+        if (PUT.equals(record[1])) {
+            replayer.put(record[2]);
+        } else if (DELETE.equals(record[1])) {
+            replayer.delete(record[2]);
+        }
+        // Link records (L) from older logs are skipped; applicant links are now derived on load
+    }
+
+    // ========== Appends ==========
+
+    /**
+     * @throws IOException if the record could not be written; it will not be replayed.
+     */
+    public synchronized long appendPut(String payload) throws IOException {
+        return append(PUT, payload);
+    }
+
+    /**
+     * @throws IOException if the record could not be written; it will not be replayed.
+     */
+    public synchronized long appendDelete(String id) throws IOException {
+        return append(DELETE, id);
+    }
+
+    /**
+     * Appends a transaction as one block in a single write, so it is all-or-nothing on replay.
+     *
+     * @throws IOException if the block could not be written; it will not be replayed.
+     */
+    public synchronized long appendTransaction(List<Record> records) throws IOException {
+        long seq = ++sequence;
+        StringBuilder block = new StringBuilder();
+        String prefix = seq + DELIMITER;
+        block.append(prefix).append(BEGIN).append(DELIMITER).append(records.size()).append(System.lineSeparator());
+        for (Record record : records) {
+            block.append(prefix).append(record.type).append(DELIMITER).append(record.payload).append(System.lineSeparator());
+        }
+        block.append(prefix).append(COMMIT).append(DELIMITER).append(records.size()).append(System.lineSeparator());
+
+        write(block.toString());
+        pendingRecords += records.size();
+        return seq;
+    }
+
+    private void openWriter() throws IOException {
+        if (writer == null) {
+            stream = new FileOutputStream(logPath.toFile(), true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+    }
+
+    private long append(String type, String payload) throws IOException {
+        long seq = ++sequence;
+        write(seq + DELIMITER + type + DELIMITER + payload + System.lineSeparator());
+        pendingRecords++;
+        return seq;
+    }
+
+    private void write(String lines) throws IOException {
+        openWriter();
+        writer.write(lines);
+        writer.flush();
+        stream.getChannel().force(false);
+    }
+
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    // ========== Compaction ==========
+
+    /**
+     * Seals the active log so it can be folded into a snapshot. Writes after this call
+     * go to a fresh log. Must be called while the caller holds the lock that guards
+     * the state being snapshotted, so the snapshot covers every sealed record.
+     */
+    public synchronized void seal() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+                stream = null;
+            }
+            if (Files.exists(logPath)) {
+                if (Files.exists(compactingPath)) {
+                    // A previous compaction never finished; keep its records ahead of ours
+                    appendSegment(logPath, compactingPath);
+                    Files.delete(logPath);
+                } else {
+                    Files.move(logPath, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            pendingRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Error sealing mutation log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Discards the sealed segment once its snapshot has been durably written.
+     */
+    public synchronized void discardSealed() {
+        try {
+            Files.deleteIfExists(compactingPath);
+        } catch (IOException e) {
+            System.err.println("Error discarding compacted mutation log: " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+                stream = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing mutation log: " + e.getMessage());
+        }
+    }
+
+    private void appendSegment(Path from, Path to) throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(from, StandardCharsets.UTF_8));
+        Files.write(to, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,283 @@
+package repository;
+
+import entity.Project;
+import pub_enums.FlatType;
+
+import java.util.*;
+
+/**
+ * Inverted indexes over the project list, kept current by {@link ProjectRepo}.
+ * Answers the project filter maps used by the services by intersecting posting sets
+ * instead of testing every filter against every project.
+ * <p>
+ * Also serves as the officer-project assignment index in both directions: {@link #findByOfficerId}
+ * and {@link #findOfficerIds}, with {@link #hasOfficer} for O(1) authorisation checks.
+ * <p>
+ * Recognised filter keys (case-insensitive): {@code neighbourhood}, {@code flatType},
+ * {@code projectName}/{@code name} (substring match), {@code visible}, {@code managerId}
+ * and {@code officerId}. Blank values and unknown keys are ignored.
+ */
+public class ProjectCatalogue {
+    private static final int GRAM = 3;
+
+    private final Map<String, Set<String>> byNeighbourhood = new HashMap<>();
+    private final Map<FlatType, Set<String>> byFlatType = new EnumMap<>(FlatType.class);
+    private final Map<Boolean, Set<String>> byVisibility = new HashMap<>();
+    private final Map<String, Set<String>> byManager = new HashMap<>();
+    private final Map<String, Set<String>> byOfficer = new HashMap<>();
+    private final Map<String, Set<String>> byNameGram = new HashMap<>();
+    private final Map<String, String> lowerNames = new HashMap<>();
+    // Keys each project was last indexed under, since services mutate projects in place before update()
+    private final Map<String, IndexKey> indexedKeys = new HashMap<>();
+    // Bumped on every change so derived caches (e.g. eligibility bitmaps) know to rebuild
+    private long version;
+
+    private static final class IndexKey {
+        private final String neighbourhood;
+        private final Set<FlatType> flatTypes = EnumSet.noneOf(FlatType.class);
+        private final boolean visible;
+        private final String managerId;
+        private final Set<String> officerIds = new HashSet<>();
+
+        private IndexKey(Project project) {
+            // ID-level accessors, so indexing does not resolve lazily loaded projects
+            this.neighbourhood = project.getNeighbourhood() != null ? project.getNeighbourhood().toLowerCase() : null;
+            flatTypes.addAll(project.getFlatTypes());
+            this.visible = Boolean.TRUE.equals(project.getVisible());
+            this.managerId = project.getManagerId();
+            officerIds.addAll(project.getOfficerIds());
+        }
+    }
+
+    // ========== Index Maintenance ==========
+    public synchronized void index(Project project) {
+        String id = project.getProjectId();
+        unindex(id);
+        IndexKey key = new IndexKey(project);
+        indexedKeys.put(id, key);
+        version++;
+        String lowerName = project.getProjName() != null ? project.getProjName().toLowerCase() : "";
+        lowerNames.put(id, lowerName);
+
+        if (key.neighbourhood != null) post(byNeighbourhood, key.neighbourhood, id);
+        for (FlatType type : key.flatTypes) post(byFlatType, type, id);
+        post(byVisibility, key.visible, id);
+        if (key.managerId != null) post(byManager, key.managerId, id);
+        for (String officerId : key.officerIds) post(byOfficer, officerId, id);
+        for (String gram : grams(lowerName)) post(byNameGram, gram, id);
+    }
+
+    public synchronized void unindex(String projectId) {
+        IndexKey key = indexedKeys.remove(projectId);
+        String lowerName = lowerNames.remove(projectId); // Grams are recomputed from it rather than stored per project
+        if (key == null) return;
+        version++;
+
+        if (key.neighbourhood != null) unpost(byNeighbourhood, key.neighbourhood, projectId);
+        for (FlatType type : key.flatTypes) unpost(byFlatType, type, projectId);
+        unpost(byVisibility, key.visible, projectId);
+        if (key.managerId != null) unpost(byManager, key.managerId, projectId);
+        for (String officerId : key.officerIds) unpost(byOfficer, officerId, projectId);
+        if (lowerName != null) {
+            for (String gram : grams(lowerName)) unpost(byNameGram, gram, projectId);
+        }
+    }
+
+    public synchronized void clear() {
+        byNeighbourhood.clear();
+        byFlatType.clear();
+        byVisibility.clear();
+        byManager.clear();
+        byOfficer.clear();
+        byNameGram.clear();
+        lowerNames.clear();
+        indexedKeys.clear();
+        version++;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // ========== Queries ==========
+
+    /**
+     * Resolves a filter map to the IDs of matching projects.
+     *
+     * @param filters Filter criteria; may be null or empty.
+     * @return IDs of every project satisfying all recognised filters.
+     */
+    public Set<String> search(Map<String, String> filters) {
+        return search(filters, null);
+    }
+
+    /**
+     * Resolves a filter map to the IDs of matching projects, honouring only the given keys.
+     *
+     * @param filters     Filter criteria; may be null or empty.
+     * @param allowedKeys Lower-case filter keys the caller supports, or null for all.
+     * @return IDs of every project satisfying all recognised, allowed filters.
+     */
+    public synchronized Set<String> search(Map<String, String> filters, Set<String> allowedKeys) {
+        List<Set<String>> postings = new ArrayList<>();
+        List<String> nameQueries = new ArrayList<>();
+
+        if (filters != null) {
+            for (Map.Entry<String, String> entry : filters.entrySet()) {
+                if (entry.getKey() == null) continue;
+                String key = entry.getKey().toLowerCase();
+                String value = entry.getValue();
+                if (value == null || value.trim().isEmpty()) continue; // Skip empty filter values
+                if (allowedKeys != null && !allowedKeys.contains(key)) continue;
+
+                switch (key) {
+                    case "neighbourhood":
+                        postings.add(postingOf(byNeighbourhood, value.toLowerCase()));
+                        break;
+                    case "flattype":
+                        try {
+                            postings.add(postingOf(byFlatType, FlatType.valueOf(value.trim().toUpperCase())));
+                        } catch (IllegalArgumentException e) {
+                            return new HashSet<>(); // Invalid flat type string matches nothing
+                        }
+                        break;
+                    case "projectname":
+                    case "name":
+                        String nameQuery = value.toLowerCase();
+                        nameQueries.add(nameQuery);
+                        postings.add(nameCandidates(nameQuery));
+                        break;
+                    case "visible":
+                        boolean visible = "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value);
+                        postings.add(postingOf(byVisibility, visible));
+                        break;
+                    case "managerid":
+                        postings.add(postingOf(byManager, value));
+                        break;
+                    case "officerid":
+                        postings.add(postingOf(byOfficer, value));
+                        break;
+                    default:
+                        // Ignore unknown filter keys
+                        break;
+                }
+            }
+        }
+
+        Set<String> result;
+        if (postings.isEmpty()) {
+            result = new HashSet<>(indexedKeys.keySet());
+        } else {
+            // Intersect starting from the smallest posting set
+            postings.sort(Comparator.comparingInt(Set::size));
+            result = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+                result.retainAll(postings.get(i));
+            }
+        }
+
+        // Gram matches are candidates only; confirm the substring
+        for (String query : nameQueries) {
+            if (query.length() >= GRAM) {
+                result.removeIf(id -> !lowerNames.getOrDefault(id, "").contains(query));
+            }
+        }
+        return result;
+    }
+
+    public synchronized Set<String> findByManagerId(String managerId) {
+        return new HashSet<>(postingOf(byManager, managerId));
+    }
+
+    public synchronized Set<String> findByOfficerId(String officerId) {
+        return new HashSet<>(postingOf(byOfficer, officerId));
+    }
+
+    // ========== Officer Assignments ==========
+
+    /**
+     * Records an officer joining a project, without re-indexing the rest of the project.
+     */
+    public synchronized void addOfficer(String projectId, String officerId) {
+        IndexKey key = indexedKeys.get(projectId);
+        if (key == null || !key.officerIds.add(officerId)) return;
+        post(byOfficer, officerId, projectId);
+        version++;
+    }
+
+    /**
+     * Records an officer leaving a project, without re-indexing the rest of the project.
+     */
+    public synchronized void removeOfficer(String projectId, String officerId) {
+        IndexKey key = indexedKeys.get(projectId);
+        if (key == null || !key.officerIds.remove(officerId)) return;
+        unpost(byOfficer, officerId, projectId);
+        version++;
+    }
+
+    /**
+     * @return true if the officer is on the project's officer list, whatever their registration status.
+     */
+    public synchronized boolean hasOfficer(String projectId, String officerId) {
+        IndexKey key = indexedKeys.get(projectId);
+        return key != null && key.officerIds.contains(officerId);
+    }
+
+    public synchronized Set<String> findOfficerIds(String projectId) {
+        IndexKey key = indexedKeys.get(projectId);
+        return key == null ? new HashSet<>() : new HashSet<>(key.officerIds);
+    }
+
+    public synchronized int countOfficers(String projectId) {
+        IndexKey key = indexedKeys.get(projectId);
+        return key == null ? 0 : key.officerIds.size();
+    }
+
+    // ========== Helper Methods ==========
+    private Set<String> nameCandidates(String query) {
+        if (query.length() < GRAM) {
+            // Too short to use the gram index; test the pre-lowered names directly
+            Set<String> matches = new HashSet<>();
+            for (Map.Entry<String, String> entry : lowerNames.entrySet()) {
+                if (entry.getValue().contains(query)) matches.add(entry.getKey());
+            }
+            return matches;
+        }
+        List<Set<String>> gramPostings = new ArrayList<>();
+        for (String gram : grams(query)) {
+            gramPostings.add(postingOf(byNameGram, gram));
+        }
+        gramPostings.sort(Comparator.comparingInt(Set::size));
+        Set<String> candidates = new HashSet<>(gramPostings.get(0));
+        for (int i = 1; i < gramPostings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(gramPostings.get(i));
+        }
+        return candidates;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static <K> void post(Map<K, Set<String>> index, K key, String id) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+    }
+
+    private static <K> void unpost(Map<K, Set<String>> index, K key, String id) {
+        Set<String> posting = index.get(key);
+        if (posting == null) return;
+        posting.remove(id);
+        if (posting.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static <K> Set<String> postingOf(Map<K, Set<String>> index, K key) {
+        Set<String> posting = index.get(key);
+        return posting != null ? posting : Collections.emptySet();
+    }
+}
@@ -4,27 +4,51 @@ import entity.*;
 import pub_enums.FlatType;
 
 import java.io.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import util.DateFormats;
+import util.DurableFile;
+import util.MappedCsvReader;
+import util.SnapshotReader;
+import util.SnapshotWriter;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.UUID;
 
 public class ProjectRepo {
-    private final Map<String, Project> projectsMap = new HashMap<>();
+    private final Map<String, Project> projectsMap = new ConcurrentHashMap<>();
+    private final EntityLocks locks = new EntityLocks();
+    private final ProjectCatalogue catalogue = new ProjectCatalogue();
     private static final String PROJECT_FILE = "data/ProjectList.csv";
+    private static final String PROJECT_SNAPSHOT = "data/ProjectList.snap";
+    private final CsvFile csvFile = new CsvFile(Paths.get(PROJECT_FILE), this::writeCsv);
     private static final String DELIMITER = "\\|";
     private static final String FLATS_SEPARATOR = ";";
-    private static final String OFFICERS_SEPARATOR = ",";
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("dd MM yyyy", Locale.ENGLISH);
+    static final String OFFICERS_SEPARATOR = ",";
 
     private HdbManagerRepo managerRepo;
     private HdbOfficerRepo officerRepo;
 
-    public ProjectRepo(HdbManagerRepo managerRepo, HdbOfficerRepo officerRepo) {
+    private ProjectRepo(HdbManagerRepo managerRepo, HdbOfficerRepo officerRepo) {
         this.managerRepo = managerRepo;
         this.officerRepo = officerRepo;
-        loadFromCsv();
+    }
+
+    /**
+     * Creates the repository and loads it from the snapshot, or from the CSV when the snapshot is missing or stale.
+     * Loaded projects resolve their manager and officers through the given repositories on first access.
+     */
+    public static ProjectRepo load(HdbManagerRepo managerRepo, HdbOfficerRepo officerRepo) {
+        ProjectRepo repo = new ProjectRepo(managerRepo, officerRepo);
+        if (!repo.loadFromSnapshot()) {
+            repo.loadFromCsv();
+        }
+        return repo;
     }
 
     // ========== CSV File Operations ==========
@@ -32,15 +56,15 @@ public class ProjectRepo {
         File file = new File(PROJECT_FILE);
         if (!file.exists()) return;
 
-        try (BufferedReader br = new BufferedReader(new FileReader(PROJECT_FILE))) {
+        try (MappedCsvReader csv = MappedCsvReader.open(file.toPath(), false)) {
             // Skip header
-            br.readLine();
+            csv.nextRow();
 
-            String line;
-            while ((line = br.readLine()) != null) {
-                Project project = parseCsvLine(line);
+            while (csv.nextRow()) {
+                Project project = parseCsvRow(csv);
                 if (project != null) {
                     projectsMap.put(project.getProjectId(), project);
+                    catalogue.index(project);
                 }
             }
         } catch (Exception e) {
@@ -49,100 +73,177 @@ public class ProjectRepo {
         }
     }
 
-    private void saveToCsv() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(PROJECT_FILE))) {
-            // Write header
-            pw.println(String.join("|",
-                    "ProjectId", "ProjectName", "Visible", "Neighbourhood", 
-                    "OpenDate", "CloseDate", "ManagerId", "OfficerSlots", 
-                    "OfficerIds", "Flat Details (Type, Total, Remaining, Price)"));
+    public void setWriteBehind(WriteBehind writeBehind) {
+        csvFile.setWriteBehind(writeBehind);
+    }
+
+    private void writeCsv(BufferedWriter writer) throws IOException {
+        // Write header
+        writer.write(String.join("|",
+                "ProjectId", "ProjectName", "Visible", "Neighbourhood", 
+                "OpenDate", "CloseDate", "ManagerId", "OfficerSlots", 
+                "OfficerIds", "Flat Details (Type, Total, Remaining, Price)"));
+        writer.newLine();
+
+        // Write data
+        for (Project project : projectsMap.values()) {
+            writer.write(toCsvLine(project));
+            writer.newLine();
+        }
+    }
+
+    // ========== Binary Snapshot ==========
+    private boolean loadFromSnapshot() {
+        Path path = Paths.get(PROJECT_SNAPSHOT);
+        if (!SnapshotReader.isFresh(path, Paths.get(PROJECT_FILE))) return false;
+        try {
+            SnapshotReader snapshot = SnapshotReader.open(path, "projects");
+            while (snapshot.nextRecord()) {
+                String projectId = snapshot.readString();
+                String projectName = snapshot.readString();
+                boolean visible = snapshot.readBoolean();
+                String neighbourhood = snapshot.readString();
+                Date openDate = snapshot.readDate();
+                Date closeDate = snapshot.readDate();
+                String managerId = snapshot.readString();
+                Integer officerSlots = snapshot.readBoolean() ? snapshot.readInt() : null;
+
+                int officerCount = snapshot.readCount();
+                List<String> officerIds = new ArrayList<>(officerCount);
+                for (int i = 0; i < officerCount; i++) {
+                    officerIds.add(snapshot.readString());
+                }
+                int flatCount = snapshot.readCount();
+                List<Flat> flats = new ArrayList<>(flatCount);
+                EnumSet<FlatType> flatTypes = EnumSet.noneOf(FlatType.class);
+                for (int i = 0; i < flatCount; i++) {
+                    Flat flat = new Flat(snapshot.readEnum(FlatType.class), snapshot.readInt(), snapshot.readInt(),
+                            snapshot.readDouble());
+                    flats.add(flat);
+                    flatTypes.add(flat.getFlatType());
+                }
 
-            // Write data
-            for (Project project : projectsMap.values()) {
-                pw.println(toCsvLine(project));
+                // Flats decode cheaply from the snapshot; manager and officers stay lazy as with the CSV
+                LazyProject project = new LazyProject(this, projectName, projectId, visible, neighbourhood,
+                        openDate, closeDate, officerSlots, managerId,
+                        officerIds.isEmpty() ? null : String.join(OFFICERS_SEPARATOR, officerIds),
+                        null, flatTypes);
+                project.setFlats(flats);
+                projectsMap.put(projectId, project);
+                catalogue.index(project);
             }
+            return true;
         } catch (IOException e) {
-            System.err.println("Error saving CSV: " + e.getMessage());
+            System.err.println("Ignoring project snapshot: " + e.getMessage());
+            for (String projectId : projectsMap.keySet()) {
+                catalogue.unindex(projectId);
+            }
+            projectsMap.clear();
+            return false;
         }
     }
 
-    // ========== CSV Parsing/Formatting ==========
-    private Project parseCsvLine(String line) {
-        String[] parts = line.split("\\|", -1);
-
-        try {
-            // Debug output
-//            System.out.println("Parsing project line: " + line);
-//            System.out.println("Parts length: " + parts.length);
-            
-            String projectId = parts[0].trim();
-            String projectName = parts[1].trim();
-            Boolean visible = Boolean.parseBoolean(parts[2].trim());
-            String neighbourhood = parts[3].trim();
-            Date openDate = parts[4].equals("NULL") ? null : dateFormat.parse(parts[4].trim());
-            Date closeDate = parts[5].equals("NULL") ? null : dateFormat.parse(parts[5].trim());
-            String managerId = parts[6].trim();
-            Integer officerSlots = Integer.parseInt(parts[7].trim());
-            
-            // Get manager
-            HdbManager manager = null;
-            if (!managerId.equals("NULL")) {
-                manager = managerRepo.findById(managerId).orElse(null);
+    /**
+     * Writes the binary snapshot used for fast startup. The CSV stays the interchange format.
+     * Like {@link #toCsvLine}, this does not resolve untouched lazy projects.
+     */
+    public synchronized void writeSnapshot() {
+        SnapshotWriter snapshot = new SnapshotWriter("projects", Paths.get(PROJECT_FILE));
+        for (Project project : projectsMap.values()) {
+            snapshot.beginRecord();
+            snapshot.writeString(project.getProjectId());
+            snapshot.writeString(project.getProjName());
+            snapshot.writeBoolean(project.isVisible());
+            snapshot.writeString(project.getNeighbourhood());
+            snapshot.writeDate(project.getAppOpen());
+            snapshot.writeDate(project.getAppClose());
+            snapshot.writeString(project.getManagerId());
+            Integer officerSlots = project.getOfficerSlots();
+            snapshot.writeBoolean(officerSlots != null);
+            if (officerSlots != null) {
+                snapshot.writeInt(officerSlots);
             }
-            
-            // Parse officer IDs and get officers
-            List<HdbOfficer> officers = new ArrayList<>();
-            if (parts.length > 8 && !parts[8].equals("NULL")) {
-                String[] officerIds = parts[8].trim().split(OFFICERS_SEPARATOR);
-                for (String officerId : officerIds) {
-                    HdbOfficer officer = officerRepo.findById(officerId).orElse(null);
-                    if (officer != null) {
-                        officers.add(officer);
-                    }
-                }
+
+            List<String> officerIds = project.getOfficerIds();
+            snapshot.writeCount(officerIds.size());
+            for (String officerId : officerIds) {
+                snapshot.writeString(officerId);
             }
-            
-            // Parse flats
-            List<Flat> flats = new ArrayList<>();
-            if (parts.length > 9 && !parts[9].equals("NULL")) {
-                flats = parseFlats(parts[9].trim());
+
+            String rawFlats = project instanceof LazyProject ? ((LazyProject) project).unresolvedFlatsField() : null;
+            List<Flat> flats = rawFlats != null ? resolveFlats(project.getProjectId(), rawFlats) : project.getFlats();
+            if (flats == null) flats = List.of();
+            snapshot.writeCount(flats.size());
+            for (Flat flat : flats) {
+                snapshot.writeEnum(flat.getFlatType());
+                snapshot.writeInt(flat.getTotal());
+                snapshot.writeInt(flat.getUnbooked());
+                snapshot.writeDouble(flat.getPrice());
             }
-            
-            return new Project(
+            snapshot.endRecord();
+        }
+        try {
+            snapshot.writeTo(Paths.get(PROJECT_SNAPSHOT));
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+
+    // ========== CSV Parsing/Formatting ==========
+    private Project parseCsvRow(MappedCsvReader csv) {
+        try {
+            String projectId = csv.getString(0);
+            String projectName = csv.getString(1);
+            Boolean visible = csv.getBoolean(2);
+            String neighbourhood = csv.getString(3);
+            Date openDate = csv.isNull(4) ? null : csv.getDate(4);
+            Date closeDate = csv.isNull(5) ? null : csv.getDate(5);
+            Integer officerSlots = csv.getInt(7);
+
+            // Manager, officers and flats stay as raw fields until first accessed (see LazyProject)
+            String managerId = csv.isNull(6) ? null : csv.getString(6);
+            String officerIds = csv.fieldCount() > 8 && !csv.isNull(8) ? csv.getString(8) : null;
+            String flats = csv.fieldCount() > 9 && !csv.isNull(9) ? csv.getString(9) : null;
+
+            return new LazyProject(
+                    this,
                     projectName,
                     projectId,
                     visible,
                     neighbourhood,
-                    flats,
                     openDate,
                     closeDate,
-                    manager,
-                    officers,
-                    officerSlots
+                    officerSlots,
+                    managerId,
+                    officerIds,
+                    flats,
+                    parseFlatTypes(flats)
             );
-        } catch (ParseException e) {
+        } catch (DateTimeParseException e) {
             System.out.println("Error reading project data: " + e.getMessage());
             e.printStackTrace();
             return null;
         } catch (Exception e) {
-            System.err.println("Error parsing line: " + line + " - " + e.getMessage());
+            System.err.println("Error parsing line: " + csv.rowText() + " - " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
 
     private String toCsvLine(Project project) {
-        String managerId = project.getManager() != null ? project.getManager().getId() : "NULL";
-        String officerIds = formatOfficerIds(project.getOfficers());
-        String flats = formatFlats(project.getFlats());
+        // Header accessors and raw fields, so saving does not resolve untouched lazy projects
+        String managerId = project.getManagerId() != null ? project.getManagerId() : "NULL";
+        String officerIds = String.join(OFFICERS_SEPARATOR, project.getOfficerIds());
+        String rawFlats = project instanceof LazyProject ? ((LazyProject) project).unresolvedFlatsField() : null;
+        String flats = rawFlats != null ? rawFlats : formatFlats(project.getFlats());
         
         return String.join("|",
                 project.getProjectId(),
                 project.getProjName(),
                 String.valueOf(project.isVisible()),
                 project.getNeighbourhood(),
-                project.getAppOpen() != null ? dateFormat.format(project.getAppOpen()) : "NULL",
-                project.getAppClose() != null ? dateFormat.format(project.getAppClose()) : "NULL",
+                project.getAppOpen() != null ? DateFormats.formatCsvDate(project.getAppOpen()) : "NULL",
+                project.getAppClose() != null ? DateFormats.formatCsvDate(project.getAppClose()) : "NULL",
                 managerId,
                 String.valueOf(project.getOfficerSlots()),
                 officerIds.isEmpty() ? "NULL" : officerIds,
@@ -150,9 +251,53 @@ public class ProjectRepo {
         );
     }
 
+    // ========== Lazy Resolution (called by LazyProject) ==========
+    HdbManager resolveManager(String managerId) {
+        return managerId == null ? null : managerRepo.findById(managerId).orElse(null);
+    }
+
+    List<HdbOfficer> resolveOfficers(String officerIds) {
+        // Copy-on-write: officer lists are read far more often than they change
+        List<HdbOfficer> officers = new CopyOnWriteArrayList<>();
+        if (officerIds == null) return officers;
+        for (String officerId : officerIds.split(OFFICERS_SEPARATOR)) {
+            HdbOfficer officer = officerRepo.findById(officerId).orElse(null);
+            if (officer != null) {
+                officers.add(officer);
+            }
+        }
+        return officers;
+    }
+
+    List<Flat> resolveFlats(String projectId, String flatsStr) {
+        try {
+            return parseFlats(flatsStr);
+        } catch (RuntimeException e) {
+            System.err.println("Error parsing flats for project " + projectId + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads just the flat types out of a raw flats field, for indexing without building the flats.
+     *
+     * @throws IllegalArgumentException if a flat type is unknown, rejecting the row as a full parse would.
+     */
+    private EnumSet<FlatType> parseFlatTypes(String flatsStr) {
+        EnumSet<FlatType> types = EnumSet.noneOf(FlatType.class);
+        if (flatsStr == null) return types;
+        for (String flatEntry : flatsStr.split(FLATS_SEPARATOR)) {
+            int comma = flatEntry.indexOf(',');
+            if (comma > 0) {
+                types.add(FlatType.valueOf(flatEntry.substring(0, comma)));
+            }
+        }
+        return types;
+    }
+
     // ========== Helper Methods ==========
     private List<Flat> parseFlats(String flatsStr) {
-        if ("NULL".equals(flatsStr)) return new ArrayList<>();
+        if (flatsStr == null || "NULL".equals(flatsStr)) return new ArrayList<>();
         
         List<Flat> flats = new ArrayList<>();
         String[] flatEntries = flatsStr.split(FLATS_SEPARATOR);
@@ -175,22 +320,32 @@ public class ProjectRepo {
         if (flats == null || flats.isEmpty()) return "";
         
         return flats.stream()
-                .map(f ->  f.getFlatType().name() + "," + f.getTotal() + ","  + f.getRemaining() + ","  + f.getPrice())
+                .map(f ->  f.getFlatType().name() + "," + f.getTotal() + ","  + f.getUnbooked() + ","  + f.getPrice())
                 .collect(Collectors.joining(FLATS_SEPARATOR));
     }
 
-    private String formatOfficerIds(List<HdbOfficer> officers) {
-        if (officers == null || officers.isEmpty()) return "";
-        
-        return officers.stream()
-                .map(HdbOfficer::getId)
-                .collect(Collectors.joining(OFFICERS_SEPARATOR));
-    }
 
     // ========== Business Operations ==========
     public void add(Project project) {
-        projectsMap.put(project.getProjectId(), project);
-        saveToCsv();
+        synchronized (this) {
+            projectsMap.put(project.getProjectId(), project);
+            catalogue.index(project);
+        }
+        csvFile.save();
+    }
+
+    /**
+     * @return The inverted indexes over this repository's projects, for filter queries.
+     */
+    public ProjectCatalogue getCatalogue() {
+        return catalogue;
+    }
+
+    /**
+     * Per-project lock for check-then-act sequences such as officer registration and assignment.
+     */
+    public Lock lockFor(String projectId) {
+        return locks.lockFor(projectId);
     }
 
     public Optional<Project> findById(String id) {
@@ -200,29 +355,88 @@ public class ProjectRepo {
     public List<Project> findAll() {
         return new ArrayList<>(projectsMap.values());
     }
+
+    public int size() {
+        return projectsMap.size();
+    }
     
     public List<Project> findByManagerId(String managerId) {
-        return projectsMap.values().stream()
-                .filter(p -> p.getManager() != null && p.getManager().getId().equals(managerId))
-                .collect(Collectors.toList());
+        return findAllById(catalogue.findByManagerId(managerId));
     }
 
     public List<Project> findByOfficerId(String officerId) {
-        return projectsMap.values().stream()
-                .filter(p -> p.getOfficers() != null && 
-                        p.getOfficers().stream().anyMatch(o -> o.getId().equals(officerId)))
-                .collect(Collectors.toList());
+        return findAllById(catalogue.findByOfficerId(officerId));
+    }
+
+    /**
+     * Resolves project IDs (e.g. from a {@link ProjectCatalogue} query) to projects.
+     */
+    public List<Project> findAllById(Collection<String> ids) {
+        List<Project> projects = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Project project = projectsMap.get(id);
+            if (project != null) {
+                projects.add(project);
+            }
+        }
+        return projects;
+    }
+
+    /**
+     * Adds an officer to a project and to the assignment index, then persists the project.
+     * Callers hold {@link #lockFor} the project around their slot check and this call.
+     */
+    public void addOfficer(Project project, HdbOfficer officer) {
+        synchronized (this) {
+            if (project.getOfficers() == null) {
+                project.setOfficers(new CopyOnWriteArrayList<>());
+            }
+            project.getOfficers().add(officer);
+            catalogue.addOfficer(project.getProjectId(), officer.getId());
+        }
+        csvFile.save();
+    }
+
+    /**
+     * Removes an officer from a project and from the assignment index, then persists the project.
+     */
+    public void removeOfficer(Project project, HdbOfficer officer) {
+        synchronized (this) {
+            if (project.getOfficers() != null) {
+                project.getOfficers().removeIf(o -> o.getId().equals(officer.getId()));
+            }
+            catalogue.removeOfficer(project.getProjectId(), officer.getId());
+        }
+        csvFile.save();
     }
 
     public void update(Project project) {
-        if (projectsMap.containsKey(project.getProjectId())) {
+        synchronized (this) {
+            if (!projectsMap.containsKey(project.getProjectId())) return;
             projectsMap.put(project.getProjectId(), project);
-            saveToCsv();
+            catalogue.index(project);
         }
+        csvFile.save();
+    }
+
+    /**
+     * Durably writes a project's flat counts after a booking, returning once the CSV write that includes them
+     * is on disk. Concurrent bookings share that write (see {@link DurableFile}), and it bypasses write-behind.
+     * Only counts change, so the catalogue is left alone and eligibility bitmaps built on it stay valid.
+     *
+     * @throws IOException if the CSV could not be written; the counts are still current in memory and are
+     *                     written with the next save or flush.
+     */
+    public void commitFlatCounts(Project project) throws IOException {
+        if (!projectsMap.containsKey(project.getProjectId())) return;
+        csvFile.commit();
     }
 
     public void delete(Project project) {
-        projectsMap.remove(project.getProjectId());
-        saveToCsv();
+        synchronized (this) {
+            projectsMap.remove(project.getProjectId());
+            catalogue.unindex(project.getProjectId());
+        }
+        csvFile.save();
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package repository;
+
+import entity.Applicant;
+import entity.Application;
+import pub_enums.ApplStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stages changes to applications and to the applicants that point at them, then commits them together.
+ * <p>
+ * {@link #commit()} writes every staged application change as one fsynced transaction block in the
+ * application mutation log and only then applies it in memory, repointing the linked applicants, so an
+ * operation such as processing a withdrawal costs a single log write, and a failed write leaves both
+ * applications and applicants untouched. On restart the block is replayed as a whole or not at all.
+ * Applicant links need no storage of their own: {@link ApplicantRepo#resolveReferences} rebuilds them
+ * from each application's applicant ID.
+ * <p>
+ * Usage:
+ * <pre>
+ * UnitOfWork work = applicationRepo.beginWork();
+ * work.changeStatus(application, ApplStatus.SUCCESS);
+ * work.linkApplicant(applicant, application);
+ * work.commit();
+ * </pre>
+ * A unit of work is used by one thread and committed at most once.
+ */
+public class UnitOfWork {
+    private final ApplicationRepo applicationRepo;
+
+    private final List<Application> added = new ArrayList<>();
+    private final Map<Application, ApplStatus> statusChanges = new LinkedHashMap<>();
+    private final Map<Applicant, Application> links = new LinkedHashMap<>();
+    private boolean finished;
+
+    UnitOfWork(ApplicationRepo applicationRepo) {
+        this.applicationRepo = applicationRepo;
+    }
+
+    // ========== Staging ==========
+
+    /**
+     * Stages a new application.
+     */
+    public UnitOfWork addApplication(Application application) {
+        checkOpen();
+        added.add(application);
+        return this;
+    }
+
+    /**
+     * Stages a status change. The application keeps its current status until the commit succeeds.
+     */
+    public UnitOfWork changeStatus(Application application, ApplStatus status) {
+        checkOpen();
+        statusChanges.put(application, status);
+        return this;
+    }
+
+    /**
+     * Stages pointing an applicant's in-memory application reference at the given application.
+     */
+    public UnitOfWork linkApplicant(Applicant applicant, Application application) {
+        checkOpen();
+        links.put(applicant, application);
+        return this;
+    }
+
+    // ========== Completion ==========
+
+    /**
+     * Durably commits every staged change, then applies it in memory.
+     *
+     * @throws IOException if the transaction could not be logged; nothing has been applied.
+     */
+    public void commit() throws IOException {
+        checkOpen();
+        finished = true;
+        if (added.isEmpty() && statusChanges.isEmpty() && links.isEmpty()) {
+            return;
+        }
+        applicationRepo.commit(added, statusChanges, links);
+    }
+
+    /**
+     * Discards every staged change.
+     */
+    public void rollback() {
+        finished = true;
+        added.clear();
+        statusChanges.clear();
+        links.clear();
+    }
+
+    private void checkOpen() {
+        if (finished) {
+            throw new IllegalStateException("Unit of work already committed or rolled back");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package repository;
+
+import entity.Applicant;
+import entity.HdbManager;
+import entity.HdbOfficer;
+import entity.User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single NRIC-keyed index over applicants, officers and managers.
+ * The three user repositories push every load, add, update and delete into the directory,
+ * so lookups are one hash probe and the collection views below are live, not copies.
+ */
+public class UserDirectory {
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<String, Applicant> applicants = new ConcurrentHashMap<>();
+    private final Map<String, HdbOfficer> officers = new ConcurrentHashMap<>();
+    private final Map<String, HdbManager> managers = new ConcurrentHashMap<>();
+
+    private final ApplicantRepo applicantRepo;
+    private final HdbOfficerRepo officerRepo;
+    private final HdbManagerRepo managerRepo;
+
+    private UserDirectory(ApplicantRepo applicantRepo, HdbOfficerRepo officerRepo, HdbManagerRepo managerRepo) {
+        this.applicantRepo = applicantRepo;
+        this.officerRepo = officerRepo;
+        this.managerRepo = managerRepo;
+    }
+
+    /**
+     * Creates the directory and attaches it to each repository, which pushes its current users into it.
+     * Any repository may be null.
+     */
+    public static UserDirectory of(ApplicantRepo applicantRepo, HdbOfficerRepo officerRepo, HdbManagerRepo managerRepo) {
+        UserDirectory directory = new UserDirectory(applicantRepo, officerRepo, managerRepo);
+        if (applicantRepo != null) applicantRepo.attachDirectory(directory);
+        if (officerRepo != null) officerRepo.attachDirectory(directory);
+        if (managerRepo != null) managerRepo.attachDirectory(directory);
+        return directory;
+    }
+
+    // ========== Index Maintenance (called by the repositories) ==========
+    void put(User user) {
+        if (user == null || user.getId() == null) return;
+        String key = key(user.getId());
+        users.put(key, user);
+        if (user instanceof HdbOfficer) {
+            officers.put(key, (HdbOfficer) user);
+        } else if (user instanceof Applicant) {
+            applicants.put(key, (Applicant) user);
+        } else if (user instanceof HdbManager) {
+            managers.put(key, (HdbManager) user);
+        }
+    }
+
+    void remove(String id) {
+        if (id == null) return;
+        String key = key(id);
+        users.remove(key);
+        applicants.remove(key);
+        officers.remove(key);
+        managers.remove(key);
+    }
+
+    // ========== Lookups ==========
+
+    /**
+     * Authenticates against whichever repository owns the NRIC.
+     *
+     * @param nric     The NRIC entered at login.
+     * @param password The password entered at login.
+     * @return The authenticated user, or null if the NRIC is unknown or the password is wrong.
+     */
+    public User authenticate(String nric, String password) {
+        if (nric == null || password == null) return null;
+        User user = users.get(key(nric));
+        if (user instanceof HdbOfficer) {
+            return officerRepo.authenticate(nric, password);
+        } else if (user instanceof Applicant) {
+            return applicantRepo.authenticate(nric, password);
+        } else if (user instanceof HdbManager) {
+            return managerRepo.authenticate(nric, password);
+        }
+        return null;
+    }
+
+    public Optional<User> findById(String nric) {
+        return nric == null ? Optional.empty() : Optional.ofNullable(users.get(key(nric)));
+    }
+
+    /**
+     * Looks up a user and narrows it to the requested role type.
+     *
+     * @param nric The user's NRIC.
+     * @param type The expected entity class, e.g. {@code HdbOfficer.class}.
+     * @return The user if present and of the requested type.
+     */
+    public <T extends User> Optional<T> findById(String nric, Class<T> type) {
+        return findById(nric).filter(type::isInstance).map(type::cast);
+    }
+
+    /**
+     * Persists a user through the repository that owns its role.
+     *
+     * @param user The user to save.
+     * @return true if a repository accepted the update.
+     */
+    public boolean update(User user) {
+        if (user instanceof HdbOfficer && officerRepo != null) {
+            officerRepo.update((HdbOfficer) user);
+            return true;
+        } else if (user instanceof Applicant && applicantRepo != null) {
+            applicantRepo.update((Applicant) user);
+            return true;
+        } else if (user instanceof HdbManager && managerRepo != null) {
+            managerRepo.update((HdbManager) user);
+            return true;
+        }
+        return false;
+    }
+
+    // ========== Live Views ==========
+    public Collection<User> allUsers() {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    public Collection<Applicant> applicants() {
+        return Collections.unmodifiableCollection(applicants.values());
+    }
+
+    public Collection<HdbOfficer> officers() {
+        return Collections.unmodifiableCollection(officers.values());
+    }
+
+    public Collection<HdbManager> managers() {
+        return Collections.unmodifiableCollection(managers.values());
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    private static String key(String nric) {
+        return nric.trim().toUpperCase();
+    }
+}
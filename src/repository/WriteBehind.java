@@ -0,0 +1,214 @@
+package repository;
+
+import util.DurableFile;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounced write-behind persistence for the CSV-backed repositories.
+ * <p>
+ * Once a repository is attached (see e.g. {@link ApplicantRepo#setWriteBehind}), a mutation only marks
+ * its file dirty and returns. The first mark schedules a flush one window later (the
+ * {@code bto.writeBehind.windowMillis} system property, default {@value #DEFAULT_WINDOW_MILLIS} ms);
+ * every mutation in between, to any repository, is written out by that one pass, each dirty file once.
+ * A user action that updates both an application and its applicant therefore costs one write per
+ * file rather than one per call, at the price of losing at most one window of changes in a crash.
+ * Call {@link #flush()} before shutdown.
+ */
+public class WriteBehind implements AutoCloseable {
+    public static final long DEFAULT_WINDOW_MILLIS = 50;
+
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object flushLock = new Object();
+
+    // Dirty files and the number of mutations waiting on each, guarded by this
+    private final Map<DurableFile, Integer> dirty = new LinkedHashMap<>();
+    private boolean scheduled;
+    private long firstDirtyNanos;
+
+    // Metrics, guarded by this
+    private long flushes;
+    private long filesWritten;
+    private long mutationsFlushed;
+    private long largestBatch;
+    private long totalFlushNanos;
+    private long maxFlushNanos;
+    private long maxDelayNanos;
+    private long failures;
+
+    public WriteBehind() {
+        this(Long.getLong("bto.writeBehind.windowMillis", DEFAULT_WINDOW_MILLIS));
+    }
+
+    /**
+     * @param windowMillis How long after the first unflushed mutation the flush runs.
+     */
+    public WriteBehind(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Write-behind window must not be negative");
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // ========== Scheduling ==========
+
+    /**
+     * Records a mutation to the given file and makes sure a flush is scheduled. Never blocks on I/O.
+     */
+    public synchronized void markDirty(DurableFile file) {
+        dirty.merge(file, 1, Integer::sum);
+        if (!scheduled) {
+            scheduled = true;
+            firstDirtyNanos = System.nanoTime();
+            scheduler.schedule(this::flushQuietly, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes every dirty file now, in one pass, and returns once they are durable.
+     * Files that fail to write stay dirty and are retried one window later.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<DurableFile, Integer> batch;
+            long delay;
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+                // Taken before rendering, so a mutation marked from here on schedules another pass
+                batch = new LinkedHashMap<>(dirty);
+                dirty.clear();
+                scheduled = false;
+                delay = System.nanoTime() - firstDirtyNanos;
+            }
+
+            long start = System.nanoTime();
+            int written = 0;
+            int mutations = 0;
+            for (Map.Entry<DurableFile, Integer> entry : batch.entrySet()) {
+                try {
+                    entry.getKey().commit();
+                    written++;
+                    mutations += entry.getValue();
+                } catch (IOException e) {
+                    System.err.println("Error flushing " + entry.getKey() + ": " + e.getMessage());
+                    synchronized (this) {
+                        failures++;
+                    }
+                    retryLater(entry.getKey(), entry.getValue());
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            synchronized (this) {
+                flushes++;
+                filesWritten += written;
+                mutationsFlushed += mutations;
+                largestBatch = Math.max(largestBatch, mutations);
+                totalFlushNanos += elapsed;
+                maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+                maxDelayNanos = Math.max(maxDelayNanos, delay + elapsed);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error in write-behind flush: " + e.getMessage());
+        }
+    }
+
+    private void retryLater(DurableFile file, int mutations) {
+        synchronized (this) {
+            dirty.merge(file, mutations, Integer::sum);
+            if (!scheduled) {
+                scheduled = true;
+                firstDirtyNanos = System.nanoTime();
+                scheduler.schedule(this::flushQuietly, Math.max(windowMillis, 1), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Flushes outstanding mutations and stops the background thread.
+     */
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+    }
+
+    // ========== Metrics ==========
+    public synchronized long getFlushCount() {
+        return flushes;
+    }
+
+    public synchronized long getFilesWritten() {
+        return filesWritten;
+    }
+
+    public synchronized long getMutationsFlushed() {
+        return mutationsFlushed;
+    }
+
+    /**
+     * @return Mutations persisted per flush on average; above 1 means writes were coalesced.
+     */
+    public synchronized double getAverageBatchSize() {
+        return flushes == 0 ? 0 : (double) mutationsFlushed / flushes;
+    }
+
+    public synchronized long getLargestBatchSize() {
+        return largestBatch;
+    }
+
+    /**
+     * @return Mean time spent writing files per flush.
+     */
+    public synchronized double getAverageFlushMillis() {
+        return flushes == 0 ? 0 : totalFlushNanos / 1e6 / flushes;
+    }
+
+    public synchronized double getMaxFlushMillis() {
+        return maxFlushNanos / 1e6;
+    }
+
+    /**
+     * @return The longest a mutation has waited between being marked and being durable.
+     */
+    public synchronized double getMaxDelayMillis() {
+        return maxDelayNanos / 1e6;
+    }
+
+    public synchronized long getFailureCount() {
+        return failures;
+    }
+
+    /**
+     * Prints the flush metrics, in the style of the bootstrap load report.
+     */
+    public void printReport() {
+        System.out.printf("Write-behind: %,d mutations in %,d flushes (%,d file writes), avg batch %.1f, max batch %,d, "
+                        + "avg flush %.1f ms, max flush %.1f ms, max delay %.1f ms, %d failures%n",
+                getMutationsFlushed(), getFlushCount(), getFilesWritten(), getAverageBatchSize(), getLargestBatchSize(),
+                getAverageFlushMillis(), getMaxFlushMillis(), getMaxDelayMillis(), getFailureCount());
+    }
+}
@@ -4,7 +4,9 @@ import entity.*;
 import pub_enums.*;
 import repository.*;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneId;
@@ -19,6 +21,9 @@ public class ApplicantService extends UserService implements IApplyableService,
     private ProjectRepo projectRepo;
     private ApplicationRepo applicationRepo;
     private EnquiryRepo enquiryRepo;
+    private final EligibilityEngine eligibilityEngine;
+
+    private static final Set<String> FILTER_KEYS = Set.of("neighbourhood", "flattype", "projectname");
 
     public ApplicantService(ApplicantRepo applicantRepo, ProjectRepo projectRepo, 
                             ApplicationRepo applicationRepo, EnquiryRepo enquiryRepo) {
@@ -27,6 +32,7 @@ public class ApplicantService extends UserService implements IApplyableService,
         this.projectRepo = projectRepo;
         this.applicationRepo = applicationRepo;
         this.enquiryRepo = enquiryRepo;
+        this.eligibilityEngine = new EligibilityEngine(projectRepo);
     }
 
     // --- IProjectView Implementation ---
@@ -85,49 +91,11 @@ public class ApplicantService extends UserService implements IApplyableService,
             return eligibleProjects; // No filters applied
         }
 
+        // Resolve the filters against the catalogue indexes, then keep the eligible ones
+        Set<String> matchingIds = projectRepo.getCatalogue().search(filters, FILTER_KEYS);
         List<Project> filteredList = new ArrayList<>();
         for (Project project : eligibleProjects) {
-            boolean match = true;
-            for (Map.Entry<String, String> entry : filters.entrySet()) {
-                String key = entry.getKey().toLowerCase();
-                String value = entry.getValue();
-                if (value == null || value.trim().isEmpty()) continue; // Skip empty filter values
-
-                switch (key) {
-                    case "neighbourhood":
-                        if (project.getNeighbourhood() == null || !project.getNeighbourhood().equalsIgnoreCase(value)) {
-                            match = false;
-                        }
-                        break;
-                    case "flattype": // Check if project offers this flat type
-                        try {
-                            FlatType requestedType = FlatType.valueOf(value.toUpperCase());
-                            boolean offersType = false;
-                            if(project.getFlats() != null){
-                                for(Flat flat : project.getFlats()){
-                                    if(flat.getFlatType() == requestedType){
-                                        offersType = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if(!offersType) match = false;
-                        } catch (IllegalArgumentException e) {
-                            match = false; // Invalid flat type string
-                        }
-                        break;
-                    case "projectname":
-                        if (project.getProjName() == null || !project.getProjName().toLowerCase().contains(value.toLowerCase())) {
-                            match = false;
-                        }
-                        break;
-                    default:
-                        // Ignore unknown filter keys
-                        break;
-                }
-                if (!match) break; // Stop checking filters for this project if one fails
-            }
-            if (match) {
+            if (matchingIds.contains(project.getProjectId())) {
                 filteredList.add(project);
             }
         }
@@ -145,34 +113,16 @@ public class ApplicantService extends UserService implements IApplyableService,
         if (!(user instanceof Applicant)) return Collections.emptyList();
         Applicant applicant = (Applicant) user;
 
-        List<Project> allProjects = projectRepo.findAll();
-        List<Project> availableProjects = new ArrayList<>();
-        Date today = new Date(); // Use current date for checking application period
+        // Visible, open projects offering an eligible flat type, from the precomputed bitmaps
+        List<Project> availableProjects = eligibilityEngine.findOpenEligibleProjects(applicant);
 
-        for (Project project : allProjects) {
-            // Check project visibility and application period
-            boolean applicantAlreadyApplied = false;
-            try {
-                applicantAlreadyApplied = Objects.equals(applicant.getApplication().getProjectId(), project.getProjectId());
-            } catch (Exception e) {
-                System.out.println("Applicant no applications");
-            }
-            if ((project.isVisible() && project.getAppOpen() != null && project.getAppClose() != null &&
-                    !today.before(project.getAppOpen()) && !today.after(project.getAppClose())) || applicantAlreadyApplied) {
-
-                // Check if applicant is eligible for any flat type in this project
-                boolean eligibleForAnyFlat = false;
-                if (project.getFlats() != null) {
-                    for (Flat flat : project.getFlats()) {
-                        if (checkEligibility(applicant, flat.getFlatType())) {
-                            eligibleForAnyFlat = true;
-                            break;
-                        }
-                    }
-                }
-                if (eligibleForAnyFlat) {
-                    availableProjects.add(project);
-                }
+        // A project the applicant already applied to stays listed even if closed or hidden
+        Application application = applicant.getApplication();
+        if (application != null && application.getProjectId() != null) {
+            Project applied = projectRepo.findById(application.getProjectId()).orElse(null);
+            if (applied != null && !availableProjects.contains(applied)
+                    && eligibilityEngine.isEligibleForAnyFlat(applicant, applied)) {
+                availableProjects.add(applied);
             }
         }
         return availableProjects;
@@ -212,6 +162,9 @@ public class ApplicantService extends UserService implements IApplyableService,
         
         Applicant applicant = (Applicant) user;
 
+        // Hold the applicant's lock so two sessions cannot both pass the "no active application" check
+        Lock lock = applicantRepo.lockFor(applicant.getId());
+        lock.lock();
         try {
             // Find the first eligible flat type
             FlatType eligibleFlatType = null;
@@ -251,16 +204,18 @@ public class ApplicantService extends UserService implements IApplyableService,
                     eligibleFlatType.name() // default to first available
             );
 
-            applicationRepo.add(newApplication);
-            
-            // Associate application with applicant
-            applicant.setApplication(newApplication);
-            applicantRepo.update(applicant);
+            // Save it and associate it with the applicant in one transaction
+            applicationRepo.beginWork()
+                    .addApplication(newApplication)
+                    .linkApplicant(applicant, newApplication)
+                    .commit();
             
             return true;
         } catch (Exception e) {
             System.err.println("Error during project application: " + e.getMessage());
             return false;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -312,9 +267,8 @@ public class ApplicantService extends UserService implements IApplyableService,
 
             enquiryRepo.add(newEnquiry);
             
-            // Add enquiry to applicant's list
+            // Add enquiry to applicant's list; the applicant's own row does not store it
             applicant.addEnquiry(newEnquiry);
-            applicantRepo.update(applicant);
             
             return newEnquiry;
         } catch (Exception e) {
@@ -406,7 +360,6 @@ public class ApplicantService extends UserService implements IApplyableService,
                     break;
                 }
             }
-            applicantRepo.update(applicant);
         }
     }
 
@@ -440,7 +393,6 @@ public class ApplicantService extends UserService implements IApplyableService,
         // Also remove from applicant's list if present
         if (applicant.getEnquiries() != null) {
             applicant.getEnquiries().removeIf(e -> e.getEnquiryId().equals(enquiryId));
-            applicantRepo.update(applicant);
         }
     }
 
@@ -457,23 +409,9 @@ public class ApplicantService extends UserService implements IApplyableService,
     @Override
     public boolean checkEligibility(User user, FlatType flatType) {
         if (!(user instanceof Applicant)) return false;
-        Applicant applicant = (Applicant) user;
-        
-        if (applicant.getDob() == null || applicant.getMaritalStatus() == null) {
-            return false;
-        }
 
-        int age = calculateAge(applicant.getDob());
-        MaritalStatus maritalStatus = applicant.getMaritalStatus();
-
-        if (maritalStatus == MaritalStatus.SINGLE) {
-            return age >= 35 && flatType == FlatType.TWOROOM;
-        } else if (maritalStatus == MaritalStatus.MARRIED) {
-            // Assuming married can apply for any type offered (2-room or 3-room based on brief)
-            return age >= 21 && (flatType == FlatType.TWOROOM || flatType == FlatType.THREEROOM);
-        }
-
-        return false; // Not single or married, or doesn't meet criteria
+        // Age and marital status rules are tabulated and cached per applicant per day
+        return eligibilityEngine.eligibleFlatTypes((Applicant) user).contains(flatType);
     }
 
     /**
@@ -494,14 +432,7 @@ public class ApplicantService extends UserService implements IApplyableService,
         }
 
         // Check if eligible for at least one flat type offered by the project
-        boolean eligibleForAnyFlat = false;
-        for (Flat flat : project.getFlats()) {
-            if (checkEligibility(applicant, flat.getFlatType())) {
-                eligibleForAnyFlat = true;
-                break;
-            }
-        }
-        if (!eligibleForAnyFlat) {
+        if (!eligibilityEngine.isEligibleForAnyFlat(applicant, project)) {
             return false; // Not eligible for any flat in this project
         }
 
@@ -532,31 +463,42 @@ public class ApplicantService extends UserService implements IApplyableService,
             return false;
         }
 
-        // Check if withdrawal is allowed
-        ApplStatus currentStatus = appToWithdraw.getStatus();
-        if (currentStatus == ApplStatus.WITHDRAW_APPROVED || currentStatus == ApplStatus.REJECT) {
-            return false; // Already in final state
-        }
-        if (currentStatus == ApplStatus.WITHDRAW_PENDING) {
-            return true; // Already requested
-        }
+        Lock lock = applicationRepo.lockFor(appToWithdraw.getId());
+        lock.lock();
+        try {
+            // Check if withdrawal is allowed
+            ApplStatus currentStatus = appToWithdraw.getStatus();
+            if (currentStatus == ApplStatus.WITHDRAW_APPROVED || currentStatus == ApplStatus.REJECT) {
+                return false; // Already in final state
+            }
+            if (currentStatus == ApplStatus.WITHDRAW_PENDING) {
+                return true; // Already requested
+            }
 
-        // Update status to pending withdrawal
-        appToWithdraw.setStatus(ApplStatus.WITHDRAW_PENDING);
-        applicationRepo.update(appToWithdraw);
+            // Update status to pending withdrawal
+            UnitOfWork work = applicationRepo.beginWork()
+                    .changeStatus(appToWithdraw, ApplStatus.WITHDRAW_PENDING);
         
-        // Update in applicant's object if present
-        String applicantId = appToWithdraw.getApplicantId();
-        Optional<Applicant> optApplicant = applicantRepo.findById(applicantId);
-        if (optApplicant.isPresent()) {
-            Applicant applicant = optApplicant.get();
-            if (applicant.getApplication() != null && 
-                applicant.getApplication().getId().equals(appToWithdraw.getId())) {
-                applicant.setApplication(appToWithdraw);
-                applicantRepo.update(applicant);
+            // Update in applicant's object if present, in the same transaction
+            String applicantId = appToWithdraw.getApplicantId();
+            Optional<Applicant> optApplicant = applicantRepo.findById(applicantId);
+            if (optApplicant.isPresent()) {
+                Applicant applicant = optApplicant.get();
+                if (applicant.getApplication() != null && 
+                    applicant.getApplication().getId().equals(appToWithdraw.getId())) {
+                    work.linkApplicant(applicant, appToWithdraw);
+                }
             }
-        }
         
-        return true;
+            try {
+                work.commit();
+            } catch (IOException e) {
+                System.err.println("Error requesting withdrawal: " + e.getMessage());
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 }
\ No newline at end of file
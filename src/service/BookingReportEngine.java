@@ -0,0 +1,317 @@
+package service;
+
+import entity.Application;
+import entity.BookingReportRow;
+import entity.Project;
+import pub_enums.ApplStatus;
+import pub_enums.FlatType;
+import pub_enums.MaritalStatus;
+import repository.ApplicantProjection;
+import repository.ApplicantRepo;
+import repository.ApplicationRepo;
+import repository.ProjectRepo;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Produces the booking report as a lazy stream of {@link BookingReportRow}s, so memory use stays flat
+ * however many applications match.
+ * <ul>
+ *     <li>The {@code projectId}, {@code status} and {@code flatType} filters are pushed down to
+ *     {@link ApplicationRepo#streamMatching}, which reads the smallest of its matching indexes.</li>
+ *     <li>The demographic filters ({@code maritalStatus}, {@code minAge}, {@code maxAge}, {@code age}) are answered
+ *     by the {@link ApplicantProjection}, without resolving Applicant objects or computing ages per row.</li>
+ *     <li>Whichever side is estimated to match fewer records drives the join: the application indexes, probing
+ *     the projection per application, or the projection's date-of-birth index, fetching each matching
+ *     applicant's applications. Either way the work grows with the matching rows, not with all rows.</li>
+ *     <li>Project columns are resolved once per report into a lookup table, not looked up per row.</li>
+ * </ul>
+ * {@link #streamParallel} produces the same rows on a fork-join pool, in a deterministic order.
+ */
+public class BookingReportEngine {
+    // Walking the date-of-birth index and fetching each applicant's applications costs about twice as much per
+    // record as probing the projection for each application
+    private static final int APPLICANT_DRIVEN_COST = 2;
+    // Candidate applications per parallel partition
+    private static final int PARTITION_SIZE = 8192;
+
+    /**
+     * The project columns a report row needs, resolved once per project.
+     */
+    private static final class ProjectColumns {
+        private final String name;
+        private final String neighbourhood;
+
+        private ProjectColumns(Project project) {
+            this.name = project.getProjName();
+            this.neighbourhood = project.getNeighbourhood();
+        }
+    }
+
+    /**
+     * Parsed report filters. A demographic or flat type filter that cannot be parsed matches nothing,
+     * rather than being dropped and widening the report.
+     */
+    private static final class Query {
+        private String projectId;
+        private ApplStatus status;
+        private String flatType;
+        private ApplicantProjection.Criteria demographics;
+        private boolean matchesNothing;
+
+        private boolean matchesApplication(Application application) {
+            return (projectId == null || projectId.equals(application.getProjectId()))
+                    && (status == null || application.getStatus() == status)
+                    && (flatType == null || flatType.equals(application.getFlatType()));
+        }
+    }
+
+    private final ApplicationRepo applicationRepo;
+    private final ProjectRepo projectRepo;
+    private final ApplicantProjection applicants;
+
+    public BookingReportEngine(ApplicationRepo applicationRepo, ProjectRepo projectRepo, ApplicantRepo applicantRepo) {
+        this.applicationRepo = applicationRepo;
+        this.projectRepo = projectRepo;
+        this.applicants = applicantRepo.getProjection();
+    }
+
+    /**
+     * Streams the report rows matching the filters. Recognised filters:
+     * <ul>
+     *     <li>{@code projectId}</li>
+     *     <li>{@code status}: an {@link ApplStatus} name, case-insensitive; an unknown status is ignored.</li>
+     *     <li>{@code flatType}: a {@link FlatType} name, case-insensitive.</li>
+     *     <li>{@code maritalStatus}: a {@link MaritalStatus} name, case-insensitive.</li>
+     *     <li>{@code minAge}, {@code maxAge} (inclusive), or {@code age} for an exact age, in whole years.</li>
+     * </ul>
+     * Blank values are ignored.
+     */
+    public Stream<BookingReportRow> stream(Map<String, String> filters) {
+        Query query = parse(filters, LocalDate.now());
+        if (query.matchesNothing) return Stream.empty();
+
+        Map<String, ProjectColumns> projects = resolveProjects(query.projectId);
+        return applications(query)
+                .map(application -> toRow(application, projects.get(application.getProjectId())));
+    }
+
+    // ========== Join ==========
+
+    private Stream<Application> applications(Query query) {
+        ApplicantProjection.Criteria demographics = query.demographics;
+        if (demographics.isUnconstrained()) {
+            return applicationRepo.streamMatching(query.projectId, query.status, query.flatType);
+        }
+        if (isApplicantDriven(query)) {
+            return applicants.streamMatchingIds(demographics)
+                    .flatMap(applicantId -> applicationRepo.findByApplicantId(applicantId).stream())
+                    .filter(query::matchesApplication);
+        }
+        return applicationRepo.streamMatching(query.projectId, query.status, query.flatType)
+                .filter(application -> applicants.matches(application.getApplicantId(), demographics));
+    }
+
+    private boolean isApplicantDriven(Query query) {
+        ApplicantProjection.Criteria demographics = query.demographics;
+        if (demographics.isUnconstrained()) return false;
+        // Each applicant has few applications, so applicant and application counts compare directly
+        int fromApplications = applicationRepo.estimateMatching(query.projectId, query.status, query.flatType);
+        int fromApplicants = demographics.isAgeBounded() ? applicants.estimateMatching(demographics) : applicants.size();
+        return (long) fromApplicants * APPLICANT_DRIVEN_COST < fromApplications;
+    }
+
+    // ========== Parallel Mode ==========
+
+    /**
+     * Streams the same rows as {@link #stream}, computed on the given pool, in an order that does not depend on
+     * the pool's parallelism or on scheduling.
+     * <ul>
+     *     <li>The candidates {@link #stream} would read are split by hash range into partitions of about
+     *     {@value #PARTITION_SIZE} applications, each filtered as one task on the pool.</li>
+     *     <li>Partitions are emitted in split order, each split-off part before the rest. The split depends only on
+     *     the index being read, never on the pool, so the order is deterministic without sorting any rows.</li>
+     *     <li>Partitions are computed ahead of the consumer, at most two per worker. Memory is bounded by that
+     *     window, not by the whole report.</li>
+     * </ul>
+     * When {@link #stream} would drive the join from the applicant side, that join is run as it is instead: it
+     * reads well under half the candidates, in date-of-birth order, and its source does not split. Closing the
+     * stream cancels the partitions not yet consumed.
+     */
+    public Stream<BookingReportRow> streamParallel(Map<String, String> filters, ForkJoinPool pool) {
+        Query query = parse(filters, LocalDate.now());
+        if (query.matchesNothing) return Stream.empty();
+
+        Map<String, ProjectColumns> projects = resolveProjects(query.projectId);
+        if (isApplicantDriven(query)) {
+            return applications(query).map(application -> toRow(application, projects.get(application.getProjectId())));
+        }
+        List<Spliterator<Application>> plan = new ArrayList<>();
+        split(applicationRepo.candidatesMatching(query.projectId, query.status, query.flatType), plan);
+        OrderedPartitions partitions = new OrderedPartitions(plan, query, projects, pool);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(partitions, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(partitions::cancel);
+    }
+
+    /**
+     * Splits a source in halves until each part holds about {@value #PARTITION_SIZE} candidates, adding the parts
+     * in split order.
+     */
+    private static void split(Spliterator<Application> source, List<Spliterator<Application>> parts) {
+        if (source.estimateSize() > PARTITION_SIZE) {
+            Spliterator<Application> prefix = source.trySplit();
+            if (prefix != null) {
+                split(prefix, parts);
+                split(source, parts);
+                return;
+            }
+        }
+        parts.add(source);
+    }
+
+    /**
+     * Emits partition results in plan order while later partitions are computed on the pool.
+     */
+    private final class OrderedPartitions implements Iterator<BookingReportRow> {
+        private final List<Spliterator<Application>> plan;
+        private final Query query;
+        private final Map<String, ProjectColumns> projects;
+        private final ForkJoinPool pool;
+        private final int window;
+        private final Deque<ForkJoinTask<List<BookingReportRow>>> inFlight = new ArrayDeque<>();
+        private int nextPartition;
+        private Iterator<BookingReportRow> current = Collections.emptyIterator();
+
+        private OrderedPartitions(List<Spliterator<Application>> plan, Query query, Map<String, ProjectColumns> projects,
+                                  ForkJoinPool pool) {
+            this.plan = plan;
+            this.query = query;
+            this.projects = projects;
+            this.pool = pool;
+            this.window = Math.max(2, pool.getParallelism() * 2);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                while (inFlight.size() < window && nextPartition < plan.size()) {
+                    Spliterator<Application> partition = plan.get(nextPartition++);
+                    inFlight.add(pool.submit(() -> computePartition(partition, query, projects)));
+                }
+                ForkJoinTask<List<BookingReportRow>> head = inFlight.poll();
+                if (head == null) return false;
+                current = head.join().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public BookingReportRow next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        private void cancel() {
+            inFlight.forEach(task -> task.cancel(false));
+            inFlight.clear();
+            nextPartition = plan.size();
+            current = Collections.emptyIterator();
+        }
+    }
+
+    /**
+     * One partition's rows, in the order its candidates are read. The candidates were not checked against the
+     * filters yet, and may have changed since they were indexed, so every filter is applied here.
+     */
+    private List<BookingReportRow> computePartition(Spliterator<Application> partition, Query query,
+                                                    Map<String, ProjectColumns> projects) {
+        List<BookingReportRow> rows = new ArrayList<>();
+        ApplicantProjection.Criteria demographics = query.demographics;
+        partition.forEachRemaining(application -> {
+            if (query.matchesApplication(application)
+                    && (demographics.isUnconstrained() || applicants.matches(application.getApplicantId(), demographics))) {
+                rows.add(toRow(application, projects.get(application.getProjectId())));
+            }
+        });
+        return rows;
+    }
+
+    // ========== Helper Methods ==========
+
+    /**
+     * Builds the project lookup the rows are joined against: just the filtered project, or every project.
+     * Its size depends on the number of projects, never on the number of applications.
+     */
+    private Map<String, ProjectColumns> resolveProjects(String projectId) {
+        Map<String, ProjectColumns> projects = new HashMap<>();
+        if (projectId != null) {
+            projectRepo.findById(projectId).ifPresent(project -> projects.put(projectId, new ProjectColumns(project)));
+        } else {
+            for (Project project : projectRepo.findAll()) {
+                projects.put(project.getProjectId(), new ProjectColumns(project));
+            }
+        }
+        return projects;
+    }
+
+    private static BookingReportRow toRow(Application application, ProjectColumns project) {
+        return new BookingReportRow(
+                application.getId(),
+                application.getApplicantId(),
+                application.getProjectId(),
+                project != null ? project.name : null,
+                project != null ? project.neighbourhood : null,
+                application.getStatus(),
+                application.getFlatType());
+    }
+
+    private static Query parse(Map<String, String> filters, LocalDate today) {
+        Query query = new Query();
+        query.projectId = filterValue(filters, "projectId");
+
+        String status = filterValue(filters, "status");
+        if (status != null) {
+            try {
+                query.status = ApplStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                // Invalid status, ignore filter
+            }
+        }
+
+        MaritalStatus maritalStatus = null;
+        Integer minAge = null;
+        Integer maxAge = null;
+        try {
+            String flatType = filterValue(filters, "flatType");
+            if (flatType != null) query.flatType = FlatType.valueOf(flatType.toUpperCase()).name();
+
+            String marital = filterValue(filters, "maritalStatus");
+            if (marital != null) maritalStatus = MaritalStatus.valueOf(marital.toUpperCase());
+
+            String age = filterValue(filters, "age");
+            String min = filterValue(filters, "minAge");
+            String max = filterValue(filters, "maxAge");
+            if (age != null) minAge = maxAge = Integer.valueOf(age);
+            if (min != null) minAge = Math.max(minAge != null ? minAge : Integer.MIN_VALUE, Integer.parseInt(min));
+            if (max != null) maxAge = Math.min(maxAge != null ? maxAge : Integer.MAX_VALUE, Integer.parseInt(max));
+
+            query.demographics = ApplicantProjection.Criteria.of(maritalStatus, minAge, maxAge, today);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // Unknown enum name, non-numeric age, or an age too large to subtract from today
+            query.matchesNothing = true;
+        }
+        return query;
+    }
+
+    private static String filterValue(Map<String, String> filters, String key) {
+        if (filters == null) return null;
+        String value = filters.get(key);
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
@@ -0,0 +1,417 @@
+package service;
+
+import entity.BookingReportRow;
+import pub_enums.ApplStatus;
+import pub_enums.ReportFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes a booking report to a file as its rows are streamed, in one of the {@link ReportFormat}s.
+ * <p>
+ * All output passes through one {@value #BUFFER_SIZE}-byte buffer that is drained to a {@link FileChannel}
+ * whenever it fills. Memory therefore stays the same whatever the number of rows. The file is written as
+ * {@code <file>.tmp} and renamed over the target once complete, so a failed export leaves no truncated file.
+ * <p>
+ * CSV: RFC 4180, comma-separated, with a header row. A field is quoted if it contains a comma, quote or line
+ * break. Null values are empty fields.
+ * <p>
+ * Columnar (integers are unsigned LEB128 varints):
+ * <pre>
+ * "BTOR" | version (1 byte) | status names: count, then each name as a string
+ * row groups, each:  row count (0 ends the file), then
+ *     new projects:     count, then each as ID, name and neighbourhood strings
+ *     new flat types:   count, then each as a string
+ *     application IDs:  a string per row
+ *     applicant IDs:    a string per row
+ *     projects:         a varint per row, indexing the project dictionary
+ *     statuses:         a byte per row, indexing the status names (255 = null)
+ *     flat types:       a varint per row, indexing the flat type dictionary
+ * </pre>
+ * Strings are a varint of length + 1 (0 = null), then UTF-8 bytes. The dictionaries grow across the file: a row
+ * group declares only the projects and flat types it is the first to use. Statuses are stored by ordinal, and
+ * {@link #readColumnar} maps them back by name. A group holds at most {@value #GROUP_ROWS} rows, so the writer
+ * buffers one group plus one dictionary entry per distinct project.
+ */
+public final class BookingReportExporter {
+    static final byte[] MAGIC = {'B', 'T', 'O', 'R'};
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int GROUP_ROWS = 8192;
+    private static final int NULL_STATUS = 255;
+    private static final ApplStatus[] STATUSES = ApplStatus.values();
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CSV_HEADER = "applicationId,applicantId,projectId,projectName,neighbourhood,status,flatType";
+
+    private BookingReportExporter() {
+    }
+
+    // ========== Export ==========
+
+    /**
+     * Consumes the rows into a new file, replacing any existing one once the export is complete.
+     * The caller still owns the stream and closes it.
+     *
+     * @return The number of rows written.
+     * @throws IOException if the file cannot be written; the temp file is removed and the target untouched.
+     */
+    public static long export(Stream<BookingReportRow> rows, Path target, ReportFormat format) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        long count;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            count = format == ReportFormat.COLUMNAR ? writeColumnar(rows.iterator(), out) : writeCsv(rows.iterator(), out);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static long writeCsv(Iterator<BookingReportRow> rows, ChannelOutput out) throws IOException {
+        out.putAscii(CSV_HEADER);
+        out.putLineBreak();
+        long count = 0;
+        while (rows.hasNext()) {
+            BookingReportRow row = rows.next();
+            putCsvField(out, row.getApplicationId());
+            out.put(',');
+            putCsvField(out, row.getApplicantId());
+            out.put(',');
+            putCsvField(out, row.getProjectId());
+            out.put(',');
+            putCsvField(out, row.getProjectName());
+            out.put(',');
+            putCsvField(out, row.getNeighbourhood());
+            out.put(',');
+            putCsvField(out, row.getStatus() == null ? null : row.getStatus().name());
+            out.put(',');
+            putCsvField(out, row.getFlatType());
+            out.putLineBreak();
+            count++;
+        }
+        return count;
+    }
+
+    private static void putCsvField(ChannelOutput out, String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            ascii &= c < 0x80;
+        }
+        if (!quote) {
+            if (ascii) {
+                out.putAscii(value);
+            } else {
+                out.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return;
+        }
+        out.put('"');
+        out.putBytes(value.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+        out.put('"');
+    }
+
+    private static long writeColumnar(Iterator<BookingReportRow> rows, ChannelOutput out) throws IOException {
+        out.putBytes(MAGIC);
+        out.put(VERSION);
+        out.putVarInt(STATUSES.length);
+        for (ApplStatus status : STATUSES) {
+            out.putString(status.name());
+        }
+
+        RowGroup group = new RowGroup();
+        long count = 0;
+        while (rows.hasNext()) {
+            group.add(rows.next());
+            count++;
+            if (group.size == GROUP_ROWS) {
+                group.writeTo(out);
+            }
+        }
+        if (group.size > 0) {
+            group.writeTo(out);
+        }
+        out.putVarInt(0);
+        return count;
+    }
+
+    /**
+     * The rows of one columnar row group, and the dictionaries built so far.
+     */
+    private static final class RowGroup {
+        private final Map<String, Integer> projectIndex = new HashMap<>();
+        private final Map<String, Integer> flatTypeIndex = new HashMap<>();
+        private final List<BookingReportRow> newProjects = new ArrayList<>(); // First row using each new project
+        private final List<String> newFlatTypes = new ArrayList<>();
+
+        private final String[] applicationIds = new String[GROUP_ROWS];
+        private final String[] applicantIds = new String[GROUP_ROWS];
+        private final int[] projects = new int[GROUP_ROWS];
+        private final byte[] statuses = new byte[GROUP_ROWS];
+        private final int[] flatTypes = new int[GROUP_ROWS];
+        private int size;
+
+        private void add(BookingReportRow row) {
+            Integer project = projectIndex.get(row.getProjectId());
+            if (project == null) {
+                project = projectIndex.size();
+                projectIndex.put(row.getProjectId(), project);
+                newProjects.add(row);
+            }
+            Integer flatType = flatTypeIndex.get(row.getFlatType());
+            if (flatType == null) {
+                flatType = flatTypeIndex.size();
+                flatTypeIndex.put(row.getFlatType(), flatType);
+                newFlatTypes.add(row.getFlatType());
+            }
+
+            applicationIds[size] = row.getApplicationId();
+            applicantIds[size] = row.getApplicantId();
+            projects[size] = project;
+            statuses[size] = (byte) (row.getStatus() == null ? NULL_STATUS : row.getStatus().ordinal());
+            flatTypes[size] = flatType;
+            size++;
+        }
+
+        private void writeTo(ChannelOutput out) throws IOException {
+            out.putVarInt(size);
+            out.putVarInt(newProjects.size());
+            for (BookingReportRow row : newProjects) {
+                out.putString(row.getProjectId());
+                out.putString(row.getProjectName());
+                out.putString(row.getNeighbourhood());
+            }
+            out.putVarInt(newFlatTypes.size());
+            for (String flatType : newFlatTypes) {
+                out.putString(flatType);
+            }
+
+            for (int i = 0; i < size; i++) {
+                out.putString(applicationIds[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.putString(applicantIds[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.putVarInt(projects[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.put(statuses[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.putVarInt(flatTypes[i]);
+            }
+
+            newProjects.clear();
+            newFlatTypes.clear();
+            Arrays.fill(applicationIds, 0, size, null);
+            Arrays.fill(applicantIds, 0, size, null);
+            size = 0;
+        }
+    }
+
+    // ========== Columnar Import ==========
+
+    /**
+     * Reads a columnar export back, row by row, through the same bounded buffer.
+     *
+     * @return The number of rows read.
+     * @throws IOException if the file is not a columnar export, is from a newer version, or is truncated.
+     */
+    public static long readColumnar(Path source, Consumer<BookingReportRow> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ChannelInput in = new ChannelInput(channel);
+            for (byte b : MAGIC) {
+                if (in.get() != b) throw new IOException(source + " is not a columnar booking report");
+            }
+            int version = in.get();
+            if (version > VERSION) {
+                throw new IOException(source + " has version " + version + ", newer than supported " + VERSION);
+            }
+
+            ApplStatus[] statusNames = new ApplStatus[in.getVarInt()];
+            for (int i = 0; i < statusNames.length; i++) {
+                String name = in.getString();
+                statusNames[i] = Arrays.stream(STATUSES).filter(s -> s.name().equals(name)).findFirst().orElse(null);
+            }
+
+            List<String[]> projects = new ArrayList<>(); // ID, name, neighbourhood
+            List<String> flatTypes = new ArrayList<>();
+            String[] applicationIds = new String[GROUP_ROWS];
+            String[] applicantIds = new String[GROUP_ROWS];
+            int[] projectRefs = new int[GROUP_ROWS];
+            int[] statusRefs = new int[GROUP_ROWS];
+            long count = 0;
+            for (int size = in.getVarInt(); size > 0; size = in.getVarInt()) {
+                if (size > GROUP_ROWS) throw new IOException(source + " has a row group of " + size + " rows");
+                for (int i = in.getVarInt(); i > 0; i--) {
+                    projects.add(new String[]{in.getString(), in.getString(), in.getString()});
+                }
+                for (int i = in.getVarInt(); i > 0; i--) {
+                    flatTypes.add(in.getString());
+                }
+                for (int i = 0; i < size; i++) {
+                    applicationIds[i] = in.getString();
+                }
+                for (int i = 0; i < size; i++) {
+                    applicantIds[i] = in.getString();
+                }
+                for (int i = 0; i < size; i++) {
+                    projectRefs[i] = in.getVarInt();
+                }
+                for (int i = 0; i < size; i++) {
+                    statusRefs[i] = in.get() & 0xFF;
+                }
+                for (int i = 0; i < size; i++) { // The flat type column comes last, so it is read as rows are emitted
+                    String[] project = projects.get(projectRefs[i]);
+                    ApplStatus status = statusRefs[i] < statusNames.length ? statusNames[statusRefs[i]] : null;
+                    consumer.accept(new BookingReportRow(applicationIds[i], applicantIds[i], project[0], project[1],
+                            project[2], status, flatTypes.get(in.getVarInt())));
+                }
+                count += size;
+            }
+            return count;
+        }
+    }
+
+    // ========== Channel I/O ==========
+    private static final class ChannelOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void put(int b) throws IOException {
+            if (!buffer.hasRemaining()) drain();
+            buffer.put((byte) b);
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) drain();
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        /**
+         * Writes a string known to be ASCII without encoding it to a byte array first.
+         */
+        private void putAscii(String value) throws IOException {
+            for (int i = 0; i < value.length(); ) {
+                if (!buffer.hasRemaining()) drain();
+                int end = Math.min(value.length(), i + buffer.remaining());
+                for (; i < end; i++) {
+                    buffer.put((byte) value.charAt(i));
+                }
+            }
+        }
+
+        private void putVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                put((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            put(value);
+        }
+
+        private void putString(String value) throws IOException {
+            if (value == null) {
+                putVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length + 1);
+            putBytes(bytes);
+        }
+
+        private void putLineBreak() throws IOException {
+            put('\r');
+            put('\n');
+        }
+
+        private void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class ChannelInput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private ChannelInput(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        private byte get() throws IOException {
+            if (!buffer.hasRemaining()) fill();
+            return buffer.get();
+        }
+
+        private int getVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private String getString() throws IOException {
+            int length = getVarInt();
+            if (length == 0) return null;
+            byte[] bytes = new byte[length - 1];
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) fill();
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.get(bytes, offset, n);
+                offset += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void fill() throws IOException {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) throw new EOFException("Unexpected end of columnar report");
+        }
+    }
+}
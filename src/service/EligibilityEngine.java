@@ -0,0 +1,190 @@
+package service;
+
+import entity.Applicant;
+import entity.Project;
+import pub_enums.FlatType;
+import pub_enums.MaritalStatus;
+import repository.ProjectRepo;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Precomputes which flat types an applicant may apply for and which projects offer them,
+ * so project listings do not recompute ages or walk every project's flat list.
+ * <ul>
+ *     <li>Rules are tabulated per (MaritalStatus, age band): Single >= 35 (2-Room only), Married >= 21 (Any).</li>
+ *     <li>An applicant's eligible set is cached for the day and dropped if their DOB or marital status changes.</li>
+ *     <li>Project-by-flat-type bitmaps are rebuilt when the project catalogue changes
+ *     or when any project's application window opens or closes.</li>
+ * </ul>
+ */
+public class EligibilityEngine {
+    private static final int APPLICANT_CACHE_SIZE = 10_000;
+
+    private enum AgeBand {
+        UNDER_21, FROM_21_TO_34, FROM_35;
+
+        static AgeBand of(int age) {
+            if (age >= 35) return FROM_35;
+            if (age >= 21) return FROM_21_TO_34;
+            return UNDER_21;
+        }
+    }
+
+    private static final Map<MaritalStatus, Map<AgeBand, Set<FlatType>>> RULES = new EnumMap<>(MaritalStatus.class);
+
+    static {
+        for (MaritalStatus status : MaritalStatus.values()) {
+            Map<AgeBand, Set<FlatType>> byBand = new EnumMap<>(AgeBand.class);
+            for (AgeBand band : AgeBand.values()) {
+                Set<FlatType> types = EnumSet.noneOf(FlatType.class);
+                if (status == MaritalStatus.SINGLE && band == AgeBand.FROM_35) {
+                    types.add(FlatType.TWOROOM);
+                } else if (status == MaritalStatus.MARRIED && band != AgeBand.UNDER_21) {
+                    types.add(FlatType.TWOROOM);
+                    types.add(FlatType.THREEROOM);
+                }
+                byBand.put(band, Collections.unmodifiableSet(types));
+            }
+            RULES.put(status, byBand);
+        }
+    }
+
+    private static final class ApplicantEntry {
+        private final LocalDate day;
+        private final Date dob;
+        private final MaritalStatus maritalStatus;
+        private final Set<FlatType> eligibleTypes;
+
+        private ApplicantEntry(LocalDate day, Date dob, MaritalStatus maritalStatus, Set<FlatType> eligibleTypes) {
+            this.day = day;
+            this.dob = dob;
+            this.maritalStatus = maritalStatus;
+            this.eligibleTypes = eligibleTypes;
+        }
+    }
+
+    private final ProjectRepo projectRepo;
+    private final Map<String, ApplicantEntry> applicantCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ApplicantEntry> eldest) {
+            return size() > APPLICANT_CACHE_SIZE;
+        }
+    };
+
+    // Project bitmaps: bit i refers to projectSlots.get(i)
+    private List<Project> projectSlots = new ArrayList<>();
+    private final Map<String, Integer> slotOf = new HashMap<>();
+    private final Map<FlatType, BitSet> offered = new EnumMap<>(FlatType.class);
+    private final Map<FlatType, BitSet> openAndOffered = new EnumMap<>(FlatType.class);
+    private long builtVersion = -1;
+    private long validUntil; // Epoch millis of the next application window boundary
+
+    public EligibilityEngine(ProjectRepo projectRepo) {
+        this.projectRepo = projectRepo;
+    }
+
+    // ========== Applicant Side ==========
+
+    /**
+     * @param applicant The applicant.
+     * @return The flat types the applicant may apply for today (never null).
+     */
+    public synchronized Set<FlatType> eligibleFlatTypes(Applicant applicant) {
+        if (applicant == null || applicant.getDob() == null || applicant.getMaritalStatus() == null) {
+            return Collections.emptySet();
+        }
+        LocalDate today = LocalDate.now();
+        ApplicantEntry entry = applicantCache.get(applicant.getId());
+        if (entry == null || !entry.day.equals(today) || !entry.dob.equals(applicant.getDob())
+                || entry.maritalStatus != applicant.getMaritalStatus()) {
+            LocalDate birthday = applicant.getDob().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            int age = Period.between(birthday, today).getYears();
+            Set<FlatType> types = RULES.get(applicant.getMaritalStatus()).get(AgeBand.of(age));
+            entry = new ApplicantEntry(today, (Date) applicant.getDob().clone(), applicant.getMaritalStatus(), types);
+            applicantCache.put(applicant.getId(), entry);
+        }
+        return entry.eligibleTypes;
+    }
+
+    // ========== Project Side ==========
+
+    /**
+     * @param applicant The applicant.
+     * @return Visible projects currently open for application that offer a flat type the applicant is eligible for.
+     */
+    public synchronized List<Project> findOpenEligibleProjects(Applicant applicant) {
+        refreshIfStale();
+        BitSet matches = new BitSet(projectSlots.size());
+        for (FlatType type : eligibleFlatTypes(applicant)) {
+            matches.or(openAndOffered.get(type));
+        }
+        List<Project> projects = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            projects.add(projectSlots.get(i));
+        }
+        return projects;
+    }
+
+    /**
+     * @return true if the project offers at least one flat type the applicant is eligible for.
+     */
+    public synchronized boolean isEligibleForAnyFlat(Applicant applicant, Project project) {
+        if (project == null) return false;
+        Set<FlatType> types = eligibleFlatTypes(applicant);
+        if (types.isEmpty()) return false;
+
+        refreshIfStale();
+        Integer slot = slotOf.get(project.getProjectId());
+        if (slot == null || projectSlots.get(slot) != project) {
+            // Not a repository project (or replaced since the last rebuild); check it directly
+            for (FlatType type : project.getFlatTypes()) {
+                if (types.contains(type)) return true;
+            }
+            return false;
+        }
+        for (FlatType type : types) {
+            if (offered.get(type).get(slot)) return true;
+        }
+        return false;
+    }
+
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        long version = projectRepo.getCatalogue().getVersion();
+        if (version == builtVersion && now < validUntil) return;
+
+        projectSlots = projectRepo.findAll();
+        slotOf.clear();
+        for (FlatType type : FlatType.values()) {
+            offered.put(type, new BitSet(projectSlots.size()));
+            openAndOffered.put(type, new BitSet(projectSlots.size()));
+        }
+        long nextBoundary = Long.MAX_VALUE;
+
+        for (int i = 0; i < projectSlots.size(); i++) {
+            Project project = projectSlots.get(i);
+            slotOf.put(project.getProjectId(), i);
+
+            boolean open = false;
+            if (project.getAppOpen() != null && project.getAppClose() != null) {
+                long openAt = project.getAppOpen().getTime();
+                long closeAt = project.getAppClose().getTime();
+                open = now >= openAt && now <= closeAt;
+                if (now < openAt) nextBoundary = Math.min(nextBoundary, openAt);
+                if (now <= closeAt) nextBoundary = Math.min(nextBoundary, closeAt + 1);
+            }
+            open = open && project.isVisible();
+
+            for (FlatType type : project.getFlatTypes()) {
+                offered.get(type).set(i);
+                if (open) openAndOffered.get(type).set(i);
+            }
+        }
+        builtVersion = version;
+        validUntil = nextBoundary;
+    }
+}
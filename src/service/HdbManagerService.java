@@ -4,8 +4,13 @@ import entity.*;
 import pub_enums.*;
 import repository.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.LoggingPermission;
+import java.util.stream.Stream;
 
 /**
  * Provides services specific to HDB Managers, handling project management,
@@ -18,16 +23,24 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
     private ApplicationRepo applicationRepo;
     private EnquiryRepo enquiryRepo;
     private HdbOfficerRepo officerRepo;
+    private ApplicantRepo applicantRepo;
+    private final BookingReportEngine bookingReportEngine;
+    private volatile boolean verifyAggregates;
+    private volatile ForkJoinPool reportPool; // Null while booking reports are produced sequentially
+
+    private static final Set<String> FILTER_KEYS = Set.of("neighbourhood", "flattype", "projectname", "name", "visible");
 
     public HdbManagerService(HdbManagerRepo managerRepo, ProjectRepo projectRepo, 
                             ApplicationRepo applicationRepo, EnquiryRepo enquiryRepo,
-                            HdbOfficerRepo officerRepo) {
+                            HdbOfficerRepo officerRepo, ApplicantRepo applicantRepo) {
         super();
         this.managerRepo = managerRepo;
         this.projectRepo = projectRepo;
         this.applicationRepo = applicationRepo;
         this.enquiryRepo = enquiryRepo;
         this.officerRepo = officerRepo;
+        this.applicantRepo = applicantRepo;
+        this.bookingReportEngine = new BookingReportEngine(applicationRepo, projectRepo, applicantRepo);
     }
 
     // --- IProjectView Implementation ---
@@ -59,69 +72,17 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
         if (!(user instanceof HdbManager)) return Collections.emptyList();
         HdbManager manager = (HdbManager) user;
         
-        List<Project> allProjects = filters.containsKey("onlymanaged") && 
-                                    "true".equalsIgnoreCase(filters.get("onlymanaged")) ?
-                                    viewProjectsByUser(user) : // Only manager's projects
-                                    projectRepo.findAll();     // All projects
-        
+        boolean onlyManaged = filters != null && "true".equalsIgnoreCase(filters.get("onlymanaged"));
         if (filters == null || filters.isEmpty()) {
-            return allProjects;
-        }
-
-        List<Project> filteredList = new ArrayList<>();
-        for (Project project : allProjects) {
-            boolean match = true;
-            for (Map.Entry<String, String> entry : filters.entrySet()) {
-                String key = entry.getKey().toLowerCase();
-                String value = entry.getValue();
-                if (value == null || value.trim().isEmpty() || key.equals("onlymanaged")) continue; // Skip empty filters
-
-                switch (key) {
-                    case "neighbourhood":
-                        if (project.getNeighbourhood() == null || !project.getNeighbourhood().equalsIgnoreCase(value)) {
-                            match = false;
-                        }
-                        break;
-                    case "flattype": // Check if project offers this flat type
-                        try {
-                            FlatType requestedType = FlatType.valueOf(value.toUpperCase());
-                            boolean offersType = false;
-                            if(project.getFlats() != null){
-                                for(Flat flat : project.getFlats()){
-                                    if(flat.getFlatType() == requestedType){
-                                        offersType = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if(!offersType) match = false;
-                        } catch (IllegalArgumentException e) {
-                            match = false; // Invalid flat type string
-                        }
-                        break;
-                    case "projectname":
-                    case "name":
-                        if (project.getProjName() == null || !project.getProjName().toLowerCase().contains(value.toLowerCase())) {
-                            match = false;
-                        }
-                        break;
-                    case "visible":
-                        boolean visibleFilter = "true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value);
-                        if (project.isVisible() != visibleFilter) {
-                            match = false;
-                        }
-                        break;
-                    default:
-                        // Ignore unknown filter keys
-                        break;
-                }
-                if (!match) break; // Stop checking filters for this project if one fails
-            }
-            if (match) {
-                filteredList.add(project);
-            }
+            return projectRepo.findAll();
+        }
+
+        // Resolve the filters against the catalogue indexes
+        Set<String> matchingIds = projectRepo.getCatalogue().search(filters, FILTER_KEYS);
+        if (onlyManaged) {
+            matchingIds.retainAll(projectRepo.getCatalogue().findByManagerId(manager.getId()));
         }
-        return filteredList;
+        return projectRepo.findAllById(matchingIds);
     }
 
     /**
@@ -290,38 +251,41 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
             return false; // Not authorized
         }
 
-        // Check if officer slots are available
-        int assignedCount = (project.getOfficers() != null) ? project.getOfficers().size() : 0;
-        if (assignedCount >= project.getOfficerSlots()) {
-            return false; // No slots available
-        }
-
-        // Initialize officers list if null
-        if (project.getOfficers() == null) {
-            project.setOfficers(new ArrayList<>());
-        }
+        Lock lock = projectRepo.lockFor(projectId);
+        lock.lock();
+        try {
+            // Check if officer slots are available
+            ProjectCatalogue catalogue = projectRepo.getCatalogue();
+            int assignedCount = catalogue.countOfficers(projectId);
+            if (assignedCount >= project.getOfficerSlots()) {
+                return false; // No slots available
+            }
 
-        // Check if officer is already assigned
-        for (HdbOfficer existingOfficer : project.getOfficers()) {
-            if (existingOfficer.getId().equals(officerId) && existingOfficer.getStatus() == OfficerStatus.ASSIGNED) {
+            // Check if officer is already assigned, through the assignment index
+            boolean onProject = catalogue.hasOfficer(projectId, officerId);
+            if (onProject && officer.getStatus() == OfficerStatus.ASSIGNED) {
                 return true; // Already assigned
             }
-        }
 
-        // Add officer to project or Update officer status if rejected
-        if (confirm) {
-            officer.setStatus(OfficerStatus.ASSIGNED);
-        }
-        else {
-            project.removeOfficer(officer);
-            officer.setStatus(OfficerStatus.AVAILABLE);
-        }
+            // Add officer to project or Update officer status if rejected
+            if (confirm) {
+                if (!onProject) {
+                    projectRepo.addOfficer(project, officer);
+                }
+                officer.setStatus(OfficerStatus.ASSIGNED);
+            }
+            else {
+                projectRepo.removeOfficer(project, officer);
+                officer.setStatus(OfficerStatus.AVAILABLE);
+            }
 
-        // Save changes
-        projectRepo.update(project);
-        officerRepo.update(officer);
+            // Save changes
+            officerRepo.update(officer);
         
-        return true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -352,11 +316,14 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
             return false; // Not authorized
         }
 
-        // Update status
-        application.setStatus(newStatus);
-        applicationRepo.update(application);
-        
-        return true;
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Update status
+            return commitStatus(application, newStatus);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -374,28 +341,31 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
         }
         Application application = optApp.get();
 
-        // Check if application is in WITHDRAW_PENDING status
-        if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
-            return false; // Not pending withdrawal
-        }
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Check if application is in WITHDRAW_PENDING status
+            if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
+                return false; // Not pending withdrawal
+            }
 
-        // Find the project
-        Optional<Project> optProject = projectRepo.findById(application.getProjectId());
-        if (!optProject.isPresent()) {
-            return false; // Project not found
-        }
-        Project project = optProject.get();
+            // Find the project
+            Optional<Project> optProject = projectRepo.findById(application.getProjectId());
+            if (!optProject.isPresent()) {
+                return false; // Project not found
+            }
+            Project project = optProject.get();
 
-        // Verify manager owns the project
-        if (project.getManager() == null || !project.getManager().getId().equals(manager.getId())) {
-            return false; // Not authorized
-        }
+            // Verify manager owns the project
+            if (project.getManager() == null || !project.getManager().getId().equals(manager.getId())) {
+                return false; // Not authorized
+            }
 
-        // Update status to WITHDRAW_APPROVED
-        application.setStatus(ApplStatus.WITHDRAW_APPROVED);
-        applicationRepo.update(application);
-        
-        return true;
+            // Update status to WITHDRAW_APPROVED
+            return commitStatus(application, ApplStatus.WITHDRAW_APPROVED);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -413,28 +383,31 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
         }
         Application application = optApp.get();
 
-        // Check if application is in WITHDRAW_PENDING status
-        if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
-            return false; // Not pending withdrawal
-        }
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Check if application is in WITHDRAW_PENDING status
+            if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
+                return false; // Not pending withdrawal
+            }
 
-        // Find the project
-        Optional<Project> optProject = projectRepo.findById(application.getProjectId());
-        if (!optProject.isPresent()) {
-            return false; // Project not found
-        }
-        Project project = optProject.get();
+            // Find the project
+            Optional<Project> optProject = projectRepo.findById(application.getProjectId());
+            if (!optProject.isPresent()) {
+                return false; // Project not found
+            }
+            Project project = optProject.get();
 
-        // Verify manager owns the project
-        if (project.getManager() == null || !project.getManager().getId().equals(manager.getId())) {
-            return false; // Not authorized
-        }
+            // Verify manager owns the project
+            if (project.getManager() == null || !project.getManager().getId().equals(manager.getId())) {
+                return false; // Not authorized
+            }
 
-        // Revert to previous status (PENDING)
-        application.setStatus(ApplStatus.PENDING);
-        applicationRepo.update(application);
-        
-        return true;
+            // Revert to previous status (PENDING)
+            return commitStatus(application, ApplStatus.PENDING);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -444,16 +417,7 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
      * @return List of matching applications.
      */
     public List<Application> findApplicationsByStatus(ApplStatus status) {
-        List<Application> allApps = applicationRepo.findAll();
-        List<Application> matchingApps = new ArrayList<>();
-        
-        for (Application app : allApps) {
-            if (app.getStatus() == status) {
-                matchingApps.add(app);
-            }
-        }
-        
-        return matchingApps;
+        return applicationRepo.findByStatus(status);
     }
 
     /**
@@ -484,77 +448,105 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
             return false; // Not authorized
         }
         
-        // Process application
-        if (approve) {
-            application.setStatus(ApplStatus.SUCCESS);
-        } else {
-            application.setStatus(ApplStatus.REJECT);
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Only pending applications can be decided; a concurrent decision may have won
+            if (application.getStatus() != ApplStatus.PENDING) {
+                return false;
+            }
+
+            // Process application
+            return commitStatus(application, approve ? ApplStatus.SUCCESS : ApplStatus.REJECT);
+        } finally {
+            lock.unlock();
         }
-        
-        applicationRepo.update(application);
-        return true;
     }
 
     // --- IReportService Implementation ---
 
     /**
-     * Generates a booking report based on specified filters.
+     * Streams the booking report rows matching the filters, via {@link BookingReportEngine}.
+     * With report parallelism set, the rows are produced on the report pool, in a deterministic order.
      *
-     * @param filters Map of filter criteria.
-     * @return List of report data.
+     * @param filters Map of filter criteria; see {@link BookingReportEngine#stream} for the recognised keys.
+     * @return Lazy stream of report rows.
      */
     @Override
-    public List<Object> generateBookingReport(Map<String, String> filters) {
-        List<Object> reportData = new ArrayList<>();
-        
-        // Collect all applications
-        List<Application> applications = applicationRepo.findAll();
-        
-        // Apply filters
-        if (filters != null && !filters.isEmpty()) {
-            // Filter by status if specified
-            if (filters.containsKey("status")) {
-                try {
-                    ApplStatus status = ApplStatus.valueOf(filters.get("status").toUpperCase());
-                    applications = applications.stream()
-                            .filter(app -> app.getStatus() == status)
-                            .collect(java.util.stream.Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid status, ignore filter
-                }
-            }
-            
-            // Filter by project if specified
-            if (filters.containsKey("projectId")) {
-                String projectId = filters.get("projectId");
-                applications = applications.stream()
-                        .filter(app -> app.getProjectId().equals(projectId))
-                        .collect(java.util.stream.Collectors.toList());
-            }
-            
-            // Add more filters as needed
+    public Stream<BookingReportRow> streamBookingReport(Map<String, String> filters) {
+        ForkJoinPool pool = reportPool;
+        return pool == null ? bookingReportEngine.stream(filters) : bookingReportEngine.streamParallel(filters, pool);
+    }
+
+    /**
+     * Streams the booking report matching the filters into a file, through {@link BookingReportExporter}.
+     *
+     * @param filters Map of filter criteria, as for {@link #streamBookingReport}.
+     * @param target  The file to create or replace.
+     * @param format  The file format.
+     * @return The number of rows exported.
+     * @throws IOException if the file cannot be written; an existing file at the target is left as it was.
+     */
+    public long exportBookingReport(Map<String, String> filters, Path target, ReportFormat format) throws IOException {
+        try (Stream<BookingReportRow> rows = streamBookingReport(filters)) {
+            return BookingReportExporter.export(rows, target, format);
         }
-        
-        // Transform applications to report data
-        for (Application app : applications) {
-            Map<String, Object> reportItem = new HashMap<>();
-            reportItem.put("applicationId", app.getId());
-            reportItem.put("applicantId", app.getApplicantId());
-            reportItem.put("projectId", app.getProjectId());
-            reportItem.put("status", app.getStatus().name());
-            reportItem.put("flatType", app.getFlatType());
-            
-            // Add project details if available
-            Project project = projectRepo.findById(app.getProjectId()).orElse(null);
-            if (project != null) {
-                reportItem.put("projectName", project.getProjName());
-                reportItem.put("neighbourhood", project.getNeighbourhood());
-            }
-            
-            reportData.add(reportItem);
+    }
+
+    /**
+     * Sets how many threads produce each booking report. 1 or less produces reports sequentially on the
+     * caller's thread. A previous report pool is shut down; reports already streaming from it run to completion.
+     */
+    public synchronized void setReportParallelism(int parallelism) {
+        ForkJoinPool previous = reportPool;
+        reportPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    // --- Application Summary ---
+
+    /**
+     * Counts a project's applications by flat type and status, read from the counters ApplicationRepo
+     * maintains, so the cost does not depend on the number of applications.
+     * In verification mode the counters are first cross-checked against a full scan; see {@link #setVerifyAggregates}.
+     *
+     * @param projectId The project to summarise.
+     * @return Counts for every flat type and status, zero where there are none.
+     */
+    public Map<FlatType, Map<ApplStatus, Integer>> getApplicationSummary(String projectId) {
+        if (projectId == null || !projectRepo.findById(projectId).isPresent()) {
+            throw new IllegalArgumentException("Project not found: " + projectId);
+        }
+        if (verifyAggregates) {
+            List<String> mismatches = applicationRepo.verifyAggregates(projectId);
+            mismatches.forEach(mismatch -> System.err.println("Aggregate mismatch: " + mismatch));
+        }
+        return applicationRepo.getAggregates().countsFor(projectId);
+    }
+
+    /**
+     * Turns verification mode on or off. While on, every application summary scans all applications
+     * to check the counters, which defeats their purpose; it is meant for diagnosing counter drift.
+     */
+    public void setVerifyAggregates(boolean verifyAggregates) {
+        this.verifyAggregates = verifyAggregates;
+    }
+
+    /**
+     * Durably commits a status change. Callers hold the application's lock.
+     *
+     * @return false if the change could not be logged; the application keeps its previous status.
+     */
+    private boolean commitStatus(Application application, ApplStatus status) {
+        try {
+            applicationRepo.beginWork().changeStatus(application, status).commit();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error updating application " + application.getId() + ": " + e.getMessage());
+            return false;
         }
-        
-        return reportData;
     }
 
     public void deleteProject(HdbManager manager, Project project) {
@@ -563,4 +555,4 @@ public class HdbManagerService extends UserService implements IProjectView, IRep
         }
         projectRepo.delete(project);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -3,8 +3,11 @@ package service;
 import entity.*;
 import pub_enums.*;
 import repository.*;
+import util.Page;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.ZoneId;
@@ -21,6 +24,8 @@ public class HdbOfficerService extends UserService implements IApplyableService,
     private EnquiryRepo enquiryRepo;
     private ApplicantRepo applicantRepo;
 
+    private static final Set<String> FILTER_KEYS = Set.of("neighbourhood", "flattype", "projectname");
+
     public HdbOfficerService(HdbOfficerRepo officerRepo, ProjectRepo projectRepo, 
                             ApplicationRepo applicationRepo, EnquiryRepo enquiryRepo,
                             ApplicantRepo applicantRepo) {
@@ -50,8 +55,7 @@ public class HdbOfficerService extends UserService implements IApplyableService,
         if (project == null) return null;
 
         // Check if the officer is assigned to this project
-        if (project.getOfficers() != null && project.getOfficers().stream()
-                .anyMatch(o -> o.getId().equals(officer.getId()))) {
+        if (isOfficerAssigned(officer, project)) {
             return project;
         }
         
@@ -79,56 +83,23 @@ public class HdbOfficerService extends UserService implements IApplyableService,
             return accessibleProjects; // No filters applied
         }
 
+        // Resolve the filters against the catalogue indexes
+        ProjectCatalogue catalogue = projectRepo.getCatalogue();
+        Set<String> matchingIds = catalogue.search(filters, FILTER_KEYS);
+        for (Map.Entry<String, String> entry : filters.entrySet()) {
+            String value = entry.getValue();
+            if (!"assigned".equalsIgnoreCase(entry.getKey()) || value == null || value.trim().isEmpty()) continue;
+            Set<String> assignedIds = catalogue.findByOfficerId(user.getId());
+            if (Boolean.parseBoolean(value)) {
+                matchingIds.retainAll(assignedIds);
+            } else {
+                matchingIds.removeAll(assignedIds);
+            }
+        }
+
         List<Project> filteredList = new ArrayList<>();
         for (Project project : accessibleProjects) {
-            boolean match = true;
-            for (Map.Entry<String, String> entry : filters.entrySet()) {
-                String key = entry.getKey().toLowerCase();
-                String value = entry.getValue();
-                if (value == null || value.trim().isEmpty()) continue; // Skip empty filter values
-
-                switch (key) {
-                    case "neighbourhood":
-                        if (project.getNeighbourhood() == null || !project.getNeighbourhood().equalsIgnoreCase(value)) {
-                            match = false;
-                        }
-                        break;
-                    case "flattype": // Check if project offers this flat type
-                        try {
-                            FlatType requestedType = FlatType.valueOf(value.toUpperCase());
-                            boolean offersType = false;
-                            if(project.getFlats() != null){
-                                for(Flat flat : project.getFlats()){
-                                    if(flat.getFlatType() == requestedType){
-                                        offersType = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if(!offersType) match = false;
-                        } catch (IllegalArgumentException e) {
-                            match = false; // Invalid flat type string
-                        }
-                        break;
-                    case "projectname":
-                        if (project.getProjName() == null || !project.getProjName().toLowerCase().contains(value.toLowerCase())) {
-                            match = false;
-                        }
-                        break;
-                    case "assigned":
-                        boolean assigned = Boolean.parseBoolean(value);
-                        boolean isAssigned = isOfficerAssigned((HdbOfficer)user, project);
-                        if (assigned != isAssigned) {
-                            match = false;
-                        }
-                        break;
-                    default:
-                        // Ignore unknown filter keys
-                        break;
-                }
-                if (!match) break; // Stop checking filters for this project if one fails
-            }
-            if (match) {
+            if (matchingIds.contains(project.getProjectId())) {
                 filteredList.add(project);
             }
         }
@@ -145,39 +116,28 @@ public class HdbOfficerService extends UserService implements IApplyableService,
     public List<Project> viewProjectsByUser(User user) {
         if (!(user instanceof HdbOfficer)) return Collections.emptyList();
         HdbOfficer officer = (HdbOfficer) user;
+        ProjectCatalogue catalogue = projectRepo.getCatalogue();
 
-        // Get all projects
-        List<Project> allProjects = projectRepo.findAll();
-        List<Project> assignedProjects = new ArrayList<>();
-        List<Project> visibleProjects = new ArrayList<>();
-        
-        for (Project project : allProjects) {
-            // Check if officer is assigned to this project
-            if (project.getOfficers() != null && project.getOfficers().stream()
-                    .anyMatch(o -> o.getId().equals(officer.getId()) && o.getStatus() == OfficerStatus.ASSIGNED)) {
-                assignedProjects.add(project);
-            }
-            // Also include visible projects
-            else if (project.isVisible()) {
-                visibleProjects.add(project);
-            }
-        }
+        // Projects the officer is assigned to, from the assignment index; none until the assignment is approved
+        Set<String> assignedIds = officer.getStatus() == OfficerStatus.ASSIGNED
+                ? catalogue.findByOfficerId(officer.getId()) : new HashSet<>();
+
+        // Also include visible projects
+        Set<String> visibleIds = catalogue.search(Map.of("visible", "true"));
+        visibleIds.removeAll(assignedIds);
         
         // Combine lists with assigned projects first
-        List<Project> result = new ArrayList<>(assignedProjects);
-        result.addAll(visibleProjects);
+        List<Project> result = projectRepo.findAllById(assignedIds);
+        result.addAll(projectRepo.findAllById(visibleIds));
         
         return result;
     }
     
     /**
-     * Checks if an officer is assigned to a project.
+     * Checks if an officer is assigned to a project, in O(1) through the assignment index.
      */
     private boolean isOfficerAssigned(HdbOfficer officer, Project project) {
-        if (project.getOfficers() == null) return false;
-        
-        return project.getOfficers().stream()
-                .anyMatch(o -> o.getId().equals(officer.getId()));
+        return projectRepo.getCatalogue().hasOfficer(project.getProjectId(), officer.getId());
     }
 
     // --- IApplyableService Implementation ---
@@ -243,23 +203,32 @@ public class HdbOfficerService extends UserService implements IApplyableService,
         if (!(user instanceof HdbOfficer)) return Collections.emptyList();
         HdbOfficer officer = (HdbOfficer) user;
         
-        // Get all projects officer is assigned to
-        List<Project> assignedProjects = new ArrayList<>();
-        for (Project project : projectRepo.findAll()) {
-            if (isOfficerAssigned(officer, project)) {
-                assignedProjects.add(project);
-            }
-        }
-        
         // Get enquiries for all assigned projects
         List<Enquiry> enquiries = new ArrayList<>();
-        for (Project project : assignedProjects) {
-            enquiries.addAll(enquiryRepo.findByProjectId(project.getProjectId()));
+        for (String projectId : findAssignedProjectIds(officer)) {
+            enquiries.addAll(enquiryRepo.findByProjectId(projectId));
         }
         
         return enquiries;
     }
 
+    /**
+     * Retrieves one page of the enquiries about the officer's assigned projects, oldest first.
+     *
+     * @param officer The Officer.
+     * @param cursor Null for the first page, otherwise the previous page's next cursor.
+     * @param pageSize The maximum number of enquiries to return.
+     * @param unansweredOnly Whether to list only enquiries still awaiting a reply.
+     * @return The page, empty if the officer has no assigned projects.
+     */
+    public Page<Enquiry> viewEnquiryPage(HdbOfficer officer, String cursor, int pageSize, boolean unansweredOnly) {
+        return enquiryRepo.findPageByProjectIds(findAssignedProjectIds(officer), cursor, pageSize, unansweredOnly);
+    }
+
+    private Set<String> findAssignedProjectIds(HdbOfficer officer) {
+        return projectRepo.getCatalogue().findByOfficerId(officer.getId());
+    }
+
     /**
      * Retrieves a specific enquiry by ID, ensuring the officer has access to it.
      *
@@ -404,7 +373,6 @@ public class HdbOfficerService extends UserService implements IApplyableService,
                         break;
                     }
                 }
-                applicantRepo.update(applicant);
             }
         }
         
@@ -435,27 +403,38 @@ public class HdbOfficerService extends UserService implements IApplyableService,
             return false; // Not authorized
         }
         
-        // Check if application is in a state that can be processed
-        if (application.getStatus() != ApplStatus.PENDING) {
-            return false; // Can only process pending applications
-        }
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Check if application is in a state that can be processed
+            if (application.getStatus() != ApplStatus.PENDING) {
+                return false; // Can only process pending applications
+            }
         
-        // Update status
-        application.setStatus(approve ? ApplStatus.SUCCESS : ApplStatus.REJECT);
-        applicationRepo.update(application);
+            // Update status
+            UnitOfWork work = applicationRepo.beginWork()
+                    .changeStatus(application, approve ? ApplStatus.SUCCESS : ApplStatus.REJECT);
+        
+            // Update in applicant's object if present, in the same transaction
+            Optional<Applicant> optApplicant = applicantRepo.findById(application.getApplicantId());
+            if (optApplicant.isPresent()) {
+                Applicant applicant = optApplicant.get();
+                if (applicant.getApplication() != null && 
+                    applicant.getApplication().getId().equals(applicationId)) {
+                    work.linkApplicant(applicant, application);
+                }
+            }
         
-        // Update in applicant's object if present
-        Optional<Applicant> optApplicant = applicantRepo.findById(application.getApplicantId());
-        if (optApplicant.isPresent()) {
-            Applicant applicant = optApplicant.get();
-            if (applicant.getApplication() != null && 
-                applicant.getApplication().getId().equals(applicationId)) {
-                applicant.setApplication(application);
-                applicantRepo.update(applicant);
+            try {
+                work.commit();
+            } catch (IOException e) {
+                System.err.println("Error processing application: " + e.getMessage());
+                return false;
             }
+            return true;
+        } finally {
+            lock.unlock();
         }
-        
-        return true;
     }
     
     /**
@@ -482,27 +461,117 @@ public class HdbOfficerService extends UserService implements IApplyableService,
             return false; // Not authorized
         }
         
-        // Check if application is in withdrawal pending state
-        if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
-            return false; // Can only process withdrawal requests
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            // Check if application is in withdrawal pending state
+            if (application.getStatus() != ApplStatus.WITHDRAW_PENDING) {
+                return false; // Can only process withdrawal requests
+            }
+        
+            // Update status
+            UnitOfWork work = applicationRepo.beginWork()
+                    .changeStatus(application, approve ? ApplStatus.WITHDRAW_APPROVED : ApplStatus.PENDING);
+        
+            // Update in applicant's object if present, in the same transaction
+            Optional<Applicant> optApplicant = applicantRepo.findById(application.getApplicantId());
+            if (optApplicant.isPresent()) {
+                Applicant applicant = optApplicant.get();
+                if (applicant.getApplication() != null && 
+                    applicant.getApplication().getId().equals(applicationId)) {
+                    work.linkApplicant(applicant, application);
+                }
+            }
+        
+            try {
+                work.commit();
+            } catch (IOException e) {
+                System.err.println("Error processing withdrawal: " + e.getMessage());
+                return false;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Books a flat for a successful application. One unit of the applied flat type is
+     * reserved atomically, the application is marked BOOKED, and the reservation is then
+     * confirmed. The project's flat counts are durably written before the receipt is returned.
+     * Concurrent bookings of the last units cannot oversell.
+     * 
+     * @param applicationId The ID of the SUCCESS application to book.
+     * @param officer The officer handling the booking.
+     * @return A Receipt for the booking, or null if not authorized, not bookable or sold out.
+     */
+    public Receipt bookFlat(String applicationId, HdbOfficer officer) {
+        if (applicationId == null || officer == null) {
+            return null;
+        }
+        
+        Application application = applicationRepo.findById(applicationId).orElse(null);
+        if (application == null) return null;
+        
+        // Check if officer is assigned to the project
+        Project project = projectRepo.findById(application.getProjectId()).orElse(null);
+        if (project == null) return null;
+        
+        if (!isOfficerAssigned(officer, project)) {
+            return null; // Not authorized
         }
         
-        // Update status
-        application.setStatus(approve ? ApplStatus.WITHDRAW_APPROVED : ApplStatus.PENDING);
-        applicationRepo.update(application);
+        FlatType flatType;
+        try {
+            flatType = FlatType.valueOf(application.getFlatType());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null; // Unknown flat type on the application
+        }
         
-        // Update in applicant's object if present
-        Optional<Applicant> optApplicant = applicantRepo.findById(application.getApplicantId());
-        if (optApplicant.isPresent()) {
-            Applicant applicant = optApplicant.get();
-            if (applicant.getApplication() != null && 
-                applicant.getApplication().getId().equals(applicationId)) {
-                applicant.setApplication(application);
-                applicantRepo.update(applicant);
+        // Only one officer may move a given application out of SUCCESS
+        Lock lock = applicationRepo.lockFor(applicationId);
+        lock.lock();
+        try {
+            if (application.getStatus() != ApplStatus.SUCCESS) {
+                return null; // Can only book successful applications
+            }
+            if (!project.reserveUnit(flatType)) {
+                return null; // Sold out
+            }
+            
+            // Mark BOOKED, and update the applicant's object if present, in one transaction
+            UnitOfWork work = applicationRepo.beginWork()
+                    .changeStatus(application, ApplStatus.BOOKED);
+            Optional<Applicant> optApplicant = applicantRepo.findById(application.getApplicantId());
+            if (optApplicant.isPresent()) {
+                Applicant applicant = optApplicant.get();
+                if (applicant.getApplication() != null && 
+                    applicant.getApplication().getId().equals(applicationId)) {
+                    work.linkApplicant(applicant, application);
+                }
+            }
+            try {
+                work.commit();
+            } catch (IOException e) {
+                project.releaseUnit(flatType);
+                System.err.println("Error booking flat: " + e.getMessage());
+                return null;
+            } catch (RuntimeException e) {
+                project.releaseUnit(flatType);
+                throw e;
             }
+            project.confirmUnit(flatType);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            projectRepo.commitFlatCounts(project);
+        } catch (IOException e) {
+            // The booking itself is durable in the application log; only the count write is outstanding
+            System.err.println("Error saving flat counts for project " + project.getProjectId() + ": " + e.getMessage());
         }
         
-        return true;
+        return new Receipt(UUID.randomUUID().toString(), new Date(), project.getProjectId(), application.getApplicantId());
     }
     
     /**
@@ -517,31 +586,30 @@ public class HdbOfficerService extends UserService implements IApplyableService,
             return false;
         }
         
-        // Check if officer is already assigned to this project
-        if (isOfficerAssigned(officer, project)) {
-            return true; // Already assigned
-        }
+        Lock lock = projectRepo.lockFor(project.getProjectId());
+        lock.lock();
+        try {
+            // Check if officer is already assigned to this project
+            if (isOfficerAssigned(officer, project)) {
+                return true; // Already assigned
+            }
         
-        // Check if there are available slots
-        if (project.getOfficers() != null && 
-            project.getOfficerSlots() != null && 
-            project.getOfficers().size() >= project.getOfficerSlots()) {
-            return false; // No slots available
-        }
+            // Check if there are available slots
+            if (project.getOfficerSlots() != null && 
+                projectRepo.getCatalogue().countOfficers(project.getProjectId()) >= project.getOfficerSlots()) {
+                return false; // No slots available
+            }
         
-        // Add officer to project
-        if (project.getOfficers() == null) {
-            project.setOfficers(new ArrayList<>());
-        }
-        project.getOfficers().add(officer);
+            // Add officer to project and the assignment index, and save the project
+            projectRepo.addOfficer(project, officer);
 
-        // Set officer status
-        officer.setStatus(OfficerStatus.PENDING);
-        
-        // Save changes
-        projectRepo.update(project);
-        officerRepo.update(officer);
+            // Set officer status
+            officer.setStatus(OfficerStatus.PENDING);
+            officerRepo.update(officer);
         
-        return true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
     }
 }
\ No newline at end of file
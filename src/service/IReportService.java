@@ -1,8 +1,8 @@
 package service;
 
-import entity.Receipt; // Reports are based on booking receipts/details
-import java.util.List;
+import entity.BookingReportRow;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Defines the contract for generating reports based on BTO application and booking data.
@@ -11,15 +11,14 @@ import java.util.Map;
 public interface IReportService {
 
     /**
-     * Generates a report of applicants and their flat bookings based on specified filters.
-     * Filters can include project, flat type, applicant age, marital status, date range etc.
-     * The implementation needs to gather data likely from Application and User/Applicant repos.
+     * Streams a report of applications and their projects based on specified filters.
+     * Rows are produced lazily as the stream is consumed, so callers can print, count or export
+     * a report of any size without holding it in memory.
      *
-     * @param filters A Map containing filter criteria (e.g., key="maritalStatus", value="Married"; key="flatType", value="3-Room").
-     * @return A List of objects representing the report data (could be custom ReportItem objects or potentially enhanced Receipt/Application objects). Using List<Receipt> as a placeholder.
-     * @throws Exception if report generation encounters errors (e.g., data inconsistency).
+     * @param filters A Map containing filter criteria (e.g., key="projectId", value="P1"; key="status", value="BOOKED";
+     *                key="maritalStatus", value="MARRIED"; key="minAge", value="35").
+     * @return A stream of typed report rows; close it (or consume it fully) when done.
      */
-    List<Object> generateBookingReport(Map<String, String> filters) throws Exception;
-    // Changed return type to List<Object> as List<Receipt> might not be sufficient for full report details (e.g., age, marital status). Needs a dedicated ReportItem class or similar.
+    Stream<BookingReportRow> streamBookingReport(Map<String, String> filters);
 
 }
\ No newline at end of file
@@ -1,12 +1,11 @@
 package service;
 
 import entity.User;
-import pub_enums.Role;
 import repository.*;
+import util.PasswordHasher;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.NoSuchElementException;
 
 /**
@@ -15,18 +14,18 @@ import java.util.NoSuchElementException;
  */
 public class UserService implements IAuthService, IPasswordService {
 
-    private ApplicantRepo applicantRepo;
-    private HdbManagerRepo managerRepo;
-    private HdbOfficerRepo officerRepo;
+    private UserDirectory userDirectory;
 
     public UserService() {
         // Default constructor for subclasses
     }
 
     public UserService(ApplicantRepo applicantRepo, HdbManagerRepo managerRepo, HdbOfficerRepo officerRepo) {
-        this.applicantRepo = applicantRepo;
-        this.managerRepo = managerRepo;
-        this.officerRepo = officerRepo;
+        this(UserDirectory.of(applicantRepo, officerRepo, managerRepo));
+    }
+
+    public UserService(UserDirectory userDirectory) {
+        this.userDirectory = userDirectory;
     }
 
     /**
@@ -42,27 +41,12 @@ public class UserService implements IAuthService, IPasswordService {
             return null;
         }
 
-        // Try to find the user in all repositories
-        User user = null;
-        
-        if (applicantRepo != null) {
-            user = applicantRepo.findById(userId).orElse(null);
-        }
-        
-        if (user == null && managerRepo != null) {
-            user = managerRepo.findById(userId).orElse(null);
-        }
-        
-        if (user == null && officerRepo != null) {
-            user = officerRepo.findById(userId).orElse(null);
-        }
-
-        // Check password match
-        if (user != null && user.getPassword().equals(password)) {
-            return user;
+        if (userDirectory == null) {
+            return null;
         }
 
-        return null;
+        // One NRIC probe, then the owning repository's credential index
+        return userDirectory.authenticate(userId, password);
     }
 
     /**
@@ -83,51 +67,35 @@ public class UserService implements IAuthService, IPasswordService {
             return false;
         }
 
-        // Update password
-        user.setPassword(newPassword);
+        // Store a salted hash, never the plaintext
+        user.setPassword(PasswordHasher.hash(newPassword));
 
-        // Save the updated user
-        boolean result = false;
-        
+        // Save the updated user through the repository that owns its role
         try {
-            if (user.getRole() == Role.APPLICANT && applicantRepo != null) {
-                applicantRepo.update((entity.Applicant) user);
-                result = true;
-            } else if (user.getRole() == Role.HDBMANAGER && managerRepo != null) {
-                managerRepo.update((entity.HdbManager) user);
-                result = true;
-            } else if (user.getRole() == Role.HDBOFFICER && officerRepo != null) {
-                officerRepo.update((entity.HdbOfficer) user);
-                result = true;
-            }
+            return userDirectory != null && userDirectory.update(user);
         } catch (Exception e) {
             System.err.println("Error saving password update: " + e.getMessage());
             return false;
         }
+    }
 
-        return result;
+    /**
+     * Checks a password against the user's stored (hashed or legacy plaintext) password.
+     *
+     * @param user     The User whose password is being checked.
+     * @param password The candidate password.
+     * @return true if the password matches.
+     */
+    public boolean verifyPassword(User user, String password) {
+        return user != null && PasswordHasher.verify(user.getPassword(), password);
     }
 
     /**
      * Retrieves all users from all repositories.
      *
-     * @return A list of all users.
+     * @return A live, read-only view of all users; it is not copied per call.
      */
-    public List<User> getAllUsers() {
-        List<User> allUsers = new ArrayList<>();
-        
-        if (applicantRepo != null) {
-            allUsers.addAll(applicantRepo.findAll());
-        }
-        
-        if (managerRepo != null) {
-            allUsers.addAll(managerRepo.findAll());
-        }
-        
-        if (officerRepo != null) {
-            allUsers.addAll(officerRepo.findAll());
-        }
-        
-        return allUsers;
+    public Collection<User> getAllUsers() {
+        return userDirectory != null ? userDirectory.allUsers() : Collections.emptyList();
     }
 }
\ No newline at end of file
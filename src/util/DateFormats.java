@@ -0,0 +1,43 @@
+package util;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Shared, immutable date formatters for the CSV files.
+ * Unlike a static {@code SimpleDateFormat}, these are safe to use from many threads at once.
+ */
+public final class DateFormats {
+    public static final DateTimeFormatter CSV_DATE = DateTimeFormatter.ofPattern("dd MM yyyy", Locale.ENGLISH);
+
+    private DateFormats() {
+    }
+
+    /**
+     * Parses a CSV date ("dd MM yyyy") to midnight of that day in the system time zone.
+     *
+     * @throws DateTimeParseException if the text is not a valid date.
+     */
+    public static Date parseCsvDate(String text) {
+        return toDate(LocalDate.parse(text.trim(), CSV_DATE));
+    }
+
+    /**
+     * @return Midnight of the given day in the system time zone.
+     */
+    public static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    public static String formatCsvDate(Date date) {
+        return toLocalDate(date).format(CSV_DATE);
+    }
+
+    public static LocalDate toLocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+}
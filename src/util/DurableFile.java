@@ -0,0 +1,209 @@
+package util;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crash-safe whole-file replacement for the repository CSVs and snapshots.
+ * <p>
+ * {@link #replace} writes the new content to {@code <file>.tmp}, fsyncs it, atomically renames it over the
+ * target and fsyncs the directory, so a crash or full disk leaves either the old file or the new one,
+ * never a truncated mix.
+ * <p>
+ * An instance wraps one file and its renderer and adds group commit: {@link #commit()} blocks until a
+ * replacement that includes the caller's changes is durable. Callers arriving while a write is in progress,
+ * or within the commit window (the {@code bto.commit.windowMillis} system property, default
+ * {@value #DEFAULT_WINDOW_MILLIS} ms) of the first one, share a single write instead of each rewriting
+ * the file. Callers must make their change visible to the renderer before calling {@code commit()}, and must
+ * not hold a lock the renderer needs.
+ */
+public final class DurableFile {
+    private static final long DEFAULT_WINDOW_MILLIS = 2;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final ConcurrentHashMap<Path, Object> REPLACE_LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Writes a file's full content.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes a text file's full content; the writer is UTF-8 and buffered.
+     */
+    @FunctionalInterface
+    public interface TextContent {
+        void writeTo(BufferedWriter out) throws IOException;
+    }
+
+    private final Path target;
+    private final TextContent renderer;
+    private final long windowNanos;
+
+    // Group commit state, guarded by this
+    private long requested;   // Ticket of the latest commit() call
+    private long committed;   // Every ticket up to here is durable
+    private long failedThrough;
+    private IOException failure;
+    private boolean writing;
+
+    // Metrics, guarded by this
+    private long writes;
+    private long commits;
+
+    /**
+     * @param target   The file to keep up to date.
+     * @param renderer Writes the file's current content; called from whichever committing thread leads a batch.
+     */
+    public DurableFile(Path target, TextContent renderer) {
+        this(target, renderer, Long.getLong("bto.commit.windowMillis", DEFAULT_WINDOW_MILLIS));
+    }
+
+    public DurableFile(Path target, TextContent renderer, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Commit window must not be negative");
+        }
+        this.target = target;
+        this.renderer = renderer;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    // ========== Group Commit ==========
+
+    /**
+     * Durably rewrites the file with the renderer's current content, sharing the write with concurrent callers.
+     *
+     * @throws IOException if the write covering this call failed; the previous file is left intact.
+     */
+    public void commit() throws IOException {
+        long ticket;
+        synchronized (this) {
+            ticket = ++requested;
+            commits++;
+            while (true) {
+                if (committed >= ticket) return;
+                if (failedThrough >= ticket) throw new IOException(failure.getMessage(), failure);
+                if (!writing) break; // Lead the next batch
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for " + target.getFileName());
+                }
+            }
+            writing = true;
+        }
+
+        // Let mutations arriving within the window join this batch
+        if (windowNanos > 0) {
+            sleepQuietly(windowNanos);
+        }
+
+        long batchEnd;
+        synchronized (this) {
+            batchEnd = requested; // Every one of these changes is visible to the renderer by now
+        }
+        IOException error = null;
+        try {
+            replaceText(target, renderer);
+        } catch (IOException | RuntimeException e) {
+            error = e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        synchronized (this) {
+            writing = false;
+            writes++;
+            if (error == null) {
+                committed = batchEnd;
+            } else {
+                failedThrough = batchEnd;
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * @return The number of file writes so far.
+     */
+    public synchronized long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return The number of {@link #commit()} calls so far; each write served {@code getCommits() / getWrites()} on average.
+     */
+    public synchronized long getCommits() {
+        return commits;
+    }
+
+    @Override
+    public String toString() {
+        return target.toString();
+    }
+
+    // ========== Atomic Replacement ==========
+
+    /**
+     * Atomically replaces {@code target} with the given content: temp file, fsync, rename, directory fsync.
+     *
+     * @throws IOException if the content cannot be written; the temp file is removed and the target untouched.
+     */
+    public static void replace(Path target, Content content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        // Writers of the same file share its temp path, so take turns
+        synchronized (REPLACE_LOCKS.computeIfAbsent(target.toAbsolutePath().normalize(), p -> new Object())) {
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                    content.writeTo(out);
+                    out.flush();
+                    channel.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+        syncDirectory(target);
+    }
+
+    /**
+     * {@link #replace} for UTF-8 text.
+     */
+    public static void replaceText(Path target, TextContent content) throws IOException {
+        replace(target, out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            content.writeTo(writer);
+            writer.flush();
+        });
+    }
+
+    // ========== Helper Methods ==========
+    private static void syncDirectory(Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true); // Makes the rename itself durable
+        } catch (IOException e) {
+            // Not supported on every platform (e.g. Windows); the rename is still atomic
+        }
+    }
+
+    private static void sleepQuietly(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
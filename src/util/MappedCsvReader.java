@@ -0,0 +1,363 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Row-at-a-time reader for the pipe-delimited CSV files that decodes fields straight from the file bytes.
+ * Files are memory-mapped (small ones are read into a heap buffer instead), each row is scanned once for
+ * field boundaries, and the typed getters parse ints, doubles, booleans, enums and "dd MM yyyy" dates
+ * without creating a String per field. Fields are trimmed of surrounding spaces; a trailing CR is ignored.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (MappedCsvReader csv = MappedCsvReader.open(path, false)) {
+ *     csv.nextRow(); // Skip header
+ *     while (csv.nextRow()) {
+ *         String id = csv.getString(0);
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Not thread-safe; the repositories use one reader per load.
+ */
+public final class MappedCsvReader implements AutoCloseable {
+    private static final byte DELIMITER = '|';
+    private static final byte ESCAPE = '\\';
+    private static final int MAP_THRESHOLD = 1 << 20; // Below 1 MiB a plain read is cheaper than a mapping
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final boolean backslashEscapes;
+
+    private int position;
+    private int rowStart;
+    private int rowEnd;
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private byte[] scratch = new byte[256];
+
+    private MappedCsvReader(FileChannel channel, ByteBuffer buffer, boolean backslashEscapes) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.backslashEscapes = backslashEscapes;
+    }
+
+    /**
+     * Opens a CSV file for reading.
+     *
+     * @param path             The file to read.
+     * @param backslashEscapes true if {@code \|} inside a field is an escaped delimiter (the field text is
+     *                         returned as written; unescaping is left to the caller).
+     * @throws IOException if the file cannot be read or is 2 GiB or larger.
+     */
+    public static MappedCsvReader open(Path path, boolean backslashEscapes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + path);
+            }
+            ByteBuffer buffer;
+            if (size < MAP_THRESHOLD) {
+                buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            } else {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                buffer = mapped;
+            }
+            return new MappedCsvReader(channel, buffer, backslashEscapes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // ========== Row Scanning ==========
+
+    /**
+     * Advances to the next row and locates its fields.
+     *
+     * @return false at end of file.
+     */
+    public boolean nextRow() {
+        if (position >= limit) {
+            return false;
+        }
+        rowStart = position;
+        fieldCount = 0;
+        int fieldStart = position;
+        int i = position;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                break;
+            }
+            if (b == ESCAPE && backslashEscapes && i + 1 < limit && buffer.get(i + 1) == DELIMITER) {
+                i += 2;
+                continue;
+            }
+            if (b == DELIMITER) {
+                addField(fieldStart, i);
+                fieldStart = i + 1;
+            }
+            i++;
+        }
+        int end = i;
+        if (end > fieldStart && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        rowEnd = end;
+        addField(fieldStart, end);
+        position = i + 1;
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        // Trim surrounding spaces
+        while (start < end && buffer.get(start) == ' ') start++;
+        while (end > start && buffer.get(end - 1) == ' ') end--;
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * @return The number of fields in the current row (1 for a blank line).
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return true if the current row is empty or whitespace only.
+     */
+    public boolean isBlankRow() {
+        return fieldCount == 1 && starts[0] == ends[0];
+    }
+
+    /**
+     * @return The raw text of the current row, for error messages.
+     */
+    public String rowText() {
+        return decode(rowStart, rowEnd);
+    }
+
+    // ========== Field Decoders ==========
+
+    public String getString(int field) {
+        checkField(field);
+        return decode(starts[field], ends[field]);
+    }
+
+    /**
+     * @return true if the field is empty.
+     */
+    public boolean isEmpty(int field) {
+        checkField(field);
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * @return true if the field is exactly the given ASCII text, compared byte by byte.
+     */
+    public boolean fieldEquals(int field, String ascii) {
+        checkField(field);
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length != ascii.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != ascii.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the field is the literal {@code NULL} used by the CSV files for missing values.
+     */
+    public boolean isNull(int field) {
+        return fieldEquals(field, "NULL");
+    }
+
+    /**
+     * @throws NumberFormatException if the field is not a decimal integer.
+     */
+    public int getInt(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        if (i == end) throw new NumberFormatException("Empty int field");
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) throw new NumberFormatException("Invalid int: " + getString(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("Invalid int: " + getString(field));
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("Int out of range: " + getString(field));
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw new NumberFormatException("Int out of range: " + getString(field));
+        return (int) value;
+    }
+
+    /**
+     * Parses a plain decimal ("350000.0", "-1.25") directly; other forms (exponents, NaN) fall back to
+     * {@link Double#parseDouble}.
+     *
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public double getDouble(int field) {
+        checkField(field);
+        int i = starts[field];
+        int end = ends[field];
+        if (i == end) throw new NumberFormatException("Empty double field");
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else {
+                return Double.parseDouble(getString(field)); // Exponent, long mantissa or invalid
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("Invalid double: " + getString(field));
+        if (digits > 15) {
+            return Double.parseDouble(getString(field));
+        }
+        // Correctly rounded for up to 15 significant digits, as both operands are exactly representable
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    /**
+     * @return true only for "true" (any case), like {@link Boolean#parseBoolean}.
+     */
+    public boolean getBoolean(int field) {
+        checkField(field);
+        int start = starts[field];
+        if (ends[field] - start != 4) return false;
+        return (buffer.get(start) | 0x20) == 't' && (buffer.get(start + 1) | 0x20) == 'r'
+                && (buffer.get(start + 2) | 0x20) == 'u' && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Matches the field against the constant names case-insensitively (ASCII).
+     *
+     * @throws IllegalArgumentException if no constant matches, like {@link Enum#valueOf}.
+     */
+    public <E extends Enum<E>> E getEnum(int field, Class<E> type) {
+        checkField(field);
+        int start = starts[field];
+        int length = ends[field] - start;
+        for (E constant : type.getEnumConstants()) {
+            String name = constant.name();
+            if (name.length() != length) continue;
+            boolean match = true;
+            for (int i = 0; i < length && match; i++) {
+                int b = buffer.get(start + i);
+                if (b >= 'a' && b <= 'z') b -= 32;
+                match = b == name.charAt(i);
+            }
+            if (match) return constant;
+        }
+        throw new IllegalArgumentException("No enum constant " + type.getSimpleName() + "." + getString(field));
+    }
+
+    /**
+     * Decodes a "dd MM yyyy" date (see {@link DateFormats#CSV_DATE}).
+     *
+     * @throws DateTimeParseException if the field is not a valid date in that format.
+     */
+    public Date getDate(int field) {
+        checkField(field);
+        int start = starts[field];
+        if (ends[field] - start != 10 || buffer.get(start + 2) != ' ' || buffer.get(start + 5) != ' ') {
+            throw new DateTimeParseException("Invalid CSV date", getString(field), 0);
+        }
+        int day = digits(start, 2);
+        int month = digits(start + 3, 2);
+        int year = digits(start + 6, 4);
+        if (day < 0 || month < 0 || year < 0) {
+            throw new DateTimeParseException("Invalid CSV date", getString(field), 0);
+        }
+        try {
+            return DateFormats.toDate(LocalDate.of(year, month, day));
+        } catch (DateTimeException e) {
+            throw new DateTimeParseException(e.getMessage(), getString(field), 0);
+        }
+    }
+
+    // ========== Helper Methods ==========
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (length == 0) return "";
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
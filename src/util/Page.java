@@ -0,0 +1,37 @@
+package util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of an ordered listing, fetched by cursor rather than offset.
+ * <p>
+ * Pass {@link #getNextCursor()} back to the same query for the following page; it is null on the last one.
+ * A cursor marks a position in the ordering, so fetching a page costs the same however deep into the
+ * listing it is, and entries added or removed in the meantime do not shift later pages.
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
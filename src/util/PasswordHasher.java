@@ -0,0 +1,110 @@
+package util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashing used by the user repositories.
+ * Stored hashes have the form {@code pbkdf2$<iterations>$<salt>$<hash>}; anything else is
+ * treated as a legacy plaintext password and is upgraded on the user's next successful login.
+ * The iteration count is read from the {@code bto.password.iterations} system property.
+ */
+public final class PasswordHasher {
+    private static final String PREFIX = "pbkdf2";
+    private static final String SEPARATOR = "$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 120_000;
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static volatile int iterations = Integer.getInteger("bto.password.iterations", DEFAULT_ITERATIONS);
+
+    private PasswordHasher() {
+    }
+
+    public static int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Changes the cost factor for newly hashed passwords. Existing hashes with a different
+     * count keep verifying and are re-hashed on the next successful login.
+     *
+     * @param newIterations The PBKDF2 iteration count, must be positive.
+     */
+    public static void setIterations(int newIterations) {
+        if (newIterations <= 0) {
+            throw new IllegalArgumentException("Iteration count must be positive");
+        }
+        iterations = newIterations;
+    }
+
+    /**
+     * Hashes a password with a fresh salt at the current iteration count.
+     *
+     * @param password The plaintext password.
+     * @return The encoded hash string to store.
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        int rounds = iterations;
+        byte[] key = derive(password, salt, rounds);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + SEPARATOR + rounds + SEPARATOR + encoder.encodeToString(salt) + SEPARATOR + encoder.encodeToString(key);
+    }
+
+    /**
+     * Checks a candidate password against a stored value, hashed or legacy plaintext.
+     *
+     * @param stored    The stored password field.
+     * @param candidate The password entered by the user.
+     * @return true if the password matches.
+     */
+    public static boolean verify(String stored, String candidate) {
+        if (stored == null || candidate == null) return false;
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(stored.getBytes(), candidate.getBytes());
+        }
+        String[] parts = stored.split("\\" + SEPARATOR);
+        if (parts.length != 4) return false;
+        try {
+            int rounds = Integer.parseInt(parts[1]);
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] salt = decoder.decode(parts[2]);
+            byte[] expected = decoder.decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(candidate, salt, rounds));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the stored value is plaintext or was hashed at a different iteration count.
+     */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        String[] parts = stored.split("\\" + SEPARATOR);
+        return parts.length != 4 || !String.valueOf(iterations).equals(parts[1]);
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + SEPARATOR);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing unavailable: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
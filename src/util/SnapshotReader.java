@@ -0,0 +1,263 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a binary repository snapshot written by {@link SnapshotWriter}; see that class for the layout.
+ * <p>
+ * Usage:
+ * <pre>
+ * if (SnapshotReader.isFresh(snapshotPath, csvPath)) {
+ *     SnapshotReader snapshot = SnapshotReader.open(snapshotPath, "applicants");
+ *     while (snapshot.nextRecord()) {
+ *         String id = snapshot.readString();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Fields must be read in the order they were written. Reading past the end of a record throws;
+ * fields left unread at the end of a record are skipped. Not thread-safe.
+ */
+public final class SnapshotReader {
+    // Enough for the header up to the source attributes: magic, version, a short kind and two varints
+    private static final int SOURCE_HEADER_BYTES = 256;
+
+    private final byte[] data;
+    private final String kind;
+    private final long sourceSize;
+    private final long sourceModified;
+    private String[] strings;
+    private final Map<String, int[]> enumTables = new HashMap<>();
+    private final Map<Class<?>, Enum<?>[]> enumRemaps = new HashMap<>();
+
+    private int position;
+    private int remaining;
+    private int recordEnd = -1;
+    private int recordCount;
+
+    /**
+     * Reads the header up to the source CSV's attributes.
+     */
+    private SnapshotReader(byte[] data, Path path) throws IOException {
+        this.data = data;
+        byte[] magic = Arrays.copyOf(data, Math.min(data.length, SnapshotWriter.MAGIC.length));
+        if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        position = SnapshotWriter.MAGIC.length;
+        int version = data[position++];
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+        kind = readUtf8();
+        sourceSize = readVarLong() - 1;
+        sourceModified = unzigzag(readVarLong());
+    }
+
+    private void readTables() throws IOException {
+        strings = new String[readVarInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readUtf8();
+        }
+
+        int enumCount = readVarInt();
+        for (int i = 0; i < enumCount; i++) {
+            String typeName = strings[readVarInt()];
+            int[] names = new int[readVarInt()];
+            for (int j = 0; j < names.length; j++) {
+                names[j] = readVarInt();
+            }
+            enumTables.put(typeName, names);
+        }
+
+        recordCount = readVarInt();
+        remaining = recordCount;
+    }
+
+    /**
+     * Reads a whole snapshot file and checks its header.
+     *
+     * @param kind The kind passed to the writer; a mismatch is an error.
+     * @throws IOException if the file cannot be read, is not a snapshot, or holds a different kind or version.
+     */
+    public static SnapshotReader open(Path path, String kind) throws IOException {
+        try {
+            SnapshotReader reader = new SnapshotReader(Files.readAllBytes(path), path);
+            if (!reader.kind.equals(kind)) {
+                throw new IOException("Expected a " + kind + " snapshot but found " + reader.kind + ": " + path);
+            }
+            reader.readTables();
+            return reader;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated snapshot header: " + path, e);
+        }
+    }
+
+    /**
+     * Compares the CSV's size and modification time with those the snapshot recorded, rather than which file
+     * is newer, so a CSV edited within the same timestamp tick as the checkpoint is not mistaken for older.
+     *
+     * @return true if the snapshot exists and the CSV it mirrors has not been edited or rewritten since.
+     */
+    public static boolean isFresh(Path snapshot, Path csv) {
+        try {
+            if (!Files.isRegularFile(snapshot)) return false;
+            if (!Files.exists(csv)) return true;
+            byte[] header;
+            try (InputStream in = Files.newInputStream(snapshot)) {
+                header = in.readNBytes(SOURCE_HEADER_BYTES);
+            }
+            SnapshotReader reader = new SnapshotReader(header, snapshot);
+            return reader.sourceSize == Files.size(csv)
+                    && reader.sourceModified == Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    // ========== Records ==========
+
+    /**
+     * Advances to the next record, skipping any unread fields of the current one.
+     *
+     * @return false when every record has been read.
+     */
+    public boolean nextRecord() throws IOException {
+        if (recordEnd >= 0) {
+            position = recordEnd;
+            recordEnd = -1;
+        }
+        if (remaining == 0) {
+            return false;
+        }
+        remaining--;
+        int length = readVarInt();
+        recordEnd = position + length;
+        if (recordEnd > data.length) {
+            throw new IOException("Truncated snapshot record");
+        }
+        return true;
+    }
+
+    public String readString() throws IOException {
+        int ref = readVarInt();
+        if (ref == 0) return null;
+        if (ref > strings.length) throw new IOException("Bad string reference " + ref);
+        return strings[ref - 1];
+    }
+
+    public int readInt() throws IOException {
+        return (int) unzigzag(readVarLong());
+    }
+
+    public double readDouble() throws IOException {
+        checkAvailable(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (data[position++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    public boolean readBoolean() throws IOException {
+        checkAvailable(1);
+        return data[position++] != 0;
+    }
+
+    /**
+     * Maps the stored ordinal back through the constant names recorded in the snapshot, so reordering
+     * or adding constants does not corrupt old snapshots.
+     *
+     * @throws IOException if the stored constant no longer exists.
+     */
+    public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        int ordinal = readVarInt();
+        if (ordinal == 0) return null;
+        Enum<?>[] remap = enumRemaps.get(type);
+        if (remap == null) {
+            remap = buildRemap(type);
+            enumRemaps.put(type, remap);
+        }
+        if (ordinal > remap.length || remap[ordinal - 1] == null) {
+            throw new IOException("Unknown " + type.getSimpleName() + " ordinal " + (ordinal - 1));
+        }
+        return type.cast(remap[ordinal - 1]);
+    }
+
+    public Date readDate() throws IOException {
+        long stored = readVarLong();
+        if (stored == 0) return null;
+        return DateFormats.toDate(LocalDate.ofEpochDay(unzigzag(stored - 1)));
+    }
+
+    /**
+     * Reads a count written with {@link SnapshotWriter#writeCount(int)}.
+     */
+    public int readCount() throws IOException {
+        return readVarInt();
+    }
+
+    // ========== Helper Methods ==========
+    private <E extends Enum<E>> Enum<?>[] buildRemap(Class<E> type) throws IOException {
+        int[] names = enumTables.get(type.getName());
+        if (names == null) throw new IOException("Snapshot has no values for " + type.getName());
+        Enum<?>[] remap = new Enum<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            try {
+                remap[i] = Enum.valueOf(type, strings[names[i]]);
+            } catch (IllegalArgumentException e) {
+                remap[i] = null; // Constant removed since the snapshot was written
+            }
+        }
+        return remap;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String readUtf8() throws IOException {
+        int length = readVarInt();
+        checkAvailable(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value > Integer.MAX_VALUE) throw new IOException("Corrupt snapshot: varint out of range");
+        return (int) value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            checkAvailable(1);
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Corrupt snapshot: varint too long");
+    }
+
+    private void checkAvailable(int bytes) throws IOException {
+        int end = recordEnd >= 0 ? recordEnd : data.length;
+        if (position + bytes > end) {
+            throw new IOException(recordEnd >= 0 ? "Read past end of snapshot record" : "Truncated snapshot");
+        }
+    }
+}
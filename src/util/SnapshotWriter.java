@@ -0,0 +1,195 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Writes a binary repository snapshot, read back by {@link SnapshotReader}.
+ * <p>
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ * <pre>
+ * "BTOS" | version (1 byte) | kind (length-prefixed UTF-8)
+ * source:        CSV size + 1 (0 = no CSV), zigzag CSV modification time in epoch millis
+ * string table:  count, then each string as length + UTF-8 bytes
+ * enum table:    count, then per enum type: name (string ref), constant count, constant names (string refs)
+ * records:       count, then each record as length + payload
+ * </pre>
+ * Inside a record, strings are string-table references (0 = null), enums are ordinals + 1 (0 = null)
+ * remapped by name on read, dates are zigzag epoch days + 1 (0 = null), doubles are 8 bytes big-endian.
+ * Records are length-prefixed so a reader can skip fields appended by a newer writer.
+ * <p>
+ * The file is replaced through {@link DurableFile}, so a crash never leaves a torn snapshot.
+ */
+public class SnapshotWriter {
+    static final byte[] MAGIC = {'B', 'T', 'O', 'S'};
+    static final int VERSION = 2;
+
+    private final String kind;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Class<?>, Integer> enumTypes = new LinkedHashMap<>();
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream(1 << 16);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private int recordCount;
+
+    /**
+     * Records the source CSV's size and modification time as they are now, so create the writer before
+     * reading the state to snapshot. A CSV rewritten after this point no longer matches, and
+     * {@link SnapshotReader#isFresh} sends the next load back to it.
+     *
+     * @param kind What the snapshot holds (e.g. "applicants"); checked by the reader.
+     * @param source The CSV this snapshot mirrors.
+     */
+    public SnapshotWriter(String kind, Path source) {
+        this.kind = kind;
+        long size = -1;
+        long modified = 0;
+        try {
+            size = Files.size(source);
+            modified = Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException e) {
+            // No CSV yet; a snapshot that records none is stale once one appears
+        }
+        this.sourceSize = size;
+        this.sourceModified = modified;
+    }
+
+    // ========== Records ==========
+    public void beginRecord() {
+        record.reset();
+    }
+
+    public void endRecord() {
+        writeVarInt(records, record.size());
+        records.write(record.toByteArray(), 0, record.size());
+        recordCount++;
+    }
+
+    public void writeString(String value) {
+        writeVarInt(record, value == null ? 0 : intern(value) + 1);
+    }
+
+    public void writeInt(int value) {
+        writeVarLong(record, zigzag(value));
+    }
+
+    public void writeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            record.write((int) (bits >>> shift));
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        record.write(value ? 1 : 0);
+    }
+
+    public void writeEnum(Enum<?> value) {
+        if (value == null) {
+            writeVarInt(record, 0);
+            return;
+        }
+        enumTypes.putIfAbsent(value.getDeclaringClass(), enumTypes.size());
+        writeVarInt(record, value.ordinal() + 1);
+    }
+
+    public void writeDate(Date value) {
+        writeVarLong(record, value == null ? 0 : zigzag(DateFormats.toLocalDate(value).toEpochDay()) + 1);
+    }
+
+    /**
+     * Writes a count, e.g. before the elements of a nested list.
+     */
+    public void writeCount(int count) {
+        writeVarInt(record, count);
+    }
+
+    // ========== Output ==========
+
+    /**
+     * Writes the snapshot atomically to the given path.
+     */
+    public void writeTo(Path path) throws IOException {
+        // Intern enum names before the string table is written
+        List<int[]> enumEntries = new ArrayList<>();
+        for (Class<?> type : enumTypes.keySet()) {
+            Object[] constants = type.getEnumConstants();
+            int[] entry = new int[constants.length + 1];
+            entry[0] = intern(type.getName());
+            for (int i = 0; i < constants.length; i++) {
+                entry[i + 1] = intern(((Enum<?>) constants[i]).name());
+            }
+            enumEntries.add(entry);
+        }
+
+        DurableFile.replace(path, out -> {
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeUtf8(out, kind);
+            writeVarLong(out, sourceSize + 1);
+            writeVarLong(out, zigzag(sourceModified));
+
+            writeVarInt(out, strings.size());
+            for (String s : strings) {
+                writeUtf8(out, s);
+            }
+
+            writeVarInt(out, enumEntries.size());
+            for (int[] entry : enumEntries) {
+                writeVarInt(out, entry[0]);
+                writeVarInt(out, entry.length - 1);
+                for (int i = 1; i < entry.length; i++) {
+                    writeVarInt(out, entry[i]);
+                }
+            }
+
+            writeVarInt(out, recordCount);
+            records.writeTo(out);
+        });
+    }
+
+    // ========== Helper Methods ==========
+    private int intern(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeUtf8(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(OutputStream out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) {
+        try {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
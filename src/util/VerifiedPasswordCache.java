@@ -0,0 +1,82 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of recently verified logins, so repeated logins for the same user
+ * skip the PBKDF2 key derivation. Entries hold a keyed SHA-256 fingerprint of
+ * (stored hash, password) rather than the password itself, and stop matching as soon
+ * as the stored hash changes.
+ */
+public class VerifiedPasswordCache {
+    private static final int DEFAULT_CAPACITY = 10_000;
+
+    private final byte[] processKey = new byte[32];
+    private final Map<String, byte[]> entries;
+
+    public VerifiedPasswordCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public VerifiedPasswordCache(int capacity) {
+        new SecureRandom().nextBytes(processKey);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Verifies a password, consulting the cache before falling back to {@link PasswordHasher}.
+     *
+     * @param nric      The user's NRIC, used as the cache key.
+     * @param stored    The stored password field.
+     * @param candidate The password entered by the user.
+     * @return true if the password matches.
+     */
+    public boolean verify(String nric, String stored, String candidate) {
+        if (nric == null || stored == null || candidate == null) return false;
+        byte[] fingerprint = fingerprint(stored, candidate);
+        synchronized (this) {
+            byte[] cached = entries.get(nric);
+            if (cached != null && MessageDigest.isEqual(cached, fingerprint)) {
+                return true;
+            }
+        }
+        if (!PasswordHasher.verify(stored, candidate)) {
+            return false;
+        }
+        synchronized (this) {
+            entries.put(nric, fingerprint);
+        }
+        return true;
+    }
+
+    public synchronized void invalidate(String nric) {
+        entries.remove(nric);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private byte[] fingerprint(String stored, String candidate) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(processKey);
+            digest.update(stored.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(candidate.getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
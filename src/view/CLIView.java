@@ -3,7 +3,11 @@ package view;
 import controller.*;
 import entity.*;
 import pub_enums.*;
+import util.Page;
 
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
@@ -13,12 +17,15 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Provides a Command Line Interface (CLI) for interacting with the BTO Management System.
  * Handles user input, displays menus and results, and calls controller methods.
  */
 public class CLIView {
+    private static final int ENQUIRY_PAGE_SIZE = 20;
+    private static final int REPORT_PREVIEW_ROWS = 20;
 
     private final Scanner scanner;
     private final UserController userController;
@@ -26,6 +33,7 @@ public class CLIView {
     private final HdbOfficerController officerController;
     private final HdbManagerController managerController;
 
+    private final boolean remoteSession; // End the session, rather than default the input, once input runs out
     private User currentUser = null; // Track the logged-in user
 
     /**
@@ -37,7 +45,27 @@ public class CLIView {
      * @param hmc The HdbManagerController instance.
      */
     public CLIView(UserController uc, ApplicantController ac, HdbOfficerController hoc, HdbManagerController hmc) {
-        this.scanner = new Scanner(System.in);
+        this(new Scanner(System.in), false, uc, ac, hoc, hmc);
+    }
+
+    /**
+     * Constructor for a remote session, reading from the session's own input.
+     * Shares the controllers (and the services and repositories behind them) with every other session.
+     * When the input ends, {@link #run()} throws {@link SessionClosedException} instead of defaulting.
+     * @param scanner The session's input.
+     * @param uc The UserController instance.
+     * @param ac The ApplicantController instance.
+     * @param hoc The HdbOfficerController instance.
+     * @param hmc The HdbManagerController instance.
+     */
+    public CLIView(Scanner scanner, UserController uc, ApplicantController ac, HdbOfficerController hoc, HdbManagerController hmc) {
+        this(scanner, true, uc, ac, hoc, hmc);
+    }
+
+    private CLIView(Scanner scanner, boolean remoteSession, UserController uc, ApplicantController ac,
+                    HdbOfficerController hoc, HdbManagerController hmc) {
+        this.scanner = scanner;
+        this.remoteSession = remoteSession;
         this.userController = uc;
         this.applicantController = ac;
         this.officerController = hoc;
@@ -213,19 +241,20 @@ public class CLIView {
         System.out.println("6. Reply to Enquiry");
         System.out.println("7. Process Application (Approve/Reject)");
         System.out.println("8. Process Withdrawal Request");
+        System.out.println("9. Book Flat for Successful Application");
         System.out.println("--- Applicant Actions ---");
-        System.out.println("9. View Available Projects (as Applicant)");
-        System.out.println("10. Filter/Search Projects (as Applicant)");
-        System.out.println("11. Apply for Project (as Applicant)");
-        System.out.println("12. View My Application Status");
-        System.out.println("13. Request My Application Withdrawal");
-        System.out.println("14. View My Enquiries");
-        System.out.println("15. Submit New Enquiry");
-        System.out.println("16. Edit My Enquiry");
-        System.out.println("17. Delete My Enquiry");
+        System.out.println("10. View Available Projects (as Applicant)");
+        System.out.println("11. Filter/Search Projects (as Applicant)");
+        System.out.println("12. Apply for Project (as Applicant)");
+        System.out.println("13. View My Application Status");
+        System.out.println("14. Request My Application Withdrawal");
+        System.out.println("15. View My Enquiries");
+        System.out.println("16. Submit New Enquiry");
+        System.out.println("17. Edit My Enquiry");
+        System.out.println("18. Delete My Enquiry");
         System.out.println("--- General Actions ---");
-        System.out.println("18. Change Password");
-        System.out.println("19. Logout");
+        System.out.println("19. Change Password");
+        System.out.println("20. Logout");
         System.out.println("------------------------");
 
         int choice = getIntInput("Enter your choice: ");
@@ -259,41 +288,44 @@ public class CLIView {
             case 8:
                 handleProcessWithdrawalRequest(officer);
                 break;
-            // --- Applicant Actions (using the HdbOfficer object as an Applicant) ---
             case 9:
+                handleBookFlat(officer);
+                break;
+            // --- Applicant Actions (using the HdbOfficer object as an Applicant) ---
+            case 10:
                 // Explicitly call the applicant version of view available projects
                 handleViewAvailableProjects(officer);
                 break;
-            case 10:
+            case 11:
                 // Explicitly call the applicant version of filter projects
                 handleFilterApplicantProjects(officer);
                 break;
-            case 11:
+            case 12:
                 handleApplyForProject(officer);
                 break;
-            case 12:
+            case 13:
                 handleViewApplicationStatus(officer);
                 break;
-            case 13:
+            case 14:
                 handleRequestWithdrawal(officer);
                 break;
-            case 14:
+            case 15:
                 handleViewMyEnquiries(officer);
                 break;
-            case 15:
+            case 16:
                 handleSubmitEnquiry(officer);
                 break;
-            case 16:
+            case 17:
                 handleEditEnquiry(officer);
                 break;
-            case 17:
+            case 18:
                 handleDeleteEnquiry(officer);
                 break;
             // --- General Actions ---
-            case 18:
+            case 19:
                 handleChangePassword();
                 break;
-            case 19:
+            case 20:
                 return false; // Signal logout
             default:
                 displayMessage("Invalid choice. Please try again.");
@@ -318,8 +350,9 @@ public class CLIView {
         System.out.println("7. Process Application");
         System.out.println("8. Process Withdrawal Request");
         System.out.println("9. Generate Report");
-        System.out.println("10. Change Password");
-        System.out.println("11. Logout");
+        System.out.println("10. View Application Summary");
+        System.out.println("11. Change Password");
+        System.out.println("12. Logout");
         System.out.println("--------------------------");
 
         int choice = getIntInput("Enter your choice: ");
@@ -354,9 +387,12 @@ public class CLIView {
                 handleGenerateReport(manager);
                 break;
             case 10:
-                if (handleChangePassword()) { return false; } // logout after successful password change
+                handleViewApplicationSummary(manager);
                 break;
             case 11:
+                if (handleChangePassword()) { return false; } // logout after successful password change
+                break;
+            case 12:
                 return false; // Signal logout
             default:
                 displayMessage("Invalid choice. Please try again.");
@@ -726,8 +762,13 @@ public class CLIView {
      */
     private void handleViewEnquiriesForOfficer(HdbOfficer officer) {
         System.out.println("\n--- Enquiries for Assigned Projects ---");
-        List<Enquiry> enquiries = officerController.viewEnquiries(officer);
-        displayEnquiries(enquiries);
+        boolean unansweredOnly = getConfirmation("Show only unanswered enquiries? (Y/N): ");
+        String cursor = null;
+        do {
+            Page<Enquiry> page = officerController.viewEnquiryPage(officer, cursor, ENQUIRY_PAGE_SIZE, unansweredOnly);
+            displayEnquiries(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && getConfirmation("Show next page? (Y/N): "));
     }
 
     /**
@@ -736,12 +777,20 @@ public class CLIView {
      */
     private void handleReplyToEnquiry(HdbOfficer officer) {
         System.out.println("\n--- Reply to Enquiry ---");
-        List<Enquiry> enquiries = officerController.viewEnquiries(officer);
-        if (enquiries.isEmpty()) {
-            return;
-        }
+        // Page through the unanswered queue until the officer finds the enquiry to answer
+        List<Enquiry> enquiries = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Enquiry> page = officerController.viewEnquiryPage(officer, cursor, ENQUIRY_PAGE_SIZE, true);
+            if (page.isEmpty() && enquiries.isEmpty()) {
+                System.out.println("No unanswered enquiries for your assigned projects.");
+                return;
+            }
+            displayEnquiries(page.getItems());
+            enquiries.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && getConfirmation("Show next page? (Y/N): "));
         
-        displayEnquiries(enquiries);
         System.out.println("Enter the ID of the enquiry you want to reply to:");
         String enquiryId = getStringInput("Enquiry ID: ");
         
@@ -840,6 +889,33 @@ public class CLIView {
         }
     }
 
+    /**
+     * Handles the process of an HDB officer booking a flat for a successful application.
+     * @param officer The HDB officer handling the booking.
+     */
+    private void handleBookFlat(HdbOfficer officer) {
+        System.out.println("\n--- Book Flat ---");
+        String applicationId = getStringInput("Enter the ID of the successful application: ");
+
+        if (applicationId.trim().isEmpty()) {
+            System.out.println("Application ID cannot be empty. Booking cancelled.");
+            return;
+        }
+
+        if (getConfirmation("Confirm booking a flat for application " + applicationId + "? (Y/N): ")) {
+            Receipt receipt = officerController.bookFlat(applicationId, officer);
+            if (receipt != null) {
+                System.out.println("\n--- Booking Receipt ---");
+                System.out.println("Receipt ID: " + receipt.getReceiptId());
+                System.out.println("Issued: " + new SimpleDateFormat("yyyy-MM-dd").format(receipt.getIssuedDate()));
+                System.out.println("Project ID: " + receipt.getProjectId());
+                System.out.println("Applicant ID: " + receipt.getApplicantId());
+            }
+        } else {
+            System.out.println("Booking cancelled.");
+        }
+    }
+
     // --- Manager Handlers ---
 
     /**
@@ -1214,12 +1290,121 @@ public class CLIView {
             filters.put("status", input);
         }
         
-        System.out.println("Generating report...");
-        List<Object> reportData = managerController.generateBookingReport(filters, manager);
+        input = getStringInput("Filter by Flat Type (TWOROOM, THREEROOM): ");
+        if (!input.trim().isEmpty()) {
+            filters.put("flatType", input);
+        }
         
+        input = getStringInput("Filter by Marital Status (SINGLE, MARRIED): ");
+        if (!input.trim().isEmpty()) {
+            filters.put("maritalStatus", input);
+        }
+        
+        input = getStringInput("Filter by Minimum Age: ");
+        if (!input.trim().isEmpty()) {
+            filters.put("minAge", input);
+        }
+        
+        input = getStringInput("Filter by Maximum Age: ");
+        if (!input.trim().isEmpty()) {
+            filters.put("maxAge", input);
+        }
+        
+        System.out.println("Generating report...");
         System.out.println("\n--- Report Results ---");
-        System.out.println("Total entries: " + reportData.size());
-        // In a real application, you would display the report data in a formatted way
+        String rowFormat = "%-36s %-10s %-20s %-20s %-15s %-12s %-8s%n"; // Application IDs are UUIDs
+        long total = 0;
+        // Rows are printed and counted as they arrive; only the first few are shown
+        try (Stream<BookingReportRow> rows = managerController.streamBookingReport(filters, manager)) {
+            Iterator<BookingReportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                BookingReportRow row = it.next();
+                if (total == 0) {
+                    System.out.printf(rowFormat, "App ID", "Applicant", "Project", "Project Name", "Neighbourhood", "Status", "Flat");
+                }
+                if (total < REPORT_PREVIEW_ROWS) {
+                    System.out.printf(rowFormat, row.getApplicationId(), row.getApplicantId(), row.getProjectId(),
+                            row.getProjectName() != null ? row.getProjectName() : "-",
+                            row.getNeighbourhood() != null ? row.getNeighbourhood() : "-",
+                            row.getStatus(), row.getFlatType());
+                }
+                total++;
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error generating report: " + e.getMessage());
+            return;
+        }
+        
+        if (total == 0) {
+            System.out.println("No data found for the report.");
+            return;
+        }
+        if (total > REPORT_PREVIEW_ROWS) {
+            System.out.println("... " + (total - REPORT_PREVIEW_ROWS) + " more row(s) not shown");
+        }
+        System.out.println("Total entries: " + total);
+        handleExportReport(manager, filters);
+    }
+
+    /**
+     * Offers to export the report just previewed to a CSV or columnar binary file, streamed straight to disk.
+     * @param manager The HDB manager generating the report.
+     * @param filters The report's filter criteria.
+     */
+    private void handleExportReport(HdbManager manager, Map<String, String> filters) {
+        String file = getStringInput("Export to file (leave blank to skip): ").trim();
+        if (file.isEmpty()) {
+            return;
+        }
+        Path target;
+        try {
+            target = Paths.get(file);
+        } catch (InvalidPathException e) {
+            displayMessage("Invalid file path: " + e.getMessage());
+            return;
+        }
+        
+        String input = getStringInput("Format (CSV, COLUMNAR) [CSV]: ").trim();
+        ReportFormat format;
+        try {
+            format = input.isEmpty() ? ReportFormat.CSV : ReportFormat.valueOf(input.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            displayMessage("Invalid format. Please enter CSV or COLUMNAR.");
+            return;
+        }
+        
+        System.out.println("Exporting report...");
+        long began = System.nanoTime();
+        long exported = managerController.exportBookingReport(filters, manager, target, format);
+        if (exported >= 0) {
+            System.out.printf("Exported %d row(s) to %s in %.1f s%n", exported, target, (System.nanoTime() - began) / 1e9);
+        }
+    }
+
+    /**
+     * Displays a project's application counts as a flat type by status table.
+     * @param manager The HDB manager viewing the summary.
+     */
+    private void handleViewApplicationSummary(HdbManager manager) {
+        System.out.println("\n--- Application Summary ---");
+        String projectId = getStringInput("Enter Project ID: ").trim();
+        Map<FlatType, Map<ApplStatus, Integer>> summary = managerController.viewApplicationSummary(projectId, manager);
+        if (summary.isEmpty()) {
+            return;
+        }
+        
+        System.out.printf("%-10s", "Flat Type");
+        for (ApplStatus status : ApplStatus.values()) {
+            System.out.printf(" %18s", status);
+        }
+        System.out.println();
+        for (Map.Entry<FlatType, Map<ApplStatus, Integer>> row : summary.entrySet()) {
+            System.out.printf("%-10s", row.getKey());
+            for (ApplStatus status : ApplStatus.values()) {
+                System.out.printf(" %18d", row.getValue().getOrDefault(status, 0));
+            }
+            System.out.println();
+        }
     }
 
     // --- Helper Methods ---
@@ -1396,6 +1581,22 @@ public class CLIView {
         System.out.println(message);
     }
 
+    /**
+     * Checks for another input line. The console defaults below only suit stdin, so a remote
+     * session ends instead once its client disconnects.
+     * @return true if another line is available.
+     * @throws SessionClosedException if this is a remote session and its input has ended.
+     */
+    private boolean hasNextLine() {
+        if (scanner.hasNextLine()) {
+            return true;
+        }
+        if (remoteSession) {
+            throw new SessionClosedException();
+        }
+        return false;
+    }
+
     /**
      * Gets integer input from the user with error handling.
      * Includes handling for environments without standard input.
@@ -1409,7 +1610,7 @@ public class CLIView {
                 
                 // In case we're running this in an environment where standard input isn't available
                 // TO REMOVE?
-                if (!scanner.hasNextLine()) {
+                if (!hasNextLine()) {
                     System.out.println("No input available. Defaulting to option 1.");
                     return 1; // Default to option 1 (Login)
                 }
@@ -1427,6 +1628,8 @@ public class CLIView {
             } catch (NoSuchElementException e) {
                 System.out.println("Input not available. Defaulting to option 1.");
                 return 1; // Default to option 1 (Login)
+            } catch (SessionClosedException e) {
+                throw e; // Let a remote session end
             } catch (Exception e) {
                 System.out.println("Error reading input: " + e.getMessage());
                 return 1; // Default to option 1 (Login)
@@ -1443,7 +1646,7 @@ public class CLIView {
         while (true) {
             try {
                 System.out.print(prompt);
-                if (!scanner.hasNextLine()) {
+                if (!hasNextLine()) {
                     return null;
                 }
 
@@ -1457,6 +1660,8 @@ public class CLIView {
                 return Double.parseDouble(input);
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Please enter a number.");
+            } catch (SessionClosedException e) {
+                throw e; // Let a remote session end
             } catch (Exception e) {
                 System.out.println("Error reading input: " + e.getMessage());
             }
@@ -1472,7 +1677,7 @@ public class CLIView {
     private String getStringInput(String prompt) {
         System.out.print(prompt);
         try {
-            if (!scanner.hasNextLine()) {
+            if (!hasNextLine()) {
                 System.out.println("No input available. Defaulting to empty string.");
                 return ""; // Default to empty string
             }
@@ -1480,6 +1685,8 @@ public class CLIView {
         } catch (NoSuchElementException e) {
             System.out.println("Input not available. Defaulting to empty string.");
             return ""; // Default to empty string
+        } catch (SessionClosedException e) {
+            throw e; // Let a remote session end
         } catch (Exception e) {
             System.out.println("Error reading input: " + e.getMessage());
             return ""; // Default to empty string
@@ -1495,7 +1702,7 @@ public class CLIView {
     private String getPasswordInput(String prompt) {
         System.out.print(prompt);
         try {
-            if (!scanner.hasNextLine()) {
+            if (!hasNextLine()) {
                 System.out.println("No input available. Defaulting to 'password'.");
                 return "password"; // Default password for testing TO REMOVE
             }
@@ -1503,6 +1710,8 @@ public class CLIView {
         } catch (NoSuchElementException e) {
             System.out.println("Input not available. Defaulting to 'password'.");
             return "password"; // Default password for testing
+        } catch (SessionClosedException e) {
+            throw e; // Let a remote session end
         } catch (Exception e) {
             System.out.println("Error reading input: " + e.getMessage());
             return "password"; // Default password for testing
@@ -1519,7 +1728,7 @@ public class CLIView {
         while (true) {
             System.out.print(prompt);
             try {
-                if (!scanner.hasNextLine()) {
+                if (!hasNextLine()) {
                     System.out.println("No input available. Defaulting to 'yes'.");
                     return true; // Default to yes
                 }
@@ -1534,6 +1743,8 @@ public class CLIView {
             } catch (NoSuchElementException e) {
                 System.out.println("Input not available. Defaulting to 'yes'.");
                 return true; // Default to yes
+            } catch (SessionClosedException e) {
+                throw e; // Let a remote session end
             } catch (Exception e) {
                 System.out.println("Error reading input: " + e.getMessage());
                 return true; // Default to yes
@@ -1554,7 +1765,7 @@ public class CLIView {
         while (true) {
             System.out.print(prompt);
             try {
-                if (!scanner.hasNextLine()) {
+                if (!hasNextLine()) {
                     System.out.println("No input available. Defaulting to today's date.");
                     return new Date(); // Default to today's date
                 }
@@ -1567,6 +1778,8 @@ public class CLIView {
             } catch (NoSuchElementException e) {
                 System.out.println("Input not available. Defaulting to today's date.");
                 return new Date(); // Default to today's date
+            } catch (SessionClosedException e) {
+                throw e; // Let a remote session end
             } catch (Exception e) {
                 System.out.println("Error reading input: " + e.getMessage());
                 return new Date(); // Default to today's date
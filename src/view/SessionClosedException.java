@@ -0,0 +1,12 @@
+package view;
+
+/**
+ * Thrown by a remote {@link CLIView} session when its client has disconnected.
+ */
+public class SessionClosedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SessionClosedException() {
+        super("Session input closed");
+    }
+}
@@ -0,0 +1,82 @@
+package view;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * A {@code System.out} replacement that sends each thread's output to the stream bound to it.
+ * The views and controllers print through {@code System.out}; installing this console lets
+ * every session thread write to its own client while unbound threads keep the original stream.
+ * Writes are not funnelled through a shared lock, so a slow client only delays its own session.
+ */
+public class SessionConsole extends PrintStream {
+    private static final ThreadLocal<PrintStream> BOUND = new ThreadLocal<>();
+
+    private final PrintStream fallback;
+
+    private SessionConsole(PrintStream fallback) {
+        super(fallback, true);
+        this.fallback = fallback;
+    }
+
+    /**
+     * Replaces {@code System.out} with a session console, once.
+     */
+    public static synchronized void install() {
+        if (!(System.out instanceof SessionConsole)) {
+            System.setOut(new SessionConsole(System.out));
+        }
+    }
+
+    /**
+     * Routes the calling thread's {@code System.out} output to the given stream.
+     */
+    public static void bind(PrintStream out) {
+        BOUND.set(out);
+    }
+
+    public static void unbind() {
+        BOUND.remove();
+    }
+
+    private PrintStream target() {
+        PrintStream out = BOUND.get();
+        return out != null ? out : fallback;
+    }
+
+    // ========== Delegation ==========
+    @Override public void write(int b) { target().write(b); }
+    @Override public void write(byte[] buf, int off, int len) { target().write(buf, off, len); }
+    @Override public void flush() { target().flush(); }
+    @Override public void close() { target().flush(); } // Never close the shared console
+    @Override public boolean checkError() { return target().checkError(); }
+
+    @Override public void print(boolean b) { target().print(b); }
+    @Override public void print(char c) { target().print(c); }
+    @Override public void print(int i) { target().print(i); }
+    @Override public void print(long l) { target().print(l); }
+    @Override public void print(float f) { target().print(f); }
+    @Override public void print(double d) { target().print(d); }
+    @Override public void print(char[] s) { target().print(s); }
+    @Override public void print(String s) { target().print(s); }
+    @Override public void print(Object obj) { target().print(obj); }
+
+    @Override public void println() { target().println(); }
+    @Override public void println(boolean x) { target().println(x); }
+    @Override public void println(char x) { target().println(x); }
+    @Override public void println(int x) { target().println(x); }
+    @Override public void println(long x) { target().println(x); }
+    @Override public void println(float x) { target().println(x); }
+    @Override public void println(double x) { target().println(x); }
+    @Override public void println(char[] x) { target().println(x); }
+    @Override public void println(String x) { target().println(x); }
+    @Override public void println(Object x) { target().println(x); }
+
+    @Override public PrintStream printf(String format, Object... args) { target().printf(format, args); return this; }
+    @Override public PrintStream printf(Locale l, String format, Object... args) { target().printf(l, format, args); return this; }
+    @Override public PrintStream format(String format, Object... args) { target().format(format, args); return this; }
+    @Override public PrintStream format(Locale l, String format, Object... args) { target().format(l, format, args); return this; }
+    @Override public PrintStream append(CharSequence csq) { target().append(csq); return this; }
+    @Override public PrintStream append(CharSequence csq, int start, int end) { target().append(csq, start, end); return this; }
+    @Override public PrintStream append(char c) { target().append(c); return this; }
+}